@@ -8,14 +8,19 @@ import com.lambdaschool.usermodel.models.User;
 import com.lambdaschool.usermodel.models.UserRoles;
 import com.lambdaschool.usermodel.models.Useremail;
 import com.lambdaschool.usermodel.services.RoleService;
+import com.lambdaschool.usermodel.services.UserBatchService;
 import com.lambdaschool.usermodel.services.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Iterator;
 import java.util.Locale;
+import java.util.Random;
+import java.util.stream.IntStream;
 
 /**
  * SeedData puts both known and random data into the database. It implements CommandLineRunner.
@@ -46,6 +51,24 @@ public class SeedData
     @Autowired
     UserService userService;
 
+    /**
+     * Writes the random users in chunks
+     */
+    @Autowired
+    UserBatchService userBatchService;
+
+    /**
+     * The number of random users to add after the known ones. None unless asked for.
+     */
+    @Value("${usermodel.seed.random-users:0}")
+    int randomUsers;
+
+    /**
+     * Seeds the random number generator used for the random users
+     */
+    @Value("${usermodel.seed.random-seed:42}")
+    long randomSeed;
+
     /**
      * Generates test, seed data for our application
      * First a set of known data is seeded into our database.
@@ -141,34 +164,50 @@ public class SeedData
                 r2));
         userService.save(u5);
 
-        if (false)
+        if (randomUsers > 0)
         {
             // using JavaFaker create a bunch of regular users
             // https://www.baeldung.com/java-faker
             // https://www.baeldung.com/regular-expressions-java
-
+            // The same seed gives the same users, so load test runs can be compared.
+            Random random = new Random(randomSeed);
             FakeValuesService fakeValuesService = new FakeValuesService(new Locale("en-US"),
-                new RandomService());
-            Faker nameFaker = new Faker(new Locale("en-US"));
-
-            for (int i = 0; i < 25; i++)
-            {
-                new User();
-                User fakeUser;
-
-                fakeUser = new User(nameFaker.name()
-                    .username(),
-                    "password",
-                    nameFaker.internet()
-                        .emailAddress());
-                fakeUser.getRoles()
-                    .add(new UserRoles(fakeUser,
-                        r2));
-                fakeUser.getUseremails()
-                    .add(new Useremail(fakeUser,
-                        fakeValuesService.bothify("????##@gmail.com")));
-                userService.save(fakeUser);
-            }
+                new RandomService(random));
+            Faker nameFaker = new Faker(new Locale("en-US"),
+                random);
+            Role userRole = r2;
+            Role dataRole = r3;
+
+            Iterator<User> fakeUsers = IntStream.range(0,
+                randomUsers)
+                .mapToObj(i ->
+                {
+                    // usernames and primary emails must be unique, so number them
+                    String username = nameFaker.name()
+                        .username() + i;
+                    User fakeUser = new User(username,
+                        "password",
+                        username + "@" + nameFaker.internet()
+                            .domainName());
+                    fakeUser.getRoles()
+                        .add(new UserRoles(fakeUser,
+                            userRole));
+                    if (random.nextInt(10) == 0)
+                    {
+                        fakeUser.getRoles()
+                            .add(new UserRoles(fakeUser,
+                                dataRole));
+                    }
+                    for (int j = random.nextInt(3); j >= 0; j--)
+                    {
+                        fakeUser.getUseremails()
+                            .add(new Useremail(fakeUser,
+                                fakeValuesService.bothify("????##@gmail.com")));
+                    }
+                    return fakeUser;
+                })
+                .iterator();
+            userBatchService.saveAll(fakeUsers);
         }
     }
 }
\ No newline at end of file
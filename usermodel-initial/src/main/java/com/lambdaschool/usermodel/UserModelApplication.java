@@ -1,9 +1,27 @@
 package com.lambdaschool.usermodel;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lambdaschool.usermodel.models.UserImportReport;
+import com.lambdaschool.usermodel.services.UserImportService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.Banner;
 import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.SimpleCommandLinePropertySource;
+import org.springframework.core.env.StandardEnvironment;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * Main class to start the application.
  */
@@ -11,14 +29,107 @@ import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 @SpringBootApplication
 public class UserModelApplication
 {
+    private static final Logger logger = LoggerFactory.getLogger(UserModelApplication.class);
+
+    /**
+     * The settings of an import run from the command line, unless given as arguments. The import writes to an
+     * existing database, so the schema is left alone, no seed data is added and the H2 servers, which would
+     * clash with a running application, are not started.
+     */
+    private static final Map<String, String> IMPORT_DEFAULTS = new LinkedHashMap<>();
+
+    static
+    {
+        IMPORT_DEFAULTS.put("command.line.runner.enabled",
+            "false");
+        IMPORT_DEFAULTS.put("h2.tcp.enabled",
+            "false");
+        IMPORT_DEFAULTS.put("h2.web.enabled",
+            "false");
+        IMPORT_DEFAULTS.put("spring.jpa.hibernate.ddl-auto",
+            "none");
+        IMPORT_DEFAULTS.put("spring.datasource.initialization-mode",
+            "never");
+    }
+
     /**
      * Main method to start the application.
+     * <p>
+     * Given import, the path of a CSV or newline delimited JSON file and the path of a report file, the users of
+     * the file are imported into the database given by spring.datasource.url, without starting the web server.
+     * The report is written to the report file as JSON and the application exits, with a status of 1 if any user
+     * was rejected. Any further arguments are passed to Spring, such as --spring.datasource.url=... or
+     * --usermodel.import.threads=8. Should the application also be running, give the import its own
+     * --usermodel.audit.directory, as only one process may write to a journal.
      *
-     * @param args Not used in this application.
+     * @param args Nothing to start the web server, or import, the file to import users from and the report file.
+     * @throws Exception if the file cannot be imported or the report cannot be written
      */
-    public static void main(String[] args)
+    public static void main(String[] args) throws
+                                           Exception
     {
+        if (args.length > 0 && args[0].equals("import"))
+        {
+            System.exit(importUsers(args));
+        }
+
         SpringApplication.run(UserModelApplication.class,
             args);
     }
+
+    /**
+     * Imports the users of a file into an existing database, see main
+     *
+     * @param args import, the file to import users from, the report file, then any arguments for Spring
+     * @return the exit status: 0 if every user was created, 1 if any was rejected, 2 if the arguments are wrong
+     * @throws Exception if the file cannot be imported or the report cannot be written
+     */
+    private static int importUsers(String[] args) throws
+                                                  Exception
+    {
+        if (args.length < 3)
+        {
+            logger.error("Usage: import <users file> <report file> --spring.datasource.url=<url> [<option>...]");
+            return 2;
+        }
+        String[] springArgs = Arrays.copyOfRange(args,
+            3,
+            args.length);
+
+        StandardEnvironment given = new StandardEnvironment();
+        given.getPropertySources()
+            .addFirst(new SimpleCommandLinePropertySource(springArgs));
+        String url = given.getProperty("spring.datasource.url");
+        if (url == null || url.startsWith("jdbc:h2:mem:"))
+        {
+            logger.error("Give the database to import into with --spring.datasource.url, or SPRING_DATASOURCE_URL. An in memory database would be lost once the import ends.");
+            return 2;
+        }
+
+        List<String> options = new ArrayList<>(Arrays.asList(springArgs));
+        IMPORT_DEFAULTS.forEach((name, value) ->
+        {
+            if (!given.containsProperty(name))
+            {
+                options.add("--" + name + "=" + value);
+            }
+        });
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(UserModelApplication.class)
+            .web(WebApplicationType.NONE)
+            .bannerMode(Banner.Mode.OFF)
+            .run(options.toArray(new String[0]));
+        UserImportReport report = context.getBean(UserImportService.class)
+            .importFile(Paths.get(args[1]),
+                null);
+        context.getBean(ObjectMapper.class)
+            .writerWithDefaultPrettyPrinter()
+            .writeValue(Paths.get(args[2])
+                    .toFile(),
+                report);
+        logger.info("Import report written to {}",
+            args[2]);
+        return SpringApplication.exit(context,
+            () -> (report.getRejected() == 0) ? 0 : 1);
+    }
 }
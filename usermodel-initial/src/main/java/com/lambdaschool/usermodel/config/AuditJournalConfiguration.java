@@ -0,0 +1,61 @@
+package com.lambdaschool.usermodel.config;
+
+import com.lambdaschool.usermodel.services.AuditEventListener;
+import com.lambdaschool.usermodel.services.AuditJournal;
+import org.hibernate.boot.Metadata;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Collections;
+
+/**
+ * Feeds the audit journal from Hibernate's events
+ */
+@Configuration
+public class AuditJournalConfiguration
+{
+    /**
+     * Hands Hibernate an integrator adding the audit listener to the events fired once a transaction commits
+     *
+     * @param auditJournal where the changes are recorded
+     * @return sets hibernate.integrator_provider
+     */
+    @Bean
+    public HibernatePropertiesCustomizer auditJournalCustomizer(AuditJournal auditJournal)
+    {
+        AuditEventListener listener = new AuditEventListener(auditJournal);
+        Integrator integrator = new Integrator()
+        {
+            @Override
+            public void integrate(
+                Metadata metadata,
+                SessionFactoryImplementor sessionFactory,
+                SessionFactoryServiceRegistry serviceRegistry)
+            {
+                EventListenerRegistry registry = serviceRegistry.getService(EventListenerRegistry.class);
+                registry.appendListeners(EventType.POST_COMMIT_INSERT,
+                    listener);
+                registry.appendListeners(EventType.POST_COMMIT_UPDATE,
+                    listener);
+                registry.appendListeners(EventType.POST_COMMIT_DELETE,
+                    listener);
+            }
+
+            @Override
+            public void disintegrate(
+                SessionFactoryImplementor sessionFactory,
+                SessionFactoryServiceRegistry serviceRegistry)
+            {
+            }
+        };
+        return properties -> properties.put("hibernate.integrator_provider",
+            (IntegratorProvider) () -> Collections.singletonList(integrator));
+    }
+}
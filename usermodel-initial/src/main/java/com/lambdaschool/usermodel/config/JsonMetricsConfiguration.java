@@ -0,0 +1,108 @@
+package com.lambdaschool.usermodel.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * Times reading and writing JSON request and response bodies.
+ * <p>
+ * The time is recorded in the timer usermodel.json, tagged with read or write and with the same uri as
+ * http.server.requests, so the time an endpoint spends in Jackson can be told apart from the rest.
+ */
+@Configuration
+public class JsonMetricsConfiguration
+{
+    /**
+     * Replaces the JSON message converter Spring Boot would otherwise set up with one that is timed
+     *
+     * @param objectMapper  the object mapper Spring Boot set up from application.properties
+     * @param meterRegistry where the timer is reported
+     * @return the timed JSON message converter
+     */
+    @Bean
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(
+        ObjectMapper objectMapper,
+        MeterRegistry meterRegistry)
+    {
+        return new MappingJackson2HttpMessageConverter(objectMapper)
+        {
+            @Override
+            public Object read(
+                Type type,
+                Class<?> contextClass,
+                HttpInputMessage inputMessage) throws
+                                               IOException
+            {
+                Timer.Sample sample = Timer.start(meterRegistry);
+                try
+                {
+                    return super.read(type,
+                        contextClass,
+                        inputMessage);
+                } finally
+                {
+                    sample.stop(timer(meterRegistry,
+                        "read"));
+                }
+            }
+
+            @Override
+            protected void writeInternal(
+                Object object,
+                Type type,
+                HttpOutputMessage outputMessage) throws
+                                                 IOException
+            {
+                Timer.Sample sample = Timer.start(meterRegistry);
+                try
+                {
+                    super.writeInternal(object,
+                        type,
+                        outputMessage);
+                } finally
+                {
+                    sample.stop(timer(meterRegistry,
+                        "write"));
+                }
+            }
+        };
+    }
+
+    /**
+     * Finds the timer for the current request
+     *
+     * @param meterRegistry where the timer is reported
+     * @param operation     read or write
+     * @return the timer
+     */
+    private static Timer timer(
+        MeterRegistry meterRegistry,
+        String operation)
+    {
+        Object pattern = null;
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null)
+        {
+            pattern = attributes.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE,
+                RequestAttributes.SCOPE_REQUEST);
+        }
+        return Timer.builder("usermodel.json")
+            .tag("operation",
+                operation)
+            .tag("uri",
+                (pattern == null) ? "UNKNOWN" : pattern.toString())
+            .register(meterRegistry);
+    }
+}
@@ -0,0 +1,32 @@
+package com.lambdaschool.usermodel.config;
+
+import com.lambdaschool.usermodel.handlers.RequestStatisticsInterceptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Counts what Hibernate does for each request to the controllers
+ */
+@Configuration
+public class RequestStatisticsConfiguration
+    implements WebMvcConfigurer
+{
+    /**
+     * Starts and stops the counting around each request
+     */
+    @Autowired
+    private RequestStatisticsInterceptor requestStatisticsInterceptor;
+
+    /**
+     * Adds the Hibernate counting to every request
+     *
+     * @param registry the interceptors run around requests
+     */
+    @Override
+    public void addInterceptors(InterceptorRegistry registry)
+    {
+        registry.addInterceptor(requestStatisticsInterceptor);
+    }
+}
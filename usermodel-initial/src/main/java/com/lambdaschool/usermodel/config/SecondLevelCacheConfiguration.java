@@ -0,0 +1,51 @@
+package com.lambdaschool.usermodel.config;
+
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.ObjectUtils;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+
+/**
+ * Supplies the cache manager holding Hibernate's second-level cache.
+ * <p>
+ * The regions are Caffeine caches, each bounded in size and evicting the entries least likely to be used again.
+ * Their limits are set under caffeine.jcache in application.conf. Each application context gets a cache manager
+ * of its own, which Hibernate closes along with the session factory.
+ */
+@Configuration
+public class SecondLevelCacheConfiguration
+{
+    /**
+     * The cache manager the second-level cache regions are made in
+     *
+     * @param applicationContext the application context using the cache manager
+     * @return a cache manager used by no other application context
+     */
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(ApplicationContext applicationContext)
+    {
+        return Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+            .getCacheManager(URI.create("usermodel:hibernate:" + ObjectUtils.getIdentityHexString(applicationContext)),
+                getClass().getClassLoader());
+    }
+
+    /**
+     * Hands the cache manager to Hibernate
+     *
+     * @param hibernateCacheManager the cache manager the regions are made in
+     * @return sets hibernate.javax.cache.cache_manager
+     */
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheManagerCustomizer(CacheManager hibernateCacheManager)
+    {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER,
+            hibernateCacheManager);
+    }
+}
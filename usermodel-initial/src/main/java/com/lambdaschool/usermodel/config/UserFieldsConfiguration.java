@@ -0,0 +1,63 @@
+package com.lambdaschool.usermodel.config;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.lambdaschool.usermodel.models.User;
+import com.lambdaschool.usermodel.models.UserSummary;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Set;
+
+/**
+ * Lets a response leave out fields of the users in it, for the fields query parameter of the user endpoints.
+ * <p>
+ * Users and user summaries are written through the property filter named userFields. The application's
+ * JSON mapper writes every field unless a response supplies its own filter, see {@link #filters(Set)}.
+ */
+@Configuration
+public class UserFieldsConfiguration
+{
+    /**
+     * The name of the property filter users are written through
+     */
+    public static final String FILTER = "userFields";
+
+    /**
+     * Puts the userFields filter on a class without touching the class
+     */
+    @JsonFilter(FILTER)
+    interface UserFieldsMixIn
+    {
+    }
+
+    /**
+     * Filters users and user summaries in the application's JSON mapper, writing every field by default
+     *
+     * @return the customizer of the JSON mapper Spring Boot sets up
+     */
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer userFieldsCustomizer()
+    {
+        return builder -> builder.mixIn(User.class,
+            UserFieldsMixIn.class)
+            .mixIn(UserSummary.class,
+                UserFieldsMixIn.class)
+            .filters(new SimpleFilterProvider().setDefaultFilter(SimpleBeanPropertyFilter.serializeAll()));
+    }
+
+    /**
+     * The filters writing only the given fields of users and user summaries
+     *
+     * @param fields the names of the fields to write
+     * @return filters to write a response with
+     */
+    public static FilterProvider filters(Set<String> fields)
+    {
+        return new SimpleFilterProvider().addFilter(FILTER,
+            SimpleBeanPropertyFilter.filterOutAllExcept(fields));
+    }
+}
@@ -0,0 +1,98 @@
+package com.lambdaschool.usermodel.controllers;
+
+import com.lambdaschool.usermodel.models.AuditHistory;
+import com.lambdaschool.usermodel.services.AuditJournal;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+/**
+ * The entry point for clients to read the history of changes to users, roles and emails
+ */
+@RestController
+@RequestMapping("/audit")
+public class AuditController
+{
+    /**
+     * Using the audit journal to read the changes
+     */
+    @Autowired
+    private AuditJournal auditJournal;
+
+    /**
+     * The number of events returned when the client does not ask for a number
+     */
+    @Value("${usermodel.users.page-size.default:50}")
+    private int defaultPageSize;
+
+    /**
+     * The most events a client may ask for at once. Larger requests are reduced to this size.
+     */
+    @Value("${usermodel.users.page-size.max:500}")
+    private int maxPageSize;
+
+    /**
+     * Returns the latest changes committed, newest first, optionally only those of one entity.
+     * Changes are written to the journal a few milliseconds after their commit, so the very latest may be missing.
+     * <p>
+     * Changes with a sequence number below before are returned. One call reads at most usermodel.audit.max-scanned
+     * changes. When older changes are left unread, because the list is full or that many were read, the sequence
+     * number to use as before for the next call is returned in the X-Next-Cursor header and a Link header with
+     * rel="next" points to the older changes. A list shorter than limit with an X-Next-Cursor header means the
+     * search stopped early and older changes may still match.
+     * <br>Example: <a href="http://localhost:2019/audit/events">http://localhost:2019/audit/events</a>
+     * <br>Example: <a href="http://localhost:2019/audit/events?entity=user&amp;id=4">http://localhost:2019/audit/events?entity=user&amp;id=4</a>
+     * <br>Example: <a href="http://localhost:2019/audit/events?entity=userroles&amp;id=4/2">http://localhost:2019/audit/events?entity=userroles&amp;id=4/2</a>
+     *
+     * @param entity The name of the entity whose changes you seek, any case: User, Role, Useremail or UserRoles
+     * @param id     The primary key of the entity whose changes you seek. For a user role combination, the userid
+     *               and roleid separated by a slash.
+     * @param before The sequence number (long) the changes returned come before. Defaults to after the latest.
+     * @param limit  The maximum number of changes to return. Defaults to usermodel.users.page-size.default
+     *               and is capped at usermodel.users.page-size.max
+     * @return JSON list of the changes, each with its sequence number, time, entity, id, action, the names of the
+     * fields set or changed, and who made it, with a status of OK
+     * @see AuditJournal#recent(String, String, long, int) AuditJournal.recent(String, String, long, int)
+     */
+    @GetMapping(value = "/events",
+        produces = "application/json")
+    public ResponseEntity<?> listAuditEvents(
+        @RequestParam(required = false)
+            String entity,
+        @RequestParam(required = false)
+            String id,
+        @RequestParam(defaultValue = "" + Long.MAX_VALUE)
+            long before,
+        @RequestParam(required = false)
+            Integer limit)
+    {
+        int size = (limit == null) ? defaultPageSize : Math.max(1,
+            Math.min(limit,
+                maxPageSize));
+        AuditHistory history = auditJournal.recent(entity,
+            id,
+            before,
+            size);
+
+        HttpHeaders responseHeaders = new HttpHeaders();
+        if (history.getNext() != null)
+        {
+            responseHeaders.set("X-Next-Cursor",
+                Long.toString(history.getNext()));
+            responseHeaders.add(HttpHeaders.LINK,
+                "<" + ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("before",
+                        history.getNext())
+                    .replaceQueryParam("limit",
+                        size)
+                    .toUriString() + ">; rel=\"next\"");
+        }
+        return new ResponseEntity<>(history.getEvents(),
+            responseHeaders,
+            HttpStatus.OK);
+    }
+}
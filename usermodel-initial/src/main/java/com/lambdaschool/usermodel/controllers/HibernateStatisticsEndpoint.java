@@ -0,0 +1,171 @@
+package com.lambdaschool.usermodel.controllers;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CollectionStatistics;
+import org.hibernate.stat.EntityStatistics;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The Hibernate statistics gathered since the application started, or since they were last reset.
+ * <br>Example: <a href="http://localhost:2019/actuator/hibernate">http://localhost:2019/actuator/hibernate</a>
+ * <br>Example: <a href="http://localhost:2019/actuator/hibernate?top=5">http://localhost:2019/actuator/hibernate?top=5</a>
+ * <p>
+ * DELETE /actuator/hibernate resets them. Statistics are only gathered when hibernate.generate_statistics is true.
+ */
+@Component
+@Endpoint(id = "hibernate")
+public class HibernateStatisticsEndpoint
+{
+    /**
+     * The number of queries listed when the client does not say
+     */
+    private static final int DEFAULT_TOP = 10;
+
+    /**
+     * Where the statistics are kept
+     */
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics()
+    {
+        return entityManagerFactory.unwrap(SessionFactory.class)
+            .getStatistics();
+    }
+
+    /**
+     * Returns the totals, the reads of each entity and collection, and the queries that took the longest in total
+     *
+     * @param top the number (Integer) of queries to list. Defaults to 10.
+     * @return the statistics
+     */
+    @ReadOperation
+    public Map<String, Object> statistics(@Nullable Integer top)
+    {
+        Statistics s = statistics();
+        Map<String, Object> totals = new LinkedHashMap<>();
+        totals.put("statementsPrepared",
+            s.getPrepareStatementCount());
+        totals.put("entityLoads",
+            s.getEntityLoadCount());
+        totals.put("entityFetches",
+            s.getEntityFetchCount());
+        totals.put("collectionLoads",
+            s.getCollectionLoadCount());
+        totals.put("collectionFetches",
+            s.getCollectionFetchCount());
+        totals.put("secondLevelCacheHits",
+            s.getSecondLevelCacheHitCount());
+        totals.put("secondLevelCacheMisses",
+            s.getSecondLevelCacheMissCount());
+        totals.put("queryCacheHits",
+            s.getQueryCacheHitCount());
+        totals.put("queryCacheMisses",
+            s.getQueryCacheMissCount());
+        totals.put("queryExecutions",
+            s.getQueryExecutionCount());
+        totals.put("queryExecutionMaxTime",
+            s.getQueryExecutionMaxTime());
+        totals.put("slowestQuery",
+            s.getQueryExecutionMaxTimeQueryString());
+
+        Map<String, Object> entities = new TreeMap<>();
+        for (String name : s.getEntityNames())
+        {
+            EntityStatistics es = s.getEntityStatistics(name);
+            Map<String, Long> counts = new LinkedHashMap<>();
+            counts.put("loads",
+                es.getLoadCount());
+            counts.put("fetches",
+                es.getFetchCount());
+            counts.put("inserts",
+                es.getInsertCount());
+            counts.put("updates",
+                es.getUpdateCount());
+            counts.put("deletes",
+                es.getDeleteCount());
+            entities.put(name,
+                counts);
+        }
+
+        // a collection fetched about once per load of its owner is read with N+1 selects
+        Map<String, Object> collections = new TreeMap<>();
+        for (String role : s.getCollectionRoleNames())
+        {
+            CollectionStatistics cs = s.getCollectionStatistics(role);
+            Map<String, Long> counts = new LinkedHashMap<>();
+            counts.put("loads",
+                cs.getLoadCount());
+            counts.put("fetches",
+                cs.getFetchCount());
+            collections.put(role,
+                counts);
+        }
+
+        List<Map<String, Object>> queries = new ArrayList<>();
+        for (String query : s.getQueries())
+        {
+            QueryStatistics qs = s.getQueryStatistics(query);
+            Map<String, Object> q = new LinkedHashMap<>();
+            q.put("query",
+                query);
+            q.put("executions",
+                qs.getExecutionCount());
+            q.put("rows",
+                qs.getExecutionRowCount());
+            q.put("totalTime",
+                qs.getExecutionTotalTime());
+            q.put("averageTime",
+                qs.getExecutionAvgTime());
+            q.put("maxTime",
+                qs.getExecutionMaxTime());
+            queries.add(q);
+        }
+        queries.sort(Comparator.comparing((Map<String, Object> q) -> (Long) q.get("totalTime"))
+            .reversed());
+        int n = Math.max(0,
+            (top == null) ? DEFAULT_TOP : top);
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("since",
+            new Date(s.getStartTime()));
+        body.put("enabled",
+            s.isStatisticsEnabled());
+        body.put("totals",
+            totals);
+        body.put("entities",
+            entities);
+        body.put("collections",
+            collections);
+        body.put("queries",
+            queries.subList(0,
+                Math.min(n,
+                    queries.size())));
+        return body;
+    }
+
+    /**
+     * Starts the statistics again from zero
+     */
+    @DeleteOperation
+    public void reset()
+    {
+        statistics().clear();
+    }
+}
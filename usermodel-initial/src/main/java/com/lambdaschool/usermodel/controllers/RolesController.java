@@ -1,8 +1,13 @@
 package com.lambdaschool.usermodel.controllers;
 
+import com.lambdaschool.usermodel.exceptions.ResourceFoundException;
 import com.lambdaschool.usermodel.models.Role;
+import com.lambdaschool.usermodel.models.RoleAssignmentResult;
+import com.lambdaschool.usermodel.models.UserSummary;
+import com.lambdaschool.usermodel.services.RoleAssignmentService;
 import com.lambdaschool.usermodel.services.RoleService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -12,6 +17,7 @@ import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import javax.validation.Valid;
 import java.net.URI;
 import java.util.List;
+import java.util.Set;
 
 /**
  * The entry point for clients to access role data
@@ -31,11 +37,29 @@ public class RolesController
     @Autowired
     RoleService roleService;
 
+    /**
+     * Using the Role Assignment service to give or take a role from many users at once
+     */
+    @Autowired
+    private RoleAssignmentService roleAssignmentService;
+
+    /**
+     * The number of users of a role returned when the client does not ask for a number
+     */
+    @Value("${usermodel.users.page-size.default:50}")
+    private int defaultPageSize;
+
+    /**
+     * The most users of a role a client may ask for at once. Larger requests are reduced to this size.
+     */
+    @Value("${usermodel.users.page-size.max:500}")
+    private int maxPageSize;
+
     /**
      * List of all roles
      * <br>Example: <a href="http://localhost:2019/roles/roles">http://localhost:2019/roles/roles</a>
      *
-     * @return JSON List of all the roles and their associated users
+     * @return JSON List of all the roles, without their users
      * @see RoleService#findAll() RoleService.findAll()
      */
     @GetMapping(value = "/roles",
@@ -66,6 +90,172 @@ public class RolesController
             HttpStatus.OK);
     }
 
+    /**
+     * Returns a bounded list of summaries of the users holding the role, in userid order.
+     * <p>
+     * Users with a userid greater than after are returned. When the list is full, the userid to use for the next
+     * call is returned in the X-Next-Cursor header and a Link header with rel="next" points to the next users.
+     * <br>Example: <a href="http://localhost:2019/roles/role/2/users">http://localhost:2019/roles/role/2/users</a>
+     * <br>Example: <a href="http://localhost:2019/roles/role/2/users?after=2&amp;size=2">http://localhost:2019/roles/role/2/users?after=2&amp;size=2</a>
+     *
+     * @param roleId The primary key (long) of the role whose users you seek
+     * @param after  The last userid (long) already seen. Defaults to 0, the start of the list.
+     * @param size   The maximum number of users to return. Defaults to usermodel.users.page-size.default
+     *               and is capped at usermodel.users.page-size.max
+     * @return JSON list of the userid, username and primary email of each user, with a status of OK
+     * @see RoleService#findUsersAfter(long, long, int) RoleService.findUsersAfter(long, long, int)
+     */
+    @GetMapping(value = "/role/{roleId}/users",
+        produces = "application/json")
+    public ResponseEntity<?> listRoleUsers(
+        @PathVariable
+            long roleId,
+        @RequestParam(defaultValue = "0")
+            long after,
+        @RequestParam(required = false)
+            Integer size)
+    {
+        int pageSize = (size == null) ? defaultPageSize : Math.max(1,
+            Math.min(size,
+                maxPageSize));
+        List<UserSummary> users = roleService.findUsersAfter(roleId,
+            after,
+            pageSize);
+
+        HttpHeaders responseHeaders = new HttpHeaders();
+        if (users.size() == pageSize)
+        {
+            long cursor = users.get(users.size() - 1)
+                .getUserid();
+            responseHeaders.set("X-Next-Cursor",
+                Long.toString(cursor));
+            responseHeaders.add(HttpHeaders.LINK,
+                "<" + ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("after",
+                        cursor)
+                    .replaceQueryParam("size",
+                        pageSize)
+                    .toUriString() + ">; rel=\"next\"");
+        }
+        return new ResponseEntity<>(users,
+            responseHeaders,
+            HttpStatus.OK);
+    }
+
+    /**
+     * Gives the role to many users at once, either the users whose userids are in the body or the users holding
+     * a combination of roles, chosen as in GET /users/users/roles. Users already holding the role are left alone.
+     * <br>Example: <a href="http://localhost:2019/roles/role/3/users/assign">http://localhost:2019/roles/role/3/users/assign</a>
+     * with the body [2, 3, 4]
+     * <br>Example: <a href="http://localhost:2019/roles/role/3/users/assign?all=user&amp;none=admin">http://localhost:2019/roles/role/3/users/assign?all=user&amp;none=admin</a>
+     *
+     * @param roleId  The primary key (long) of the role to give
+     * @param userids The userids (Long) of the users, or nothing when choosing users by role
+     * @param all     The names of the roles each user must hold
+     * @param any     The names of the roles of which each user must hold one
+     * @param none    The names of the roles no user may hold
+     * @return JSON counts of the users asked for and the users given the role, with a status of OK
+     * @throws ResourceFoundException if both, or neither, of userids and roles are given
+     * @see RoleAssignmentService#assign(long, java.util.Collection) RoleAssignmentService.assign(long, Collection)
+     * @see RoleAssignmentService#assignByRoles(long, java.util.Collection, java.util.Collection, java.util.Collection) RoleAssignmentService.assignByRoles(long, Collection, Collection, Collection)
+     */
+    @PostMapping(value = "/role/{roleId}/users/assign",
+        produces = "application/json")
+    public ResponseEntity<?> assignRoleToUsers(
+        @PathVariable
+            long roleId,
+        @RequestBody(required = false)
+            List<Long> userids,
+        @RequestParam(defaultValue = "")
+            Set<String> all,
+        @RequestParam(defaultValue = "")
+            Set<String> any,
+        @RequestParam(defaultValue = "")
+            Set<String> none)
+    {
+        RoleAssignmentResult result = byRoles(userids,
+            all,
+            any,
+            none) ? roleAssignmentService.assignByRoles(roleId,
+            all,
+            any,
+            none) : roleAssignmentService.assign(roleId,
+            userids);
+        return new ResponseEntity<>(result,
+            HttpStatus.OK);
+    }
+
+    /**
+     * Takes the role from many users at once, either the users whose userids are in the body or the users holding
+     * a combination of roles, chosen as in GET /users/users/roles
+     * <br>Example: <a href="http://localhost:2019/roles/role/3/users/revoke">http://localhost:2019/roles/role/3/users/revoke</a>
+     * with the body [2, 3, 4]
+     * <br>Example: <a href="http://localhost:2019/roles/role/3/users/revoke?any=data&amp;none=admin">http://localhost:2019/roles/role/3/users/revoke?any=data&amp;none=admin</a>
+     *
+     * @param roleId  The primary key (long) of the role to take
+     * @param userids The userids (Long) of the users, or nothing when choosing users by role
+     * @param all     The names of the roles each user must hold
+     * @param any     The names of the roles of which each user must hold one
+     * @param none    The names of the roles no user may hold
+     * @return JSON counts of the users asked for and the users losing the role, with a status of OK
+     * @throws ResourceFoundException if both, or neither, of userids and roles are given
+     * @see RoleAssignmentService#revoke(long, java.util.Collection) RoleAssignmentService.revoke(long, Collection)
+     * @see RoleAssignmentService#revokeByRoles(long, java.util.Collection, java.util.Collection, java.util.Collection) RoleAssignmentService.revokeByRoles(long, Collection, Collection, Collection)
+     */
+    @PostMapping(value = "/role/{roleId}/users/revoke",
+        produces = "application/json")
+    public ResponseEntity<?> revokeRoleFromUsers(
+        @PathVariable
+            long roleId,
+        @RequestBody(required = false)
+            List<Long> userids,
+        @RequestParam(defaultValue = "")
+            Set<String> all,
+        @RequestParam(defaultValue = "")
+            Set<String> any,
+        @RequestParam(defaultValue = "")
+            Set<String> none)
+    {
+        RoleAssignmentResult result = byRoles(userids,
+            all,
+            any,
+            none) ? roleAssignmentService.revokeByRoles(roleId,
+            all,
+            any,
+            none) : roleAssignmentService.revoke(roleId,
+            userids);
+        return new ResponseEntity<>(result,
+            HttpStatus.OK);
+    }
+
+    /**
+     * Are the users chosen by role rather than by userid
+     *
+     * @param userids the userids given, if any
+     * @param all     the names of the roles each user must hold
+     * @param any     the names of the roles of which each user must hold one
+     * @param none    the names of the roles no user may hold
+     * @return true if the users are chosen by role, false if by userid
+     * @throws ResourceFoundException if both, or neither, are given
+     */
+    private static boolean byRoles(
+        List<Long> userids,
+        Set<String> all,
+        Set<String> any,
+        Set<String> none)
+    {
+        boolean byRoles = !all.isEmpty() || !any.isEmpty();
+        if (userids == null && !byRoles)
+        {
+            throw new ResourceFoundException("Either userids or at least one role in all or any is needed");
+        }
+        if (userids != null && (byRoles || !none.isEmpty()))
+        {
+            throw new ResourceFoundException("Give either userids or roles, not both");
+        }
+        return byRoles;
+    }
+
     /**
      * The Role with the given name
      * <br>Example: <a href="http://localhost:2019/roles/role/name/data">http://localhost:2019/roles/role/name/data</a>
@@ -1,26 +1,81 @@
 package com.lambdaschool.usermodel.controllers;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.lambdaschool.usermodel.config.UserFieldsConfiguration;
+import com.lambdaschool.usermodel.exceptions.ResourceFoundException;
+import com.lambdaschool.usermodel.exceptions.ResourceNotFoundException;
 import com.lambdaschool.usermodel.models.User;
+import com.lambdaschool.usermodel.models.UserBatchResult;
+import com.lambdaschool.usermodel.models.UserImportReport;
+import com.lambdaschool.usermodel.models.UserSummary;
+import com.lambdaschool.usermodel.services.UserBatchService;
+import com.lambdaschool.usermodel.services.UserImportService;
 import com.lambdaschool.usermodel.services.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.util.UriComponentsBuilder;
 
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 /**
  * The entry point for clients to access user data
+ * <p>
+ * The endpoints reading users take a fields query parameter, a comma separated list of the fields of each user
+ * to return, from userid, username, primaryemail, useremails and roles. Without it every field is returned.
+ * When only userid, username and primaryemail are asked for, just those columns are read from the users table
+ * and neither the useremails nor the roles of a user are read.
  */
 @RestController
 @RequestMapping("/users")
 public class UserController
 {
+    /**
+     * The fields of a user a client may ask for
+     */
+    private static final Set<String> USER_FIELDS = new LinkedHashSet<>(Arrays.asList("userid",
+        "username",
+        "primaryemail",
+        "useremails",
+        "roles"));
+
+    /**
+     * The fields of a user read from the users table alone, as a UserSummary
+     */
+    private static final Set<String> SUMMARY_FIELDS = new LinkedHashSet<>(Arrays.asList("userid",
+        "username",
+        "primaryemail"));
+
     /**
      * Using the User service to process user data
      */
@@ -28,75 +83,614 @@ public class UserController
     private UserService userService;
 
     /**
-     * Returns a list of all users
+     * Using the User Batch service to create many users at once
+     */
+    @Autowired
+    private UserBatchService userBatchService;
+
+    /**
+     * Using the User Import service to create the users of a file
+     */
+    @Autowired
+    private UserImportService userImportService;
+
+    /**
+     * The application's JSON mapper, used when writing users to a stream
+     */
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * The number of users returned in a page when the client does not ask for a page size
+     */
+    @Value("${usermodel.users.page-size.default:50}")
+    private int defaultPageSize;
+
+    /**
+     * The largest page of users a client may ask for. Larger requests are reduced to this size.
+     */
+    @Value("${usermodel.users.page-size.max:500}")
+    private int maxPageSize;
+
+    /**
+     * The directory POST /users/import reads files from
+     */
+    @Value("${usermodel.import.directory:import}")
+    private String importDirectory;
+
+    /**
+     * Returns a bounded list of users, in userid order.
+     * <p>
+     * Two ways to walk through the users are supported.
+     * Offset paging using page and size. The total number of users is returned in the X-Total-Count header.
+     * Keyset scrolling using after and size. Users with a userid greater than after are returned.
+     * The userid to use for the next call is returned in the X-Next-Cursor header.
+     * In both cases a Link header with rel="next" points to the next set of users if there is one.
+     * <p>
+     * Given ids, the users with those userids are returned instead, see {@link #listUsersById(List, Set)}.
      * <br>Example: <a href="http://localhost:2019/users/users">http://localhost:2019/users/users</a>
+     * <br>Example: <a href="http://localhost:2019/users/users?page=1&amp;size=2">http://localhost:2019/users/users?page=1&amp;size=2</a>
+     * <br>Example: <a href="http://localhost:2019/users/users?after=2&amp;size=2">http://localhost:2019/users/users?after=2&amp;size=2</a>
+     * <br>Example: <a href="http://localhost:2019/users/users?fields=userid,username">http://localhost:2019/users/users?fields=userid,username</a>
+     * <br>Example: <a href="http://localhost:2019/users/users?ids=3,1,7">http://localhost:2019/users/users?ids=3,1,7</a>
      *
-     * @return JSON list of all users with a status of OK
-     * @see UserService#findAll() UserService.findAll()
+     * @param page   The zero based page number (Integer) to return when using offset paging. Defaults to 0.
+     * @param size   The maximum number of users to return. Defaults to usermodel.users.page-size.default
+     *               and is capped at usermodel.users.page-size.max
+     * @param after  The last userid (Long) already seen when using keyset scrolling
+     * @param ids    The userids (Long) of the users you seek, instead of a page of users
+     * @param fields The fields of each user to return. Defaults to all of them.
+     * @return JSON list of users with a status of OK
+     * @see UserService#findAll(Pageable) UserService.findAll(Pageable)
+     * @see UserService#findAllAfter(long, int) UserService.findAllAfter(long, int)
+     * @see UserService#findAllSummaries(Pageable) UserService.findAllSummaries(Pageable)
+     * @see UserService#findAllSummariesAfter(long, int) UserService.findAllSummariesAfter(long, int)
      */
     @GetMapping(value = "/users",
         produces = "application/json")
-    public ResponseEntity<?> listAllUsers()
+    public ResponseEntity<?> listAllUsers(
+        @RequestParam(required = false)
+            Integer page,
+        @RequestParam(required = false)
+            Integer size,
+        @RequestParam(required = false)
+            Long after,
+        @RequestParam(required = false)
+            List<Long> ids,
+        @RequestParam(required = false)
+            Set<String> fields)
     {
-        List<User> myUsers = userService.findAll();
-        return new ResponseEntity<>(myUsers,
+        if (ids != null)
+        {
+            return listUsersById(ids,
+                fields);
+        }
+
+        Set<String> fieldNames = checkFields(fields);
+        int pageSize = (size == null) ? defaultPageSize : Math.max(1,
+            Math.min(size,
+                maxPageSize));
+        HttpHeaders responseHeaders = new HttpHeaders();
+
+        if (after != null)
+        {
+            List<?> myUsers;
+            long cursor = after;
+            if (isSummary(fieldNames))
+            {
+                List<UserSummary> summaries = userService.findAllSummariesAfter(after,
+                    pageSize);
+                if (!summaries.isEmpty())
+                {
+                    cursor = summaries.get(summaries.size() - 1)
+                        .getUserid();
+                }
+                myUsers = summaries;
+            } else
+            {
+                List<User> users = userService.findAllAfter(after,
+                    pageSize);
+                if (!users.isEmpty())
+                {
+                    cursor = users.get(users.size() - 1)
+                        .getUserid();
+                }
+                myUsers = users;
+            }
+            if (myUsers.size() == pageSize)
+            {
+                responseHeaders.set("X-Next-Cursor",
+                    Long.toString(cursor));
+                responseHeaders.add(HttpHeaders.LINK,
+                    link(ServletUriComponentsBuilder.fromCurrentRequest()
+                            .replaceQueryParam("after",
+                                cursor)
+                            .replaceQueryParam("size",
+                                pageSize),
+                        "next"));
+            }
+            return new ResponseEntity<>(body(myUsers,
+                fieldNames),
+                responseHeaders,
+                HttpStatus.OK);
+        }
+
+        int pageNumber = (page == null) ? 0 : Math.max(0,
+            page);
+        Pageable pageable = PageRequest.of(pageNumber,
+            pageSize,
+            Sort.by("userid"));
+        Page<?> myUsers = isSummary(fieldNames) ? userService.findAllSummaries(pageable) : userService.findAll(pageable);
+
+        responseHeaders.set("X-Total-Count",
+            Long.toString(myUsers.getTotalElements()));
+        List<String> links = new ArrayList<>();
+        links.add(pageLink(0,
+            pageSize,
+            "first"));
+        if (myUsers.hasPrevious())
+        {
+            links.add(pageLink(pageNumber - 1,
+                pageSize,
+                "prev"));
+        }
+        if (myUsers.hasNext())
+        {
+            links.add(pageLink(pageNumber + 1,
+                pageSize,
+                "next"));
+        }
+        links.add(pageLink(Math.max(0,
+            myUsers.getTotalPages() - 1),
+            pageSize,
+            "last"));
+        responseHeaders.add(HttpHeaders.LINK,
+            String.join(", ",
+                links));
+
+        return new ResponseEntity<>(body(myUsers.getContent(),
+            fieldNames),
+            responseHeaders,
             HttpStatus.OK);
     }
 
+    /**
+     * Returns the users with the given userids, read with one query, in the order the userids are given.
+     * Each user is returned once. Userids without a user are listed in the X-Missing-Ids header.
+     * At most usermodel.users.page-size.max userids may be asked for at once.
+     * <p>
+     * For lists of userids too long for a query string. GET /users/users?ids=3,1,7 does the same.
+     * <br>Example: <a href="http://localhost:2019/users/users/ids">http://localhost:2019/users/users/ids</a>
+     *
+     * @param ids    A JSON list of the userids (Long) of the users you seek
+     * @param fields The fields of each user to return. Defaults to all of them.
+     * @return JSON list of the users found with a status of OK
+     * @throws ResourceFoundException if too many userids are asked for
+     * @see UserService#findAllById(Collection) UserService.findAllById(Collection)
+     * @see UserService#findAllSummariesById(Collection) UserService.findAllSummariesById(Collection)
+     */
+    @PostMapping(value = "/users/ids",
+        consumes = "application/json",
+        produces = "application/json")
+    public ResponseEntity<?> listUsersById(
+        @RequestBody
+            List<Long> ids,
+        @RequestParam(required = false)
+            Set<String> fields) throws
+                                ResourceFoundException
+    {
+        Set<String> fieldNames = checkFields(fields);
+        Set<Long> wanted = new LinkedHashSet<>(ids);
+        wanted.remove(null);
+        if (wanted.size() > maxPageSize)
+        {
+            throw new ResourceFoundException("At most " + maxPageSize + " users may be read at once, " + wanted.size() + " were asked for");
+        }
+
+        Set<Long> missing = new LinkedHashSet<>(wanted);
+        List<?> myUsers;
+        if (isSummary(fieldNames))
+        {
+            List<UserSummary> summaries = userService.findAllSummariesById(wanted);
+            summaries.forEach(u -> missing.remove(u.getUserid()));
+            myUsers = summaries;
+        } else
+        {
+            List<User> users = userService.findAllById(wanted);
+            users.forEach(u -> missing.remove(u.getUserid()));
+            myUsers = users;
+        }
+
+        HttpHeaders responseHeaders = new HttpHeaders();
+        if (!missing.isEmpty())
+        {
+            responseHeaders.set("X-Missing-Ids",
+                missing.stream()
+                    .map(String::valueOf)
+                    .collect(Collectors.joining(",")));
+        }
+        return new ResponseEntity<>(body(myUsers,
+            fieldNames),
+            responseHeaders,
+            HttpStatus.OK);
+    }
+
+    /**
+     * Checks the fields a client asked for
+     *
+     * @param fields the fields query parameter, null if not given
+     * @return the fields asked for, or null if the client wants every field
+     * @throws ResourceFoundException if a field is not a field of a user
+     */
+    private Set<String> checkFields(Set<String> fields) throws
+                                                        ResourceFoundException
+    {
+        if (fields == null || fields.isEmpty())
+        {
+            return null;
+        }
+        for (String field : fields)
+        {
+            if (!USER_FIELDS.contains(field))
+            {
+                throw new ResourceFoundException("Unknown user field " + field + ". Fields are " + String.join(", ",
+                    USER_FIELDS));
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * Whether the fields asked for can be answered from the users table alone
+     *
+     * @param fields the fields asked for, null for every field
+     * @return true if user summaries hold every field asked for
+     */
+    private boolean isSummary(Set<String> fields)
+    {
+        return (fields != null) && SUMMARY_FIELDS.containsAll(fields);
+    }
+
+    /**
+     * Wraps the users being returned so only the fields asked for are written
+     *
+     * @param users  the user, user summary or list of either to return
+     * @param fields the fields asked for, null for every field
+     * @return the response body
+     */
+    private Object body(
+        Object users,
+        Set<String> fields)
+    {
+        if (fields == null)
+        {
+            return users;
+        }
+        MappingJacksonValue body = new MappingJacksonValue(users);
+        body.setFilters(UserFieldsConfiguration.filters(fields));
+        return body;
+    }
+
+    /**
+     * Builds one entry of a Link header pointing at the given page of the current request
+     *
+     * @param page the zero based page number the link points to
+     * @param size the page size the link points to
+     * @param rel  the relation of the page to the current page, for example next
+     * @return the Link header entry
+     */
+    private String pageLink(
+        int page,
+        int size,
+        String rel)
+    {
+        return link(ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQueryParam("page",
+                    page)
+                .replaceQueryParam("size",
+                    size),
+            rel);
+    }
+
+    /**
+     * Builds one entry of a Link header
+     *
+     * @param uri the target of the link
+     * @param rel the relation of the target to the current request
+     * @return the Link header entry
+     */
+    private String link(
+        UriComponentsBuilder uri,
+        String rel)
+    {
+        return "<" + uri.toUriString() + ">; rel=\"" + rel + "\"";
+    }
+
+    /**
+     * Streams all users as newline delimited JSON, one user per line, in userid order.
+     * Users are read from the database and written to the client as they go so the whole list is never held in memory.
+     * <br>Example: <a href="http://localhost:2019/users/users/stream">http://localhost:2019/users/users/stream</a>
+     * <br>Example: <a href="http://localhost:2019/users/users/stream?fields=username">http://localhost:2019/users/users/stream?fields=username</a>
+     *
+     * @param fields The fields of each user to return. Defaults to all of them.
+     * @return A stream of JSON users, one per line, with a status of OK
+     * @see UserService#forEachUser(Consumer) UserService.forEachUser(Consumer)
+     * @see UserService#forEachUserSummary(Consumer) UserService.forEachUserSummary(Consumer)
+     */
+    @GetMapping(value = "/users/stream",
+        produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamAllUsers(
+        @RequestParam(required = false)
+            Set<String> fields)
+    {
+        Set<String> fieldNames = checkFields(fields);
+        ObjectWriter writer = (fieldNames == null) ? objectMapper.writer() : objectMapper.writer(UserFieldsConfiguration.filters(fieldNames));
+        StreamingResponseBody body;
+        if (isSummary(fieldNames))
+        {
+            body = out -> userService.forEachUserSummary(u -> writeLine(out,
+                writer,
+                u));
+        } else
+        {
+            body = out -> userService.forEachUser(u -> writeLine(out,
+                writer,
+                u));
+        }
+
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType("application/x-ndjson"))
+            .body(body);
+    }
+
+    /**
+     * Writes one user as a line of JSON
+     *
+     * @param out    where the user is written
+     * @param writer the JSON writer to use
+     * @param user   the user or user summary to write
+     */
+    private void writeLine(
+        OutputStream out,
+        ObjectWriter writer,
+        Object user)
+    {
+        try
+        {
+            out.write(writer.writeValueAsBytes(user));
+            out.write('\n');
+        } catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     /**
      * Returns a single user based off a user id number
-     * <br>Example: http://localhost:2019/users/user/7
+     * <br>Example: http://localhost:2019/users/user/2
+     * <br>Example: http://localhost:2019/users/user/2?fields=username,roles
      *
      * @param userId The primary key of the user you seek
+     * @param fields The fields of the user to return. Defaults to all of them.
      * @return JSON object of the user you seek
      * @see UserService#findUserById(long) UserService.findUserById(long)
+     * @see UserService#findSummaryById(long) UserService.findSummaryById(long)
      */
     @GetMapping(value = "/user/{userId}",
         produces = "application/json")
     public ResponseEntity<?> getUserById(
         @PathVariable
-            Long userId)
+            Long userId,
+        @RequestParam(required = false)
+            Set<String> fields)
     {
-        User u = userService.findUserById(userId);
-        return new ResponseEntity<>(u,
+        Set<String> fieldNames = checkFields(fields);
+        Object u = isSummary(fieldNames) ? userService.findSummaryById(userId) : userService.findUserById(userId);
+        return new ResponseEntity<>(body(u,
+            fieldNames),
             HttpStatus.OK);
     }
 
     /**
      * Return a user object based on a given username
      * <br>Example: <a href="http://localhost:2019/users/user/name/cinnamon">http://localhost:2019/users/user/name/cinnamon</a>
+     * <br>Example: <a href="http://localhost:2019/users/user/name/cinnamon?fields=userid,primaryemail">http://localhost:2019/users/user/name/cinnamon?fields=userid,primaryemail</a>
      *
      * @param userName the name of user (String) you seek
+     * @param fields   The fields of the user to return. Defaults to all of them.
      * @return JSON object of the user you seek
      * @see UserService#findByName(String) UserService.findByName(String)
+     * @see UserService#findSummaryByName(String) UserService.findSummaryByName(String)
      */
     @GetMapping(value = "/user/name/{userName}",
         produces = "application/json")
     public ResponseEntity<?> getUserByName(
         @PathVariable
-            String userName)
+            String userName,
+        @RequestParam(required = false)
+            Set<String> fields)
+    {
+        Set<String> fieldNames = checkFields(fields);
+        Object u = isSummary(fieldNames) ? userService.findSummaryByName(userName) : userService.findByName(userName);
+        return new ResponseEntity<>(body(u,
+            fieldNames),
+            HttpStatus.OK);
+    }
+
+    /**
+     * Return a user object based on any of their email addresses, primary or not
+     * <br>Example: <a href="http://localhost:2019/users/user/email/cinnamon@lambdaschool.local">http://localhost:2019/users/user/email/cinnamon@lambdaschool.local</a>
+     * <br>Example: <a href="http://localhost:2019/users/user/email/hops@mymail.local?fields=userid,username">http://localhost:2019/users/user/email/hops@mymail.local?fields=userid,username</a>
+     *
+     * @param email  the email address (String) of the user you seek, any case
+     * @param fields The fields of the user to return. Defaults to all of them.
+     * @return JSON object of the user you seek
+     * @see UserService#findByEmail(String) UserService.findByEmail(String)
+     * @see UserService#findSummaryByEmail(String) UserService.findSummaryByEmail(String)
+     */
+    @GetMapping(value = "/user/email/{email}",
+        produces = "application/json")
+    public ResponseEntity<?> getUserByEmail(
+        @PathVariable
+            String email,
+        @RequestParam(required = false)
+            Set<String> fields)
+    {
+        Set<String> fieldNames = checkFields(fields);
+        Object u = isSummary(fieldNames) ? userService.findSummaryByEmail(email) : userService.findByEmail(email);
+        return new ResponseEntity<>(body(u,
+            fieldNames),
+            HttpStatus.OK);
+    }
+
+    /**
+     * Does the user hold the role. Answered from memory, without reading the user.
+     * <br>Example: <a href="http://localhost:2019/users/user/1/hasrole/admin">http://localhost:2019/users/user/1/hasrole/admin</a>
+     *
+     * @param userId   The primary key (long) of the user
+     * @param roleName The name (String) of the role, any case
+     * @return JSON true if the user holds the role, false if not or if there is no such user
+     * @see UserService#hasRole(long, String) UserService.hasRole(long, String)
+     */
+    @GetMapping(value = "/user/{userId}/hasrole/{roleName}",
+        produces = "application/json")
+    public ResponseEntity<?> userHasRole(
+        @PathVariable
+            long userId,
+        @PathVariable
+            String roleName)
     {
-        User u = userService.findByName(userName);
-        return new ResponseEntity<>(u,
+        return new ResponseEntity<>(userService.hasRole(userId,
+            roleName),
+            HttpStatus.OK);
+    }
+
+    /**
+     * Returns a bounded list of summaries of the users holding every role in all, at least one role in any,
+     * and no role in none, in userid order. Answered from memory, then the summaries are read in one query.
+     * <p>
+     * The number of users matching is returned in the X-Total-Count header. Users with a userid greater than
+     * after are returned. When the list is full, the userid to use for the next call is returned in the
+     * X-Next-Cursor header and a Link header with rel="next" points to the next users.
+     * <br>Example: <a href="http://localhost:2019/users/users/roles?all=admin&amp;none=data">http://localhost:2019/users/users/roles?all=admin&amp;none=data</a>
+     * <br>Example: <a href="http://localhost:2019/users/users/roles?any=admin,data&amp;size=2">http://localhost:2019/users/users/roles?any=admin,data&amp;size=2</a>
+     *
+     * @param all   The names of the roles each user must hold
+     * @param any   The names of the roles of which each user must hold one
+     * @param none  The names of the roles no user may hold
+     * @param after The last userid (long) already seen. Defaults to 0, the start of the list.
+     * @param size  The maximum number of users to return. Defaults to usermodel.users.page-size.default
+     *              and is capped at usermodel.users.page-size.max
+     * @return JSON list of the userid, username and primary email of each user, with a status of OK
+     * @throws ResourceFoundException if neither all nor any is given
+     * @see UserService#findSummariesByRoles(Collection, Collection, Collection, long, int) UserService.findSummariesByRoles(Collection, Collection, Collection, long, int)
+     */
+    @GetMapping(value = "/users/roles",
+        produces = "application/json")
+    public ResponseEntity<?> listUsersByRoles(
+        @RequestParam(defaultValue = "")
+            Set<String> all,
+        @RequestParam(defaultValue = "")
+            Set<String> any,
+        @RequestParam(defaultValue = "")
+            Set<String> none,
+        @RequestParam(defaultValue = "0")
+            long after,
+        @RequestParam(required = false)
+            Integer size)
+    {
+        if (all.isEmpty() && any.isEmpty())
+        {
+            throw new ResourceFoundException("At least one role in all or any is needed");
+        }
+        int pageSize = (size == null) ? defaultPageSize : Math.max(1,
+            Math.min(size,
+                maxPageSize));
+        List<UserSummary> users = userService.findSummariesByRoles(all,
+            any,
+            none,
+            after,
+            pageSize);
+
+        HttpHeaders responseHeaders = new HttpHeaders();
+        responseHeaders.set("X-Total-Count",
+            Long.toString(userService.countByRoles(all,
+                any,
+                none)));
+        if (users.size() == pageSize)
+        {
+            long cursor = users.get(users.size() - 1)
+                .getUserid();
+            responseHeaders.set("X-Next-Cursor",
+                Long.toString(cursor));
+            responseHeaders.add(HttpHeaders.LINK,
+                link(ServletUriComponentsBuilder.fromCurrentRequest()
+                        .replaceQueryParam("after",
+                            cursor)
+                        .replaceQueryParam("size",
+                            pageSize),
+                    "next"));
+        }
+        return new ResponseEntity<>(users,
+            responseHeaders,
             HttpStatus.OK);
     }
 
     /**
      * Returns a list of users whose username contains the given substring
      * <br>Example: <a href="http://localhost:2019/users/user/name/like/da">http://localhost:2019/users/user/name/like/da</a>
+     * <br>Example: <a href="http://localhost:2019/users/user/name/like/da?fields=userid,username">http://localhost:2019/users/user/name/like/da?fields=userid,username</a>
      *
      * @param userName Substring of the username for which you seek
+     * @param fields   The fields of each user to return. Defaults to all of them.
      * @return A JSON list of users you seek
      * @see UserService#findByNameContaining(String) UserService.findByNameContaining(String)
+     * @see UserService#findSummariesByNameContaining(String) UserService.findSummariesByNameContaining(String)
      */
     @GetMapping(value = "/user/name/like/{userName}",
         produces = "application/json")
     public ResponseEntity<?> getUserLikeName(
         @PathVariable
-            String userName)
+            String userName,
+        @RequestParam(required = false)
+            Set<String> fields)
+    {
+        Set<String> fieldNames = checkFields(fields);
+        List<?> u = isSummary(fieldNames) ? userService.findSummariesByNameContaining(userName) : userService.findByNameContaining(userName);
+        return new ResponseEntity<>(body(u,
+            fieldNames),
+            HttpStatus.OK);
+    }
+
+    /**
+     * Returns the userid and username of the first users, in username order, whose username starts with the
+     * given string. Meant for autocomplete, so the users are read from memory, not the database, when possible.
+     * <br>Example: <a href="http://localhost:2019/users/user/name/prefix/ci">http://localhost:2019/users/user/name/prefix/ci</a>
+     * <br>Example: <a href="http://localhost:2019/users/user/name/prefix/a?limit=2">http://localhost:2019/users/user/name/prefix/a?limit=2</a>
+     *
+     * @param prefix The start of the usernames you seek
+     * @param limit  The most users to return. Defaults to 10 and is capped at usermodel.users.page-size.max
+     * @param fields The fields of each user to return, of userid and username. Defaults to both.
+     * @return A JSON list of the userid and username of the users you seek
+     * @see UserService#findByNameStarting(String, int) UserService.findByNameStarting(String, int)
+     */
+    @GetMapping(value = "/user/name/prefix/{prefix}",
+        produces = "application/json")
+    public ResponseEntity<?> getUserNamesStarting(
+        @PathVariable
+            String prefix,
+        @RequestParam(defaultValue = "10")
+            int limit,
+        @RequestParam(required = false)
+            Set<String> fields)
     {
-        List<User> u = userService.findByNameContaining(userName);
-        return new ResponseEntity<>(u,
+        Set<String> fieldNames = checkFields(fields);
+        List<UserSummary> u = userService.findByNameStarting(prefix,
+            Math.max(1,
+                Math.min(limit,
+                    maxPageSize)));
+        return new ResponseEntity<>(body(u,
+            fieldNames),
             HttpStatus.OK);
     }
 
@@ -135,12 +729,74 @@ public class UserController
             HttpStatus.CREATED);
     }
 
+    /**
+     * Given many complete User Objects, create each new User record and accompanying useremail records
+     * and user role records. The users are read from the request as they are written, so the body may be large.
+     * <br> Example: <a href="http://localhost:2019/users/batch">http://localhost:2019/users/batch</a>
+     *
+     * @param body Either a JSON array of new users or newline delimited JSON, one new user per line.
+     *             Users are given as to POST /users/user. Roles must already exist.
+     * @return A JSON list with the userid of each new user, or why it was not created, in the order given,
+     * with a status of OK
+     * @throws IOException if the body cannot be read
+     * @see UserBatchService#saveAll(Iterator) UserBatchService.saveAll(Iterator)
+     */
+    @PostMapping(value = "/batch",
+        consumes = {"application/json", "application/x-ndjson"},
+        produces = "application/json")
+    public ResponseEntity<?> addNewUsers(InputStream body) throws
+                                                          IOException
+    {
+        // reads the elements of a JSON array or a sequence of JSON values alike
+        Iterator<User> users = objectMapper.readerFor(User.class)
+            .readValues(body);
+        List<UserBatchResult> results = userBatchService.saveAll(users);
+        return new ResponseEntity<>(results,
+            HttpStatus.OK);
+    }
+
+    /**
+     * Creates the users of a CSV or newline delimited JSON file in the import directory, for migrations too large
+     * to send as a request. The file is read on the server as its users are written.
+     * <br> Example: <a href="http://localhost:2019/users/import?file=users.csv">http://localhost:2019/users/import?file=users.csv</a>
+     *
+     * @param file   The name of the file, within the directory set by usermodel.import.directory
+     * @param format csv or ndjson. Without it, taken from the extension of the file.
+     * @return how many users were read, created and rejected, how fast, and why users were rejected,
+     * with a status of OK
+     * @throws IOException if the file cannot be read
+     * @see UserImportService#importFile(Path, String) UserImportService.importFile(Path, String)
+     */
+    @PostMapping(value = "/import",
+        produces = "application/json")
+    public ResponseEntity<?> importUsers(
+        @RequestParam
+            String file,
+        @RequestParam(required = false)
+            String format) throws
+                           IOException
+    {
+        Path directory = Paths.get(importDirectory)
+            .toAbsolutePath()
+            .normalize();
+        Path path = directory.resolve(file)
+            .normalize();
+        if (!path.startsWith(directory) || !Files.isRegularFile(path))
+        {
+            throw new ResourceNotFoundException("Import file " + file + " not found!");
+        }
+        UserImportReport report = userImportService.importFile(path,
+            format);
+        return new ResponseEntity<>(report,
+            HttpStatus.OK);
+    }
+
     /**
      * Given a complete User Object
      * Given the user id, primary key, is in the User table,
      * replace the User record and Useremail records.
      * Roles are handled through different endpoints
-     * <br> Example: <a href="http://localhost:2019/users/user/15">http://localhost:2019/users/user/15</a>
+     * <br> Example: <a href="http://localhost:2019/users/user/6">http://localhost:2019/users/user/6</a>
      *
      * @param updateUser A complete User including all emails and roles to be used to
      *                   replace the User. Roles must already exist.
@@ -167,7 +823,7 @@ public class UserController
      * Updates the user record associated with the given id with the provided data. Only the provided fields are affected.
      * Roles are handled through different endpoints
      * If an email list is given, it replaces the original emai list.
-     * <br> Example: <a href="http://localhost:2019/users/user/7">http://localhost:2019/users/user/7</a>
+     * <br> Example: <a href="http://localhost:2019/users/user/2">http://localhost:2019/users/user/2</a>
      *
      * @param updateUser An object containing values for just the fields that are being updated. All other fields are left NULL.
      * @param id         The primary key of the user you wish to update.
@@ -189,7 +845,7 @@ public class UserController
 
     /**
      * Deletes a given user along with associated emails and roles
-     * <br>Example: <a href="http://localhost:2019/users/user/14">http://localhost:2019/users/user/14</a>
+     * <br>Example: <a href="http://localhost:2019/users/user/5">http://localhost:2019/users/user/5</a>
      *
      * @param id the primary key of the user you wish to delete
      * @return Status of OK
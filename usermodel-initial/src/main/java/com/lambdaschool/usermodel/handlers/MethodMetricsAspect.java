@@ -0,0 +1,118 @@
+package com.lambdaschool.usermodel.handlers;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Times every call to a service or a repository.
+ * <p>
+ * Service calls are recorded in the timer usermodel.service and repository calls, so one per query, in the
+ * timer usermodel.repository. Both are tagged with the class and method called, and with the simple name of
+ * the exception thrown, or None. The time of a service call includes committing its transaction.
+ * <p>
+ * The time spent in each controller endpoint, including turning the response into JSON, is recorded by
+ * Spring Boot itself in http.server.requests.
+ */
+@Aspect
+@Component
+@Order(0)
+public class MethodMetricsAspect
+{
+    /**
+     * Where the timers are reported
+     */
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * The repository interface each repository proxy class stands for
+     */
+    private final Map<Class<?>, String> repositoryNames = new ConcurrentHashMap<>();
+
+    /**
+     * Times a public method of a service, such as UserServiceImpl.findByNameContaining
+     *
+     * @param pjp the method being called
+     * @return what the method returns
+     * @throws Throwable whatever the method throws
+     */
+    @Around("execution(public * com.lambdaschool.usermodel.services.*Service+.*(..))")
+    public Object timeService(ProceedingJoinPoint pjp) throws
+                                                       Throwable
+    {
+        return time("usermodel.service",
+            pjp.getSignature()
+                .getDeclaringType()
+                .getSimpleName(),
+            pjp);
+    }
+
+    /**
+     * Times a repository method, such as UserRepository.findByUsername
+     *
+     * @param pjp the method being called
+     * @return what the method returns
+     * @throws Throwable whatever the method throws
+     */
+    @Around("this(org.springframework.data.repository.Repository)")
+    public Object timeRepository(ProceedingJoinPoint pjp) throws
+                                                          Throwable
+    {
+        // methods such as findById are declared by Spring Data, so name the repository from the proxy
+        String repository = repositoryNames.computeIfAbsent(pjp.getThis()
+                .getClass(),
+            c -> AopProxyUtils.proxiedUserInterfaces(pjp.getThis())[0].getSimpleName());
+        return time("usermodel.repository",
+            repository,
+            pjp);
+    }
+
+    /**
+     * Runs the method, recording how long it took
+     *
+     * @param name  the name (String) of the timer
+     * @param owner the class (String) the method belongs to
+     * @param pjp   the method being called
+     * @return what the method returns
+     * @throws Throwable whatever the method throws
+     */
+    private Object time(
+        String name,
+        String owner,
+        ProceedingJoinPoint pjp) throws
+                                 Throwable
+    {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String exception = "None";
+        try
+        {
+            return pjp.proceed();
+        } catch (Throwable t)
+        {
+            exception = t.getClass()
+                .getSimpleName();
+            throw t;
+        } finally
+        {
+            sample.stop(Timer.builder(name)
+                .tag("class",
+                    owner)
+                .tag("method",
+                    pjp.getSignature()
+                        .getName())
+                .tag("exception",
+                    exception)
+                .register(meterRegistry));
+        }
+    }
+}
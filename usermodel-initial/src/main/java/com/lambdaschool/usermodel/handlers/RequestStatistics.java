@@ -0,0 +1,207 @@
+package com.lambdaschool.usermodel.handlers;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * What Hibernate did for one request: statements prepared, entities and collections read, second level cache
+ * hits and misses, and queries run.
+ * <p>
+ * Counting starts with begin and stops with end, on the thread handling the request. Hibernate reports each
+ * event through RequestStatisticsFactory, which adds it to the counts of the current thread, if any.
+ */
+public class RequestStatistics
+{
+    /**
+     * The counts of the request being handled by this thread, null when none is being counted
+     */
+    private static final ThreadLocal<RequestStatistics> CURRENT = new ThreadLocal<>();
+
+    private long statements;
+
+    private long entityLoads;
+
+    private long entityFetches;
+
+    private long collectionLoads;
+
+    private long collectionFetches;
+
+    private long cacheHits;
+
+    private long cacheMisses;
+
+    private long queries;
+
+    private long queryTime;
+
+    /**
+     * Collections fetched one owner at a time, by role such as com.lambdaschool.usermodel.models.User.useremails.
+     * Many fetches of one role in one request is the mark of N+1 selects.
+     */
+    private final Map<String, Long> collectionFetchesByRole = new TreeMap<>();
+
+    /**
+     * Starts counting for the current thread, dropping any earlier counts
+     */
+    public static void begin()
+    {
+        CURRENT.set(new RequestStatistics());
+    }
+
+    /**
+     * Stops counting for the current thread
+     *
+     * @return the counts since begin, or null if counting was not started
+     */
+    public static RequestStatistics end()
+    {
+        RequestStatistics counts = CURRENT.get();
+        CURRENT.remove();
+        return counts;
+    }
+
+    /**
+     * The counts of the current thread
+     *
+     * @return the counts, or null if counting was not started
+     */
+    static RequestStatistics current()
+    {
+        return CURRENT.get();
+    }
+
+    void statement()
+    {
+        statements++;
+    }
+
+    void entityLoad()
+    {
+        entityLoads++;
+    }
+
+    void entityFetch()
+    {
+        entityFetches++;
+    }
+
+    void collectionLoad()
+    {
+        collectionLoads++;
+    }
+
+    void collectionFetch(String role)
+    {
+        collectionFetches++;
+        collectionFetchesByRole.merge(role,
+            1L,
+            Long::sum);
+    }
+
+    void cache(boolean hit)
+    {
+        if (hit)
+        {
+            cacheHits++;
+        } else
+        {
+            cacheMisses++;
+        }
+    }
+
+    void query(long time)
+    {
+        queries++;
+        queryTime += time;
+    }
+
+    /**
+     * @return JDBC statements prepared
+     */
+    public long getStatements()
+    {
+        return statements;
+    }
+
+    /**
+     * @return entities loaded
+     */
+    public long getEntityLoads()
+    {
+        return entityLoads;
+    }
+
+    /**
+     * @return entities fetched on their own, outside of the statement that found them
+     */
+    public long getEntityFetches()
+    {
+        return entityFetches;
+    }
+
+    /**
+     * @return collections loaded
+     */
+    public long getCollectionLoads()
+    {
+        return collectionLoads;
+    }
+
+    /**
+     * @return collections fetched on their own, outside of the statement that found their owner
+     */
+    public long getCollectionFetches()
+    {
+        return collectionFetches;
+    }
+
+    /**
+     * @return second level cache hits
+     */
+    public long getCacheHits()
+    {
+        return cacheHits;
+    }
+
+    /**
+     * @return second level cache misses
+     */
+    public long getCacheMisses()
+    {
+        return cacheMisses;
+    }
+
+    /**
+     * @return HQL, JPQL and native queries run
+     */
+    public long getQueries()
+    {
+        return queries;
+    }
+
+    /**
+     * @return milliseconds spent running queries
+     */
+    public long getQueryTime()
+    {
+        return queryTime;
+    }
+
+    /**
+     * @return collections fetched on their own, by role
+     */
+    public Map<String, Long> getCollectionFetchesByRole()
+    {
+        return collectionFetchesByRole;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "statements=" + statements + ", entityLoads=" + entityLoads + ", entityFetches=" + entityFetches
+            + ", collectionLoads=" + collectionLoads + ", collectionFetches=" + collectionFetchesByRole
+            + ", cacheHits=" + cacheHits + ", cacheMisses=" + cacheMisses + ", queries=" + queries
+            + ", queryTime=" + queryTime + "ms";
+    }
+}
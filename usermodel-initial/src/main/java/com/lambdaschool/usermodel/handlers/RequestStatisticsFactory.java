@@ -0,0 +1,165 @@
+package com.lambdaschool.usermodel.handlers;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.metamodel.model.domain.NavigableRole;
+import org.hibernate.stat.internal.StatisticsImpl;
+import org.hibernate.stat.spi.StatisticsFactory;
+import org.hibernate.stat.spi.StatisticsImplementor;
+
+/**
+ * Builds the Hibernate statistics of the session factory. They are Hibernate's own statistics, which also add
+ * each event to the RequestStatistics of the current thread.
+ * <p>
+ * Set through the property spring.jpa.properties.hibernate.stats.factory. Hibernate only reports events when
+ * hibernate.generate_statistics is true.
+ */
+public class RequestStatisticsFactory
+    implements StatisticsFactory
+{
+    @Override
+    public StatisticsImplementor buildStatistics(SessionFactoryImplementor sessionFactory)
+    {
+        return new StatisticsImpl(sessionFactory)
+        {
+            @Override
+            public void prepareStatement()
+            {
+                super.prepareStatement();
+                RequestStatistics counts = RequestStatistics.current();
+                if (counts != null)
+                {
+                    counts.statement();
+                }
+            }
+
+            @Override
+            public void loadEntity(String entityName)
+            {
+                super.loadEntity(entityName);
+                RequestStatistics counts = RequestStatistics.current();
+                if (counts != null)
+                {
+                    counts.entityLoad();
+                }
+            }
+
+            @Override
+            public void fetchEntity(String entityName)
+            {
+                super.fetchEntity(entityName);
+                RequestStatistics counts = RequestStatistics.current();
+                if (counts != null)
+                {
+                    counts.entityFetch();
+                }
+            }
+
+            @Override
+            public void loadCollection(String role)
+            {
+                super.loadCollection(role);
+                RequestStatistics counts = RequestStatistics.current();
+                if (counts != null)
+                {
+                    counts.collectionLoad();
+                }
+            }
+
+            @Override
+            public void fetchCollection(String role)
+            {
+                super.fetchCollection(role);
+                RequestStatistics counts = RequestStatistics.current();
+                if (counts != null)
+                {
+                    counts.collectionFetch(role);
+                }
+            }
+
+            @Override
+            public void entityCacheHit(
+                NavigableRole entityName,
+                String regionName)
+            {
+                super.entityCacheHit(entityName,
+                    regionName);
+                cache(true);
+            }
+
+            @Override
+            public void entityCacheMiss(
+                NavigableRole entityName,
+                String regionName)
+            {
+                super.entityCacheMiss(entityName,
+                    regionName);
+                cache(false);
+            }
+
+            @Override
+            public void collectionCacheHit(
+                NavigableRole collectionRole,
+                String regionName)
+            {
+                super.collectionCacheHit(collectionRole,
+                    regionName);
+                cache(true);
+            }
+
+            @Override
+            public void collectionCacheMiss(
+                NavigableRole collectionRole,
+                String regionName)
+            {
+                super.collectionCacheMiss(collectionRole,
+                    regionName);
+                cache(false);
+            }
+
+            @Override
+            public void queryCacheHit(
+                String hql,
+                String regionName)
+            {
+                super.queryCacheHit(hql,
+                    regionName);
+                cache(true);
+            }
+
+            @Override
+            public void queryCacheMiss(
+                String hql,
+                String regionName)
+            {
+                super.queryCacheMiss(hql,
+                    regionName);
+                cache(false);
+            }
+
+            @Override
+            public void queryExecuted(
+                String hql,
+                int rows,
+                long time)
+            {
+                super.queryExecuted(hql,
+                    rows,
+                    time);
+                RequestStatistics counts = RequestStatistics.current();
+                if (counts != null)
+                {
+                    counts.query(time);
+                }
+            }
+
+            private void cache(boolean hit)
+            {
+                RequestStatistics counts = RequestStatistics.current();
+                if (counts != null)
+                {
+                    counts.cache(hit);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,97 @@
+package com.lambdaschool.usermodel.handlers;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Counts what Hibernate does for each request.
+ * <p>
+ * The statements and the collection fetches of each request are recorded in the distribution summaries
+ * usermodel.request.statements and usermodel.request.collection.fetches, tagged with the uri as in
+ * http.server.requests. A request preparing more statements than usermodel.hibernate.request-statements-warn
+ * is logged as a warning with its counts, which name the collections fetched one owner at a time.
+ */
+@Component
+public class RequestStatisticsInterceptor
+    implements AsyncHandlerInterceptor
+{
+    private static final Logger logger = LoggerFactory.getLogger(RequestStatisticsInterceptor.class);
+
+    /**
+     * Where the counts are reported
+     */
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * Requests preparing more statements than this are logged
+     */
+    @Value("${usermodel.hibernate.request-statements-warn:50}")
+    private long statementsWarn;
+
+    @Override
+    public boolean preHandle(
+        HttpServletRequest request,
+        HttpServletResponse response,
+        Object handler)
+    {
+        RequestStatistics.begin();
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(
+        HttpServletRequest request,
+        HttpServletResponse response,
+        Object handler)
+    {
+        // the rest of the request runs on another thread, so it cannot be counted here
+        RequestStatistics.end();
+    }
+
+    @Override
+    public void afterCompletion(
+        HttpServletRequest request,
+        HttpServletResponse response,
+        Object handler,
+        Exception ex)
+    {
+        RequestStatistics counts = RequestStatistics.end();
+        if (counts == null)
+        {
+            return;
+        }
+
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = (pattern == null) ? "UNKNOWN" : pattern.toString();
+        DistributionSummary.builder("usermodel.request.statements")
+            .tag("uri",
+                uri)
+            .register(meterRegistry)
+            .record(counts.getStatements());
+        DistributionSummary.builder("usermodel.request.collection.fetches")
+            .tag("uri",
+                uri)
+            .register(meterRegistry)
+            .record(counts.getCollectionFetches());
+
+        if (counts.getStatements() > statementsWarn)
+        {
+            logger.warn("{} {} prepared {} statements: {}",
+                request.getMethod(),
+                request.getRequestURI(),
+                counts.getStatements(),
+                counts);
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.lambdaschool.usermodel.models;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * A model of one change to an entity, as kept in the audit journal
+ */
+public class AuditEvent
+{
+    /**
+     * The position (long) of the event in the journal, in the order the events were written
+     */
+    private long sequence;
+
+    /**
+     * The date and time the change was committed
+     */
+    private Date timestamp;
+
+    /**
+     * The name (String) of the entity changed, for example User
+     */
+    private String entity;
+
+    /**
+     * The primary key of the entity changed, as a String. For a user role combination, the userid and roleid
+     * separated by a slash.
+     */
+    private String id;
+
+    /**
+     * What was done to the entity: INSERT, UPDATE or DELETE
+     */
+    private String action;
+
+    /**
+     * The names of the fields set by an insert or changed by an update. Their values are not kept.
+     */
+    private List<String> fields = new ArrayList<>();
+
+    /**
+     * The username (String) of who made the change, see UserAuditing
+     */
+    private String auditor;
+
+    /**
+     * Default constructor used primarily by Jackson
+     */
+    public AuditEvent()
+    {
+    }
+
+    /**
+     * Given the params, create a new event not yet written to the journal
+     *
+     * @param entity  The name (String) of the entity changed
+     * @param id      The primary key of the entity changed, as a String
+     * @param action  What was done to the entity: INSERT, UPDATE or DELETE
+     * @param fields  The names of the fields set or changed
+     * @param auditor The username (String) of who made the change
+     */
+    public AuditEvent(
+        String entity,
+        String id,
+        String action,
+        List<String> fields,
+        String auditor)
+    {
+        this.timestamp = new Date();
+        this.entity = entity;
+        this.id = id;
+        this.action = action;
+        this.fields = fields;
+        this.auditor = auditor;
+    }
+
+    /**
+     * Getter for sequence
+     *
+     * @return the position (long) of the event in the journal
+     */
+    public long getSequence()
+    {
+        return sequence;
+    }
+
+    /**
+     * Setter for sequence
+     *
+     * @param sequence the new position (long) of the event in the journal
+     */
+    public void setSequence(long sequence)
+    {
+        this.sequence = sequence;
+    }
+
+    /**
+     * Getter for timestamp
+     *
+     * @return the date and time the change was committed
+     */
+    public Date getTimestamp()
+    {
+        return timestamp;
+    }
+
+    /**
+     * Setter for timestamp
+     *
+     * @param timestamp the new date and time the change was committed
+     */
+    public void setTimestamp(Date timestamp)
+    {
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * Getter for entity
+     *
+     * @return the name (String) of the entity changed
+     */
+    public String getEntity()
+    {
+        return entity;
+    }
+
+    /**
+     * Setter for entity
+     *
+     * @param entity the new name (String) of the entity changed
+     */
+    public void setEntity(String entity)
+    {
+        this.entity = entity;
+    }
+
+    /**
+     * Getter for id
+     *
+     * @return the primary key of the entity changed, as a String
+     */
+    public String getId()
+    {
+        return id;
+    }
+
+    /**
+     * Setter for id
+     *
+     * @param id the new primary key of the entity changed, as a String
+     */
+    public void setId(String id)
+    {
+        this.id = id;
+    }
+
+    /**
+     * Getter for action
+     *
+     * @return what was done to the entity: INSERT, UPDATE or DELETE
+     */
+    public String getAction()
+    {
+        return action;
+    }
+
+    /**
+     * Setter for action
+     *
+     * @param action the new description of what was done to the entity
+     */
+    public void setAction(String action)
+    {
+        this.action = action;
+    }
+
+    /**
+     * Getter for fields
+     *
+     * @return the names of the fields set or changed
+     */
+    public List<String> getFields()
+    {
+        return fields;
+    }
+
+    /**
+     * Setter for fields
+     *
+     * @param fields the new list of the names of the fields set or changed
+     */
+    public void setFields(List<String> fields)
+    {
+        this.fields = fields;
+    }
+
+    /**
+     * Getter for auditor
+     *
+     * @return the username (String) of who made the change
+     */
+    public String getAuditor()
+    {
+        return auditor;
+    }
+
+    /**
+     * Setter for auditor
+     *
+     * @param auditor the new username (String) of who made the change
+     */
+    public void setAuditor(String auditor)
+    {
+        this.auditor = auditor;
+    }
+}
@@ -0,0 +1,68 @@
+package com.lambdaschool.usermodel.models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A model of the events found by one search of the audit journal, and where the search stopped
+ */
+public class AuditHistory
+{
+    /**
+     * The events found, newest first
+     */
+    private List<AuditEvent> events = new ArrayList<>();
+
+    /**
+     * The sequence number (Long) to search before to carry on with older events, or null if every event kept
+     * was searched
+     */
+    private Long next;
+
+    /**
+     * Default constructor used primarily by Jackson
+     */
+    public AuditHistory()
+    {
+    }
+
+    /**
+     * Getter for events
+     *
+     * @return the events found, newest first
+     */
+    public List<AuditEvent> getEvents()
+    {
+        return events;
+    }
+
+    /**
+     * Setter for events
+     *
+     * @param events the new events found, newest first
+     */
+    public void setEvents(List<AuditEvent> events)
+    {
+        this.events = events;
+    }
+
+    /**
+     * Getter for next
+     *
+     * @return the sequence number (Long) to search before to carry on with older events, or null if there are none
+     */
+    public Long getNext()
+    {
+        return next;
+    }
+
+    /**
+     * Setter for next
+     *
+     * @param next the new sequence number (Long) to search before to carry on with older events, or null
+     */
+    public void setNext(Long next)
+    {
+        this.next = next;
+    }
+}
@@ -1,24 +1,37 @@
 package com.lambdaschool.usermodel.models;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * The entity allowing interaction with the roles table.
+ * <p>
+ * Kept in the roles region of the second-level cache.
  */
 @Entity
 @Table(name = "roles")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE,
+    region = "roles")
 public class Role
     extends Auditable
 {
     /**
      * The primary key (long) of the roles table.
+     * Taken from the roles_seq sequence, which hands out fifty values per database call.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE,
+        generator = "roles_seq")
+    @SequenceGenerator(name = "roles_seq",
+        sequenceName = "roles_seq",
+        allocationSize = 50)
     private long roleid;
 
     /**
@@ -31,14 +44,18 @@ public class Role
 
     /**
      * Part of the join relationship between user and role
-     * connects roles to the user role combination
+     * connects roles to the user role combination.
+     * Never written to JSON, as a role may have any number of users. They are listed a page at a time
+     * through /roles/role/{roleid}/users instead.
+     * A list rather than a set, as every user role combination here has the same role and so the same hash code.
      */
     @OneToMany(mappedBy = "role",
         cascade = CascadeType.ALL,
         orphanRemoval = true)
     @JsonIgnoreProperties(value = "role",
         allowSetters = true)
-    private Set<UserRoles> users = new HashSet<>();
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
+    private List<UserRoles> users = new ArrayList<>();
 
     /**
      * Default Constructor used primarily by the JPA.
@@ -102,7 +119,7 @@ public class Role
      *
      * @return A list of user role combinations associated with this role
      */
-    public Set<UserRoles> getUsers()
+    public List<UserRoles> getUsers()
     {
         return users;
     }
@@ -112,7 +129,7 @@ public class Role
      *
      * @param users Change the list of user role combinations associated with this role to this one
      */
-    public void setUsers(Set<UserRoles> users)
+    public void setUsers(List<UserRoles> users)
     {
         this.users = users;
     }
@@ -0,0 +1,100 @@
+package com.lambdaschool.usermodel.models;
+
+/**
+ * A model to report what a bulk assignment or revocation of a role did
+ */
+public class RoleAssignmentResult
+{
+    /**
+     * The primary key (long) of the role assigned or revoked
+     */
+    private long roleid;
+
+    /**
+     * The number (long) of users the role was assigned to or revoked from, including those already holding,
+     * or not holding, the role
+     */
+    private long users;
+
+    /**
+     * The number (long) of user role combinations added or removed
+     */
+    private long changed;
+
+    /**
+     * Default constructor used primarily by Jackson
+     */
+    public RoleAssignmentResult()
+    {
+    }
+
+    /**
+     * Given the params, create a new result for a role with nothing done yet
+     *
+     * @param roleid The primary key (long) of the role assigned or revoked
+     */
+    public RoleAssignmentResult(long roleid)
+    {
+        this.roleid = roleid;
+    }
+
+    /**
+     * Getter for roleid
+     *
+     * @return the primary key (long) of the role assigned or revoked
+     */
+    public long getRoleid()
+    {
+        return roleid;
+    }
+
+    /**
+     * Setter for roleid
+     *
+     * @param roleid the new primary key (long) of the role assigned or revoked
+     */
+    public void setRoleid(long roleid)
+    {
+        this.roleid = roleid;
+    }
+
+    /**
+     * Getter for users
+     *
+     * @return the number (long) of users the role was assigned to or revoked from
+     */
+    public long getUsers()
+    {
+        return users;
+    }
+
+    /**
+     * Setter for users
+     *
+     * @param users the new number (long) of users the role was assigned to or revoked from
+     */
+    public void setUsers(long users)
+    {
+        this.users = users;
+    }
+
+    /**
+     * Getter for changed
+     *
+     * @return the number (long) of user role combinations added or removed
+     */
+    public long getChanged()
+    {
+        return changed;
+    }
+
+    /**
+     * Setter for changed
+     *
+     * @param changed the new number (long) of user role combinations added or removed
+     */
+    public void setChanged(long changed)
+    {
+        this.changed = changed;
+    }
+}
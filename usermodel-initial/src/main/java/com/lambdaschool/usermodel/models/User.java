@@ -2,6 +2,8 @@ package com.lambdaschool.usermodel.models;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import javax.validation.constraints.Email;
@@ -12,17 +14,27 @@ import java.util.Set;
 
 /**
  * The entity allowing interaction with the users table
+ * <p>
+ * Kept in the users region of the second-level cache. Its useremails and roles are cached as well.
  */
 @Entity
 @Table(name = "users")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE,
+    region = "users")
 public class User
     extends Auditable
 {
     /**
      * The primary key (long) of the users table.
+     * Taken from the users_seq sequence, which hands out fifty values per database call.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE,
+        generator = "users_seq")
+    @SequenceGenerator(name = "users_seq",
+        sequenceName = "users_seq",
+        allocationSize = 50)
     private long userid;
 
     /**
@@ -55,6 +67,8 @@ public class User
         orphanRemoval = true)
     @JsonIgnoreProperties(value = "user",
         allowSetters = true)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE,
+        region = "user-useremails")
     private List<Useremail> useremails = new ArrayList<>();
 
     /**
@@ -66,6 +80,8 @@ public class User
         orphanRemoval = true)
     @JsonIgnoreProperties(value = "user",
         allowSetters = true)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE,
+        region = "user-roles")
     private Set<UserRoles> roles = new HashSet<>();
 
     /**
@@ -91,7 +107,7 @@ public class User
     {
         setUsername(username);
         setPassword(password);
-        this.primaryemail = primaryemail;
+        setPrimaryemail(primaryemail);
     }
 
     /**
@@ -0,0 +1,133 @@
+package com.lambdaschool.usermodel.models;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * A model to report what happened to one user of a batch of new users
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class UserBatchResult
+{
+    /**
+     * The zero based position (int) of the user in the batch
+     */
+    private int index;
+
+    /**
+     * The username (String) given for the user, lowercase
+     */
+    private String username;
+
+    /**
+     * The primary key (Long) of the new user. Null if the user was not created.
+     */
+    private Long userid;
+
+    /**
+     * Why the user was not created. Null if the user was created.
+     */
+    private List<ValidationError> errors;
+
+    /**
+     * Default constructor used primarily by Jackson
+     */
+    public UserBatchResult()
+    {
+    }
+
+    /**
+     * Given the params, create a new result for one user of a batch
+     *
+     * @param index    The zero based position (int) of the user in the batch
+     * @param username The username (String) given for the user
+     */
+    public UserBatchResult(
+        int index,
+        String username)
+    {
+        this.index = index;
+        this.username = (username == null) ? null : username.toLowerCase();
+    }
+
+    /**
+     * Getter for index
+     *
+     * @return the zero based position (int) of the user in the batch
+     */
+    public int getIndex()
+    {
+        return index;
+    }
+
+    /**
+     * Setter for index
+     *
+     * @param index the new zero based position (int) of the user in the batch
+     */
+    public void setIndex(int index)
+    {
+        this.index = index;
+    }
+
+    /**
+     * Getter for username
+     *
+     * @return the username (String) given for the user
+     */
+    public String getUsername()
+    {
+        return username;
+    }
+
+    /**
+     * Setter for username
+     *
+     * @param username the new username (String) given for the user
+     */
+    public void setUsername(String username)
+    {
+        this.username = username;
+    }
+
+    /**
+     * Getter for userid
+     *
+     * @return the primary key (Long) of the new user, null if the user was not created
+     */
+    public Long getUserid()
+    {
+        return userid;
+    }
+
+    /**
+     * Setter for userid
+     *
+     * @param userid the primary key (Long) of the new user
+     */
+    public void setUserid(Long userid)
+    {
+        this.userid = userid;
+    }
+
+    /**
+     * Getter for errors
+     *
+     * @return why the user was not created, null if the user was created
+     */
+    public List<ValidationError> getErrors()
+    {
+        return errors;
+    }
+
+    /**
+     * Setter for errors
+     *
+     * @param errors the new list of reasons the user was not created
+     */
+    public void setErrors(List<ValidationError> errors)
+    {
+        this.errors = errors;
+    }
+}
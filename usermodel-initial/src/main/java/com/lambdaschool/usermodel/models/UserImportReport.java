@@ -0,0 +1,204 @@
+package com.lambdaschool.usermodel.models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A model to report what an import of users from a file did
+ */
+public class UserImportReport
+{
+    /**
+     * The format (String) the file was read as, csv or ndjson
+     */
+    private String format;
+
+    /**
+     * The number (long) of users read from the file, including those rejected
+     */
+    private long rows;
+
+    /**
+     * The number (long) of users created
+     */
+    private long created;
+
+    /**
+     * The number (long) of users not created
+     */
+    private long rejected;
+
+    /**
+     * How long, in milliseconds, the import took
+     */
+    private long elapsedMillis;
+
+    /**
+     * The users created per second
+     */
+    private double usersPerSecond;
+
+    /**
+     * The users not created and why, in the order of the file. The index of each is its zero based position
+     * in the file, not counting the header of a CSV file. Only the first usermodel.import.max-rejections
+     * are listed, so there may be fewer than rejected.
+     */
+    private List<UserBatchResult> rejections = new ArrayList<>();
+
+    /**
+     * Default constructor used primarily by Jackson
+     */
+    public UserImportReport()
+    {
+    }
+
+    /**
+     * Given the params, create a new report for an import with nothing done yet
+     *
+     * @param format The format (String) the file is read as
+     */
+    public UserImportReport(String format)
+    {
+        this.format = format;
+    }
+
+    /**
+     * Getter for format
+     *
+     * @return the format (String) the file was read as
+     */
+    public String getFormat()
+    {
+        return format;
+    }
+
+    /**
+     * Setter for format
+     *
+     * @param format the new format (String) the file was read as
+     */
+    public void setFormat(String format)
+    {
+        this.format = format;
+    }
+
+    /**
+     * Getter for rows
+     *
+     * @return the number (long) of users read from the file
+     */
+    public long getRows()
+    {
+        return rows;
+    }
+
+    /**
+     * Setter for rows
+     *
+     * @param rows the new number (long) of users read from the file
+     */
+    public void setRows(long rows)
+    {
+        this.rows = rows;
+    }
+
+    /**
+     * Getter for created
+     *
+     * @return the number (long) of users created
+     */
+    public long getCreated()
+    {
+        return created;
+    }
+
+    /**
+     * Setter for created
+     *
+     * @param created the new number (long) of users created
+     */
+    public void setCreated(long created)
+    {
+        this.created = created;
+    }
+
+    /**
+     * Getter for rejected
+     *
+     * @return the number (long) of users not created
+     */
+    public long getRejected()
+    {
+        return rejected;
+    }
+
+    /**
+     * Setter for rejected
+     *
+     * @param rejected the new number (long) of users not created
+     */
+    public void setRejected(long rejected)
+    {
+        this.rejected = rejected;
+    }
+
+    /**
+     * Getter for elapsedMillis
+     *
+     * @return how long, in milliseconds, the import took
+     */
+    public long getElapsedMillis()
+    {
+        return elapsedMillis;
+    }
+
+    /**
+     * Setter for elapsedMillis
+     *
+     * @param elapsedMillis the new number of milliseconds the import took
+     */
+    public void setElapsedMillis(long elapsedMillis)
+    {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    /**
+     * Getter for usersPerSecond
+     *
+     * @return the users created per second
+     */
+    public double getUsersPerSecond()
+    {
+        return usersPerSecond;
+    }
+
+    /**
+     * Setter for usersPerSecond
+     *
+     * @param usersPerSecond the new number of users created per second
+     */
+    public void setUsersPerSecond(double usersPerSecond)
+    {
+        this.usersPerSecond = usersPerSecond;
+    }
+
+    /**
+     * Getter for rejections
+     *
+     * @return the users not created and why, in the order of the file
+     */
+    public List<UserBatchResult> getRejections()
+    {
+        return rejections;
+    }
+
+    /**
+     * Setter for rejections
+     *
+     * @param rejections the new list of the users not created and why
+     */
+    public void setRejections(List<UserBatchResult> rejections)
+    {
+        this.rejections = rejections;
+    }
+}
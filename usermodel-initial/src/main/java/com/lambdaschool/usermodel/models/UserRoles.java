@@ -1,6 +1,8 @@
 package com.lambdaschool.usermodel.models;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import java.io.Serializable;
@@ -14,9 +16,20 @@ import java.io.Serializable;
  * <p>
  * When you have a compound primary key, you must implement Serializable for Hibernate
  * When you implement Serializable you must implement equals and hash code
+ * <p>
+ * Kept in the userroles region of the second-level cache, so the cached roles of a user are read without going to the table.
+ * <p>
+ * The users holding a role are read in userid order through the userroles_roleid_userid_idx index, declared
+ * rather than left to the order Hibernate happens to give the primary key columns. The userid foreign key has an
+ * index of its own, which finds the roles of a user.
  */
 @Entity
-@Table(name = "userroles")
+@Table(name = "userroles",
+    indexes = @Index(name = "userroles_roleid_userid_idx",
+        columnList = "roleid, userid"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE,
+    region = "userroles")
 @IdClass(UserRolesId.class)
 public class UserRoles
     extends Auditable
@@ -121,10 +134,19 @@ public class UserRoles
             ((role == null) ? 0 : role.getRoleid()) == ((that.role == null) ? 0 : that.role.getRoleid());
     }
 
+    /**
+     * Hash of the roleid alone.
+     * <p>
+     * The userid of a new user is only known once the user is persisted, so hashing it would change the hash of
+     * a user role combination already in User.roles. The roleid is set before then, and the roles of one user all
+     * differ, so User.roles still spreads over its buckets. Equal combinations have the same roleid, so the hash
+     * agrees with equals. Role.users, where every combination has the same roleid, is a list for that reason.
+     *
+     * @return the hash code of this user role combination
+     */
     @Override
     public int hashCode()
     {
-        // return Objects.hash(user.getUserid(), role.getRoleid());
-        return 37;
+        return Long.hashCode((role == null) ? 0 : role.getRoleid());
     }
 }
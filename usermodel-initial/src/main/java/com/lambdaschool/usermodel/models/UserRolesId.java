@@ -83,9 +83,14 @@ public class UserRolesId
             role == that.role;
     }
 
+    /**
+     * Hash of the role id alone, as UserRoles.hashCode
+     *
+     * @return the hash code of this key
+     */
     @Override
     public int hashCode()
     {
-        return 37;
+        return Long.hashCode(role);
     }
 }
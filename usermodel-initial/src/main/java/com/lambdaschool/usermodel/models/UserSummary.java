@@ -0,0 +1,111 @@
+package com.lambdaschool.usermodel.models;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * A model holding just the identifying columns of a user, without emails or roles.
+ * Read straight from the users table by projection queries, or from the in memory user indexes,
+ * which hold no primary email.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class UserSummary
+{
+    /**
+     * The primary key (long) of the user
+     */
+    private long userid;
+
+    /**
+     * The username (String) of the user, lowercase
+     */
+    private String username;
+
+    /**
+     * The primary email (String) of the user, lowercase
+     */
+    private String primaryemail;
+
+    /**
+     * Default constructor used primarily by Jackson
+     */
+    public UserSummary()
+    {
+    }
+
+    /**
+     * Given the params, create a new user summary object
+     *
+     * @param userid       The primary key (long) of the user
+     * @param username     The username (String) of the user
+     * @param primaryemail The primary email (String) of the user
+     */
+    public UserSummary(
+        long userid,
+        String username,
+        String primaryemail)
+    {
+        this.userid = userid;
+        this.username = username;
+        this.primaryemail = primaryemail;
+    }
+
+    /**
+     * Getter for userid
+     *
+     * @return the userid (long) of the user
+     */
+    public long getUserid()
+    {
+        return userid;
+    }
+
+    /**
+     * Setter for userid
+     *
+     * @param userid the new userid (long) of the user
+     */
+    public void setUserid(long userid)
+    {
+        this.userid = userid;
+    }
+
+    /**
+     * Getter for username
+     *
+     * @return the username (String) of the user
+     */
+    public String getUsername()
+    {
+        return username;
+    }
+
+    /**
+     * Setter for username
+     *
+     * @param username the new username (String) of the user
+     */
+    public void setUsername(String username)
+    {
+        this.username = username;
+    }
+
+    /**
+     * Getter for primary email
+     *
+     * @return the primary email (String) of the user
+     */
+    public String getPrimaryemail()
+    {
+        return primaryemail;
+    }
+
+    /**
+     * Setter for primary email
+     *
+     * @param primaryemail the new primary email (String) of the user
+     */
+    public void setPrimaryemail(String primaryemail)
+    {
+        this.primaryemail = primaryemail;
+    }
+}
@@ -1,6 +1,8 @@
 package com.lambdaschool.usermodel.models;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import javax.validation.constraints.Email;
@@ -9,22 +11,35 @@ import javax.validation.constraints.Email;
  * The entity allowing interaction with the useremails table
  * <p>
  * requires each combination of user and useremail to be unique. The same email cannot be assigned to the same user more than once.
+ * <p>
+ * Kept in the useremails region of the second-level cache.
  */
 @Entity
-@Table(name = "useremails")
+@Table(name = "useremails",
+    indexes = @Index(name = "useremails_useremail_idx",
+        columnList = "useremail"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE,
+    region = "useremails")
 public class Useremail
     extends Auditable
 {
     /**
-     * The primary key (long) of the useremails table
+     * The primary key (long) of the useremails table.
+     * Taken from the useremails_seq sequence, which hands out fifty values per database call.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE,
+        generator = "useremails_seq")
+    @SequenceGenerator(name = "useremails_seq",
+        sequenceName = "useremails_seq",
+        allocationSize = 50)
     private long useremailid;
 
     /**
      * Email (String) for this user. Cannot be nullable.
      * Must be in the format userid@domain.upperLevelDomain
+     * Kept in lowercase and indexed, so users can be found by any of their emails.
      */
     @Column(nullable = false)
     @Email
@@ -61,7 +76,7 @@ public class Useremail
         User user,
         String useremail)
     {
-        this.useremail = useremail;
+        setUseremail(useremail);
         this.user = user;
     }
 
@@ -3,9 +3,14 @@ package com.lambdaschool.usermodel.repository;
 import com.lambdaschool.usermodel.models.Role;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
+
+import java.util.List;
+
 /**
  * The CRUD Repository connecting Role to the rest of the application
  */
@@ -18,10 +23,26 @@ public interface RoleRepository
      * @param name the name of the role which you seek
      * @return the first role matching the given name using a case insensitive search
      */
+    @QueryHints(value = {
+        @QueryHint(name = "org.hibernate.cacheable",
+            value = "true")})
     Role findByNameIgnoreCase(String name);
 
+    /**
+     * Reads the roleid and name of every role straight from the table, bypassing any role entities
+     * already in the persistence context
+     *
+     * @return one array per role holding the roleid (Long) then the name (String)
+     */
+    @Query(value = "SELECT r.roleid, r.name FROM Role r")
+    List<Object[]> findAllNames();
+
     /**
      * Updates the name of the role based on the given role id.
+     * <p>
+     * Written in JPQL rather than SQL so Hibernate knows only the roles table changed. It then drops just the
+     * roles region of the second-level cache, and the cached queries reading roles, when the update runs.
+     * A native update could have changed any table, so Hibernate would empty every region.
      *
      * @param uname  The username making this change
      * @param roleid The primary key (long) of the role to change
@@ -29,8 +50,7 @@ public interface RoleRepository
      */
     @Transactional
     @Modifying
-    @Query(value = "UPDATE roles SET name = :name, last_modified_by = :uname, last_modified_date = CURRENT_TIMESTAMP WHERE roleid = :roleid",
-        nativeQuery = true)
+    @Query(value = "UPDATE Role r SET r.name = :name, r.lastModifiedBy = :uname, r.lastModifiedDate = CURRENT_TIMESTAMP WHERE r.roleid = :roleid")
     void updateRoleName(
         String uname,
         long roleid,
@@ -1,22 +1,56 @@
 package com.lambdaschool.usermodel.repository;
 
 import com.lambdaschool.usermodel.models.User;
-import org.springframework.data.repository.CrudRepository;
+import com.lambdaschool.usermodel.models.UserSummary;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.PagingAndSortingRepository;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * The CRUD repository connecting User to the rest of the application
+ * <p>
+ * Queries returning many users do not join fetch useremails or roles, since that would multiply rows and
+ * defeat paging. Instead those collections are read in batches, see hibernate.default_batch_fetch_size,
+ * so a list of users costs a fixed number of statements no matter how many users are in it.
+ * <p>
+ * Queries returning UserSummary read only the userid, username and primary email columns. No user entity is
+ * loaded, so neither the useremails nor the roles of a user are read.
  */
 public interface UserRepository
-    extends CrudRepository<User, Long>
+    extends PagingAndSortingRepository<User, Long>,
+    UserRepositoryCustom
 {
+    /**
+     * Find a user based off of the primary key, from the second-level cache when it holds the user.
+     * The user's roles are read too, see UserRepositoryCustom.
+     *
+     * @param userid the primary key (Long) of the user you seek
+     * @return Optional of the user you seek
+     */
+    @Override
+    Optional<User> findById(Long userid);
+
     /**
      * Find a user based off over username
+     * <p>
+     * The user's roles are read in the same statement; useremails are read with one more statement.
      *
      * @param username the name (String) of user you seek
      * @return the first user object with the name you seek
      */
+    @EntityGraph(attributePaths = {"roles", "roles.role"})
+    @QueryHints(value = {
+        @QueryHint(name = "org.hibernate.cacheable",
+            value = "true")})
     User findByUsername(String username);
 
     /**
@@ -26,4 +60,191 @@ public interface UserRepository
      * @return List of users whose name contain the given substring ignoring case
      */
     List<User> findByUsernameContainingIgnoreCase(String name);
+
+    /**
+     * Find the first users, in username order, whose username starts with the given string
+     *
+     * @param prefix   the start (String) of the usernames you seek
+     * @param pageable how many users to return
+     * @return List of users whose username starts with prefix
+     */
+    List<User> findByUsernameStartingWithOrderByUsernameAsc(
+        String prefix,
+        Pageable pageable);
+
+    /**
+     * Find the users whose userid comes after the given userid, in userid order.
+     * Used for keyset (cursor) scrolling through the users table. Only the size of the pageable is used.
+     *
+     * @param userid   the last userid (long) the client has already seen
+     * @param pageable the number of users to return
+     * @return List of at most pageable size users whose userid is greater than the given userid
+     */
+    List<User> findByUseridGreaterThanOrderByUseridAsc(
+        long userid,
+        Pageable pageable);
+
+    /**
+     * Streams every user in userid order through a forward only JDBC cursor.
+     * Rows are fetched from the database in groups of the fetch size as the stream is consumed.
+     * Must be called inside a transaction and the stream must be closed when done.
+     *
+     * @return Stream of all the users, read only
+     */
+    @QueryHints(value = {
+        @QueryHint(name = "org.hibernate.fetchSize",
+            value = "500"),
+        @QueryHint(name = "org.hibernate.readOnly",
+            value = "true")})
+    @Query(value = "SELECT u FROM User u ORDER BY u.userid")
+    Stream<User> streamAll();
+
+    /**
+     * Streams the userid, username and primary email of every user in userid order, without loading the user
+     * entities. Used to fill in memory indexes. Must be called inside a transaction and the stream must be closed
+     * when done.
+     *
+     * @return Stream of a summary of every user
+     */
+    @QueryHints(value = {
+        @QueryHint(name = "org.hibernate.fetchSize",
+            value = "1000")})
+    @Query(value = "SELECT new com.lambdaschool.usermodel.models.UserSummary(u.userid, u.username, u.primaryemail) FROM User u ORDER BY u.userid")
+    Stream<UserSummary> streamSummaries();
+
+    /**
+     * Find one page of user summaries
+     *
+     * @param pageable the page number, page size and sort order of the page you seek
+     * @return the page of summaries along with the total number of users
+     */
+    @Query(value = "SELECT new com.lambdaschool.usermodel.models.UserSummary(u.userid, u.username, u.primaryemail) FROM User u",
+        countQuery = "SELECT COUNT(u) FROM User u")
+    Page<UserSummary> findAllSummaries(Pageable pageable);
+
+    /**
+     * Find the summaries of the users whose userid comes after the given userid, in userid order.
+     * Only the size of the pageable is used.
+     *
+     * @param userid   the last userid (long) the client has already seen
+     * @param pageable the number of summaries to return
+     * @return List of at most pageable size summaries whose userid is greater than the given userid
+     */
+    @Query(value = "SELECT new com.lambdaschool.usermodel.models.UserSummary(u.userid, u.username, u.primaryemail) FROM User u WHERE u.userid > :userid ORDER BY u.userid")
+    List<UserSummary> findSummariesAfter(
+        long userid,
+        Pageable pageable);
+
+    /**
+     * Find the summary of a user based off of the primary key
+     *
+     * @param userid the primary key (long) of the user you seek
+     * @return Optional of the summary of the user you seek
+     */
+    @Query(value = "SELECT new com.lambdaschool.usermodel.models.UserSummary(u.userid, u.username, u.primaryemail) FROM User u WHERE u.userid = :userid")
+    Optional<UserSummary> findSummaryById(long userid);
+
+    /**
+     * Find the summary of a user based off of the username
+     *
+     * @param username the lowercase name (String) of the user you seek
+     * @return the summary of the user you seek, null if there is no such user
+     */
+    @Query(value = "SELECT new com.lambdaschool.usermodel.models.UserSummary(u.userid, u.username, u.primaryemail) FROM User u WHERE u.username = :username")
+    UserSummary findSummaryByUsername(String username);
+
+    /**
+     * Find the summaries of the users with the given primary keys, in userid order
+     *
+     * @param userids the primary keys (Long) of the users you seek
+     * @return List of the summaries of the users found
+     */
+    @Query(value = "SELECT new com.lambdaschool.usermodel.models.UserSummary(u.userid, u.username, u.primaryemail) FROM User u WHERE u.userid IN :userids ORDER BY u.userid")
+    List<UserSummary> findSummariesById(Collection<Long> userids);
+
+    /**
+     * Find the summaries of all users whose name contains a given substring ignoring case, in userid order
+     *
+     * @param name the substring of the names (String) you seek
+     * @return List of the summaries of users whose name contain the given substring ignoring case
+     */
+    @Query(value = "SELECT new com.lambdaschool.usermodel.models.UserSummary(u.userid, u.username, u.primaryemail) FROM User u WHERE UPPER(u.username) LIKE UPPER(CONCAT('%', :name, '%')) ORDER BY u.userid")
+    List<UserSummary> findSummariesByUsernameContaining(String name);
+
+    /**
+     * Find the summaries of the users holding the given role whose userid comes after the given userid, in userid
+     * order. Read through the userroles_roleid_userid_idx index, joined to users by primary key.
+     * Only the size of the pageable is used.
+     *
+     * @param roleid   the primary key (long) of the role
+     * @param userid   the last userid (long) the client has already seen
+     * @param pageable the number of summaries to return
+     * @return List of at most pageable size summaries of users holding the role
+     */
+    @Query(value = "SELECT new com.lambdaschool.usermodel.models.UserSummary(u.userid, u.username, u.primaryemail) FROM UserRoles ur JOIN ur.user u WHERE ur.role.roleid = :roleid AND ur.user.userid > :userid ORDER BY ur.user.userid")
+    List<UserSummary> findSummariesByRoleAfter(
+        long roleid,
+        long userid,
+        Pageable pageable);
+
+    /**
+     * Streams every user role combination as a userid and a roleid, without loading any entity.
+     * Used to fill the in memory role membership index. Must be called inside a transaction and the stream must be
+     * closed when done.
+     *
+     * @return Stream of one array per user role combination, holding the userid (Long) then the roleid (Long)
+     */
+    @QueryHints(value = {
+        @QueryHint(name = "org.hibernate.fetchSize",
+            value = "1000")})
+    @Query(value = "SELECT ur.user.userid, ur.role.roleid FROM UserRoles ur")
+    Stream<Object[]> streamUserRoles();
+
+    /**
+     * Find the user role combinations of the given roles, as a userid and a roleid, without loading any entity
+     *
+     * @param roleids the primary keys (Long) of the roles
+     * @return one array per user role combination, holding the userid (Long) then the roleid (Long)
+     */
+    @Query(value = "SELECT ur.user.userid, ur.role.roleid FROM UserRoles ur WHERE ur.role.roleid IN :roleids")
+    List<Object[]> findUserRolesByRoleids(Collection<Long> roleids);
+
+    /**
+     * Find which of the given users hold the role, without loading any entity
+     *
+     * @param roleid  the primary key (long) of the role
+     * @param userids the primary keys (Long) of the users to check
+     * @return the userids of the users holding the role
+     */
+    @Query(value = "SELECT ur.user.userid FROM UserRoles ur WHERE ur.role.roleid = :roleid AND ur.user.userid IN :userids")
+    List<Long> findUseridsHoldingRole(
+        long roleid,
+        Collection<Long> userids);
+
+    /**
+     * Find the users having the given email address, as their primary email or as one of their useremails.
+     * Both are looked up through an index in one statement. A union by itself gives its rows in no set order, so
+     * each row is ranked by where the address was found and the rows are sorted by rank.
+     *
+     * @param email the lowercase email address (String) you seek
+     * @return the userids of the users having the address, those having it as their primary email first, then in
+     * userid order
+     */
+    @Query(value = "SELECT found.userid FROM (SELECT userid, 0 AS preference FROM users WHERE primaryemail = :email UNION ALL SELECT userid, 1 AS preference FROM useremails WHERE useremail = :email) found ORDER BY found.preference, found.userid",
+        nativeQuery = true)
+    List<Long> findUseridsByEmail(String email);
+
+    /**
+     * Streams every email address of every user, primary or not, without loading any entity.
+     * Used to fill the in memory email index. Must be called inside a transaction and the stream must be closed
+     * when done.
+     *
+     * @return Stream of one array per address, holding the userid (Number) then the address (String)
+     */
+    @QueryHints(value = {
+        @QueryHint(name = "org.hibernate.fetchSize",
+            value = "1000")})
+    @Query(value = "SELECT userid, primaryemail FROM users UNION ALL SELECT userid, useremail FROM useremails",
+        nativeQuery = true)
+    Stream<Object[]> streamEmails();
 }
@@ -0,0 +1,23 @@
+package com.lambdaschool.usermodel.repository;
+
+import com.lambdaschool.usermodel.models.User;
+
+import java.util.Optional;
+
+/**
+ * Reads of users that choose between the second-level cache and a fetch plan, mixed into UserRepository
+ */
+public interface UserRepositoryCustom
+{
+    /**
+     * Find a user based off of the primary key, with the user's roles read.
+     * <p>
+     * A user held in the second-level cache is read from it, along with its cached roles, without a statement.
+     * Otherwise the user's roles are read in the same statement as the user. Either way the useremails are read
+     * with one more statement when first used, unless they are cached too.
+     *
+     * @param userid the primary key (Long) of the user you seek
+     * @return Optional of the user you seek
+     */
+    Optional<User> findById(Long userid);
+}
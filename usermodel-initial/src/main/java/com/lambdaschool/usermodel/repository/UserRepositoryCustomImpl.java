@@ -0,0 +1,56 @@
+package com.lambdaschool.usermodel.repository;
+
+import com.lambdaschool.usermodel.models.User;
+import com.lambdaschool.usermodel.models.UserRoles;
+import org.hibernate.Hibernate;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Implements the UserRepositoryCustom Interface
+ */
+public class UserRepositoryCustomImpl
+    implements UserRepositoryCustom
+{
+    /**
+     * The persistence context users are read through
+     */
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Transactional(readOnly = true)
+    @Override
+    public Optional<User> findById(Long userid)
+    {
+        if (!entityManager.getEntityManagerFactory()
+            .getCache()
+            .contains(User.class,
+                userid))
+        {
+            List<User> found = entityManager.createQuery("SELECT DISTINCT u FROM User u LEFT JOIN FETCH u.roles ur LEFT JOIN FETCH ur.role WHERE u.userid = :userid",
+                User.class)
+                .setParameter("userid",
+                    userid)
+                .getResultList();
+            return found.stream()
+                .findFirst();
+        }
+
+        // the user, its roles and each role are read from the cache when held there
+        User user = entityManager.find(User.class,
+            userid);
+        if (user != null)
+        {
+            Hibernate.initialize(user.getRoles());
+            for (UserRoles ur : user.getRoles())
+            {
+                Hibernate.initialize(ur.getRole());
+            }
+        }
+        return Optional.ofNullable(user);
+    }
+}
@@ -1,12 +1,33 @@
 package com.lambdaschool.usermodel.repository;
 
 import com.lambdaschool.usermodel.models.Useremail;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.repository.CrudRepository;
 
+import java.util.Optional;
+
 /**
  * The CRUD Repository connecting Useremail to the rest of the application
  */
 public interface UseremailRepository
     extends CrudRepository<Useremail, Long>
 {
+    /**
+     * Find all the user email combinations. The user of each is read in the same statement.
+     *
+     * @return all the user email combinations
+     */
+    @EntityGraph(attributePaths = {"user"})
+    @Override
+    Iterable<Useremail> findAll();
+
+    /**
+     * Find a user email combination based off of the primary key. The user is read in the same statement.
+     *
+     * @param useremailid the primary key (Long) of the user email combination you seek
+     * @return Optional of the user email combination you seek
+     */
+    @EntityGraph(attributePaths = {"user"})
+    @Override
+    Optional<Useremail> findById(Long useremailid);
 }
@@ -0,0 +1,223 @@
+package com.lambdaschool.usermodel.services;
+
+import com.lambdaschool.usermodel.models.UserRoles;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.type.CompositeType;
+import org.hibernate.type.Type;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Records each insert, update and delete of an entity in the audit journal, once its transaction commits.
+ * Nothing is recorded for a transaction that rolls back.
+ * <p>
+ * Hibernate calls this at the same points the auditing fields are kept, but unlike a JPA entity listener it is told
+ * which fields an update changed. Only the names of the fields are recorded, never their values. The auditing
+ * fields themselves are left out. Registered with Hibernate by AuditJournalConfiguration.
+ * <p>
+ * Changes made by bulk statements, which bypass Hibernate's events, are recorded by the services running them.
+ */
+public class AuditEventListener
+    implements PostCommitInsertEventListener,
+    PostCommitUpdateEventListener,
+    PostCommitDeleteEventListener
+{
+    /**
+     * The fields of Auditable, which change with every write
+     */
+    private static final Set<String> AUDIT_FIELDS = Set.of("createdBy",
+        "createdDate",
+        "lastModifiedBy",
+        "lastModifiedDate");
+
+    /**
+     * Where the changes are recorded
+     */
+    private final AuditJournal auditJournal;
+
+    /**
+     * Creates the listener
+     *
+     * @param auditJournal where the changes are recorded
+     */
+    public AuditEventListener(AuditJournal auditJournal)
+    {
+        this.auditJournal = auditJournal;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event)
+    {
+        List<String> fields = new ArrayList<>();
+        EntityPersister persister = event.getPersister();
+        String[] names = persister.getPropertyNames();
+        Object[] state = event.getState();
+        for (int i = 0; i < names.length; i++)
+        {
+            Type type = persister.getPropertyTypes()[i];
+            if (names[i].startsWith("_") && type instanceof CompositeType)
+            {
+                // the fields of an IdClass key, such as the user and role of a user role combination
+                fields.addAll(Arrays.asList(((CompositeType) type).getPropertyNames()));
+            } else if (state[i] != null)
+            {
+                fields.add(names[i]);
+            }
+        }
+        auditJournal.record(entityName(event.getPersister()),
+            idOf(event.getEntity(),
+                event.getId()),
+            "INSERT",
+            withoutAuditFields(fields));
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event)
+    {
+        List<String> fields = new ArrayList<>();
+        String[] names = event.getPersister()
+            .getPropertyNames();
+        int[] dirty = event.getDirtyProperties();
+        if (dirty != null)
+        {
+            for (int i : dirty)
+            {
+                fields.add(names[i]);
+            }
+        } else if (event.getOldState() != null)
+        {
+            for (int i = 0; i < names.length; i++)
+            {
+                if (!Objects.equals(event.getOldState()[i],
+                    event.getState()[i]))
+                {
+                    fields.add(names[i]);
+                }
+            }
+        }
+        auditJournal.record(entityName(event.getPersister()),
+            idOf(event.getEntity(),
+                event.getId()),
+            "UPDATE",
+            withoutAuditFields(fields));
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event)
+    {
+        auditJournal.record(entityName(event.getPersister()),
+            idOf(event.getEntity(),
+                event.getId()),
+            "DELETE",
+            Collections.emptyList());
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event)
+    {
+        // the insert never happened
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event)
+    {
+        // the update never happened
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event)
+    {
+        // the delete never happened
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister)
+    {
+        return true;
+    }
+
+    /**
+     * The misspelt name of requiresPostCommitHandling. Hibernate 5.4 still declares it abstract, so it must be
+     * implemented until the upgrade to Hibernate 6 removes it.
+     *
+     * @param persister Hibernate's description of the entity
+     * @return true, see requiresPostCommitHandling
+     */
+    @SuppressWarnings("deprecation")
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister)
+    {
+        return requiresPostCommitHandling(persister);
+    }
+
+    /**
+     * The name an entity is recorded under
+     *
+     * @param persister Hibernate's description of the entity
+     * @return the simple name of the entity's class, for example User
+     */
+    private static String entityName(EntityPersister persister)
+    {
+        return persister.getMappedClass()
+            .getSimpleName();
+    }
+
+    /**
+     * The primary key an entity is recorded under
+     *
+     * @param entity the entity changed
+     * @param id     the primary key Hibernate has for the entity
+     * @return the primary key as a String. For a user role combination, the userid and roleid separated by a slash.
+     */
+    static String idOf(
+        Object entity,
+        Object id)
+    {
+        if (entity instanceof UserRoles)
+        {
+            UserRoles ur = (UserRoles) entity;
+            return idOf(ur.getUser()
+                    .getUserid(),
+                ur.getRole()
+                    .getRoleid());
+        }
+        return String.valueOf(id);
+    }
+
+    /**
+     * The primary key a user role combination is recorded under
+     *
+     * @param userid the primary key (long) of the user
+     * @param roleid the primary key (long) of the role
+     * @return the userid and roleid separated by a slash
+     */
+    static String idOf(
+        long userid,
+        long roleid)
+    {
+        return userid + "/" + roleid;
+    }
+
+    /**
+     * Leaves out the auditing fields
+     *
+     * @param fields the names of fields
+     * @return the names that are not auditing fields
+     */
+    private static List<String> withoutAuditFields(List<String> fields)
+    {
+        fields.removeIf(AUDIT_FIELDS::contains);
+        return fields;
+    }
+}
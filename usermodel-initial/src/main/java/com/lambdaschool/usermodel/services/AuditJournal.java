@@ -0,0 +1,702 @@
+package com.lambdaschool.usermodel.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.StdDateFormat;
+import com.lambdaschool.usermodel.models.AuditEvent;
+import com.lambdaschool.usermodel.models.AuditHistory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.jctools.queues.MpscArrayQueue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A write behind journal of the changes made to entities, kept in append only segment files.
+ * <p>
+ * Changes are recorded once committed, see AuditEventListener, by putting an event on a bounded lock free queue.
+ * Recording never waits on the disk. One writer thread takes the events off the queue in batches, gives each the
+ * next sequence number and appends them to the active segment, a file mapped into memory. Should the queue be full,
+ * recording waits up to usermodel.audit.offer-timeout-ms for room and then drops the event, counting it.
+ * <p>
+ * Each event is written as its length, an int, followed by the event as JSON. A length of zero marks the end of a
+ * segment. When an event does not fit in the active segment a new segment is started, and the oldest segments are
+ * deleted so no more than usermodel.audit.max-segments are kept. A segment is named after the sequence number of
+ * its first event. Each start of the application begins a new segment, carrying on from the last sequence number.
+ * <p>
+ * Searches read the events newest first and read no more than usermodel.audit.max-scanned events each, so a
+ * search matching few events does not read every segment. The events within a segment have consecutive sequence
+ * numbers, starting from the one the segment is named after, so events newer than a search wants are skipped
+ * without being read.
+ * <p>
+ * The events are counted through the metrics registry as usermodel.audit.events, tagged with whether they were
+ * queued, written or dropped. The events waiting in the queue are reported as usermodel.audit.queue.
+ */
+@Component
+public class AuditJournal
+{
+    private static final Logger logger = LoggerFactory.getLogger(AuditJournal.class);
+
+    /**
+     * How long the writer sleeps when the queue is empty
+     */
+    private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+    /**
+     * How long recording sleeps between tries when the queue is full
+     */
+    private static final long FULL_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    /**
+     * Used to write the events, as JSON
+     */
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Connects this journal to the auditing service in order to get current user name
+     */
+    @Autowired
+    private UserAuditing userAuditing;
+
+    /**
+     * Where the events are counted
+     */
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * The directory holding the segments
+     */
+    @Value("${usermodel.audit.directory:audit}")
+    private String directory;
+
+    /**
+     * The size in bytes of each segment
+     */
+    @Value("${usermodel.audit.segment-size:16777216}")
+    private int segmentSize;
+
+    /**
+     * The most segments kept
+     */
+    @Value("${usermodel.audit.max-segments:8}")
+    private int maxSegments;
+
+    /**
+     * The most events waiting to be written
+     */
+    @Value("${usermodel.audit.queue-capacity:65536}")
+    private int queueCapacity;
+
+    /**
+     * The most events written, and made durable, at once
+     */
+    @Value("${usermodel.audit.batch-size:1024}")
+    private int batchSize;
+
+    /**
+     * How long, in milliseconds, recording waits for room in a full queue before dropping the event
+     */
+    @Value("${usermodel.audit.offer-timeout-ms:100}")
+    private long offerTimeoutMs;
+
+    /**
+     * The most events read by one search of the journal
+     */
+    @Value("${usermodel.audit.max-scanned:100000}")
+    private int maxScanned;
+
+    /**
+     * The events waiting to be written. Many threads put events on, only the writer takes them off.
+     */
+    private MpscArrayQueue<AuditEvent> queue;
+
+    /**
+     * Writes and reads the events, keeping the milliseconds of their timestamps
+     */
+    private ObjectMapper journalMapper;
+
+    /**
+     * The directory holding the segments
+     */
+    private Path dir;
+
+    /**
+     * Keeps other journals from writing to the same directory
+     */
+    private FileChannel lockChannel;
+
+    /**
+     * The lock held on the directory
+     */
+    private FileLock lock;
+
+    /**
+     * The segment being written to
+     */
+    private volatile Segment active;
+
+    /**
+     * The sequence number of the next event written. Only used by the writer.
+     */
+    private long nextSequence;
+
+    /**
+     * Takes the events off the queue and writes them
+     */
+    private Thread writer;
+
+    /**
+     * True while events are being taken
+     */
+    private volatile boolean running;
+
+    /**
+     * Counts the events put on the queue
+     */
+    private Counter queued;
+
+    /**
+     * Counts the events written to a segment
+     */
+    private Counter written;
+
+    /**
+     * Counts the events lost, because the queue was full, the journal stopped or the write failed
+     */
+    private Counter dropped;
+
+    /**
+     * A segment file, mapped into memory
+     */
+    private static final class Segment
+    {
+        /**
+         * The file
+         */
+        private final Path path;
+
+        /**
+         * The file's contents
+         */
+        private final MappedByteBuffer buffer;
+
+        /**
+         * The bytes of the file holding complete events, which may be read
+         */
+        private volatile int published;
+
+        private Segment(
+            Path path,
+            MappedByteBuffer buffer)
+        {
+            this.path = path;
+            this.buffer = buffer;
+        }
+    }
+
+    /**
+     * Opens a new segment, carrying on from the last sequence number written, and starts the writer
+     *
+     * @throws IOException if the directory cannot be used
+     */
+    @PostConstruct
+    public void start() throws IOException
+    {
+        queue = new MpscArrayQueue<>(queueCapacity);
+        journalMapper = objectMapper.copy()
+            .setDateFormat(new StdDateFormat());
+        queued = events("queued");
+        written = events("written");
+        dropped = events("dropped");
+        Gauge.builder("usermodel.audit.queue",
+            queue,
+            MpscArrayQueue::size)
+            .description("Audit events waiting to be written")
+            .register(meterRegistry);
+
+        dir = Paths.get(directory);
+        Files.createDirectories(dir);
+        lockChannel = FileChannel.open(dir.resolve("journal.lock"),
+            StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE);
+        lock = lockChannel.tryLock();
+        if (lock == null)
+        {
+            lockChannel.close();
+            throw new IllegalStateException("Another audit journal is writing to " + dir.toAbsolutePath());
+        }
+
+        nextSequence = 1;
+        List<Path> segments = segments();
+        if (!segments.isEmpty())
+        {
+            Path last = segments.get(segments.size() - 1);
+            List<AuditEvent> events = read(map(last));
+            if (events.isEmpty())
+            {
+                // nothing was written to it, so it is started again
+                Files.delete(last);
+                nextSequence = firstSequence(last);
+            } else
+            {
+                nextSequence = events.get(events.size() - 1)
+                    .getSequence() + 1;
+            }
+        }
+        active = open(nextSequence);
+
+        running = true;
+        writer = new Thread(this::drain,
+            "audit-journal");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Writes the events still in the queue and stops the writer
+     *
+     * @throws Exception if interrupted while waiting for the writer
+     */
+    @PreDestroy
+    public void stop() throws Exception
+    {
+        running = false;
+        if (writer != null)
+        {
+            LockSupport.unpark(writer);
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        if (lock != null)
+        {
+            lock.release();
+            lockChannel.close();
+        }
+    }
+
+    /**
+     * Puts a change on the queue to be written. Does not wait for the event to be written.
+     *
+     * @param entity the name (String) of the entity changed, for example User
+     * @param id     the primary key of the entity changed, as a String
+     * @param action what was done to the entity: INSERT, UPDATE or DELETE
+     * @param fields the names of the fields set or changed
+     */
+    public void record(
+        String entity,
+        String id,
+        String action,
+        List<String> fields)
+    {
+        AuditEvent event = new AuditEvent(entity,
+            id,
+            action,
+            fields,
+            userAuditing.getCurrentAuditor()
+                .orElse(null));
+        if (!running)
+        {
+            dropped.increment();
+            return;
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(offerTimeoutMs);
+        while (!queue.offer(event))
+        {
+            if (System.nanoTime() - deadline >= 0)
+            {
+                dropped.increment();
+                return;
+            }
+            LockSupport.parkNanos(FULL_NANOS);
+        }
+        queued.increment();
+    }
+
+    /**
+     * Returns the latest events written, newest first, optionally only those of one entity.
+     * Events still waiting in the queue are not returned.
+     *
+     * @param entity the name (String) of the entity whose events you seek, or null for every entity
+     * @param id     the primary key of the entity whose events you seek, as a String, or null for every one
+     * @param limit  the most events to return
+     * @return the events found, newest first
+     * @see #recent(String, String, long, int)
+     */
+    public List<AuditEvent> recent(
+        String entity,
+        String id,
+        int limit)
+    {
+        return recent(entity,
+            id,
+            Long.MAX_VALUE,
+            limit).getEvents();
+    }
+
+    /**
+     * Returns the latest events written before a sequence number, newest first, optionally only those of one
+     * entity. Events still waiting in the queue are not returned.
+     * <p>
+     * The search stops once limit events are found or usermodel.audit.max-scanned events have been read. Either
+     * way, if older events are left, the sequence number to search before for them is returned as next. Fewer
+     * than limit events with a next means the search reached usermodel.audit.max-scanned.
+     *
+     * @param entity the name (String) of the entity whose events you seek, or null for every entity
+     * @param id     the primary key of the entity whose events you seek, as a String, or null for every one
+     * @param before the events returned have a sequence number (long) below this
+     * @param limit  the most events to return
+     * @return the events found, newest first, and where to carry on
+     */
+    public AuditHistory recent(
+        String entity,
+        String id,
+        long before,
+        int limit)
+    {
+        AuditHistory history = new AuditHistory();
+        List<AuditEvent> found = history.getEvents();
+        int scanned = 0;
+        Segment current = active;
+        List<Path> segments = segments();
+        Collections.reverse(segments);
+        for (Path path : segments)
+        {
+            // started after the active segment was read, so holds nothing older
+            if (path.compareTo(current.path) > 0)
+            {
+                continue;
+            }
+            long first = firstSequence(path);
+            if (first >= before)
+            {
+                continue;
+            }
+
+            ByteBuffer contents;
+            if (path.equals(current.path))
+            {
+                contents = current.buffer.duplicate();
+                contents.limit(current.published);
+            } else
+            {
+                try
+                {
+                    contents = map(path);
+                } catch (NoSuchFileException e)
+                {
+                    // deleted as the segments rotated
+                    continue;
+                } catch (IOException e)
+                {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            List<Integer> offsets = offsets(contents);
+            for (int i = (int) Math.min(offsets.size(),
+                before - first) - 1; i >= 0; i--)
+            {
+                if (found.size() >= limit || scanned >= maxScanned)
+                {
+                    history.setNext(first + i + 1);
+                    return history;
+                }
+                AuditEvent event = event(contents,
+                    offsets.get(i));
+                scanned++;
+                if ((entity == null || entity.equalsIgnoreCase(event.getEntity())) && (id == null || id.equals(event.getId())))
+                {
+                    found.add(event);
+                }
+            }
+        }
+        return history;
+    }
+
+    /**
+     * The writer. Takes batches of events off the queue and writes them until stopped and the queue is empty.
+     */
+    private void drain()
+    {
+        List<AuditEvent> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty())
+        {
+            queue.drain(batch::add,
+                batchSize);
+            if (batch.isEmpty())
+            {
+                LockSupport.parkNanos(IDLE_NANOS);
+                continue;
+            }
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Appends the events to the active segment, starting new segments as needed, and makes them durable.
+     * Should a segment fail to be written or started part way through, the events already appended are kept and
+     * counted as written, and only the rest of the batch is dropped. Only called by the writer.
+     *
+     * @param batch the events to write
+     */
+    private void write(List<AuditEvent> batch)
+    {
+        int count = 0;
+        int handled = 0;
+        try
+        {
+            Segment segment = active;
+            ByteBuffer b = segment.buffer;
+            for (AuditEvent event : batch)
+            {
+                event.setSequence(nextSequence);
+                byte[] bytes = journalMapper.writeValueAsBytes(event);
+                if (Integer.BYTES + bytes.length > segmentSize)
+                {
+                    logger.warn("Audit event of {} bytes is larger than a segment",
+                        bytes.length);
+                    dropped.increment();
+                    handled++;
+                    continue;
+                }
+                if (b.remaining() < Integer.BYTES + bytes.length)
+                {
+                    segment.buffer.force();
+                    segment.published = b.position();
+                    segment = open(nextSequence);
+                    active = segment;
+                    b = segment.buffer;
+                    retain();
+                }
+                b.putInt(bytes.length);
+                b.put(bytes);
+                nextSequence++;
+                count++;
+                handled++;
+            }
+        } catch (IOException | RuntimeException e)
+        {
+            logger.error("Could not write {} audit events",
+                batch.size() - handled,
+                e);
+            dropped.increment(batch.size() - handled);
+        }
+
+        // the events appended to the active segment, before any failure, are made durable and readable
+        Segment segment = active;
+        try
+        {
+            segment.buffer.force();
+        } catch (UncheckedIOException e)
+        {
+            logger.error("Could not force {} to disk",
+                segment.path,
+                e);
+        }
+        segment.published = segment.buffer.position();
+        written.increment(count);
+    }
+
+    /**
+     * Creates and maps a new, zero filled, segment.
+     * <p>
+     * A file already having the segment's name holds no event, as no event with its sequence number has been
+     * written. It is what is left of an earlier try to start the segment that failed once the file was created,
+     * for instance because it could not be mapped. It is emptied and used, so one failure does not keep every
+     * later segment from being started.
+     *
+     * @param firstSequence the sequence number (long) of the first event it will hold
+     * @return the new segment
+     * @throws IOException if the segment cannot be created
+     */
+    private Segment open(long firstSequence) throws IOException
+    {
+        Path path = dir.resolve(String.format("audit-%020d.log",
+            firstSequence));
+        try (FileChannel channel = FileChannel.open(path,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.READ,
+            StandardOpenOption.WRITE))
+        {
+            return new Segment(path,
+                channel.map(FileChannel.MapMode.READ_WRITE,
+                    0,
+                    segmentSize));
+        }
+    }
+
+    /**
+     * Deletes the oldest segments, keeping at most usermodel.audit.max-segments
+     *
+     * @throws IOException if a segment cannot be deleted
+     */
+    private void retain() throws IOException
+    {
+        List<Path> segments = segments();
+        for (int i = 0; i < segments.size() - Math.max(1,
+            maxSegments); i++)
+        {
+            Files.deleteIfExists(segments.get(i));
+        }
+    }
+
+    /**
+     * The segment files, oldest first
+     *
+     * @return the path of each segment
+     */
+    private List<Path> segments()
+    {
+        try (Stream<Path> files = Files.list(dir))
+        {
+            return files.filter(p -> p.getFileName()
+                .toString()
+                .matches("audit-\\d{20}\\.log"))
+                .sorted()
+                .collect(Collectors.toList());
+        } catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * The sequence number of the first event of a segment, from its name
+     *
+     * @param segment the path of the segment
+     * @return the sequence number (long)
+     */
+    private static long firstSequence(Path segment)
+    {
+        String name = segment.getFileName()
+            .toString();
+        return Long.parseLong(name.substring("audit-".length(),
+            name.length() - ".log".length()));
+    }
+
+    /**
+     * Maps a segment file to be read
+     *
+     * @param segment the path of the segment
+     * @return the contents of the segment
+     * @throws IOException if the segment cannot be read
+     */
+    private static ByteBuffer map(Path segment) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(segment,
+            StandardOpenOption.READ))
+        {
+            return channel.map(FileChannel.MapMode.READ_ONLY,
+                0,
+                channel.size());
+        }
+    }
+
+    /**
+     * Finds where each event of a segment starts, without reading the events
+     *
+     * @param contents the contents of the segment, up to its limit
+     * @return the offset of each event's length, in the order written
+     */
+    private static List<Integer> offsets(ByteBuffer contents)
+    {
+        List<Integer> offsets = new ArrayList<>();
+        int pos = 0;
+        while (pos + Integer.BYTES <= contents.limit())
+        {
+            int length = contents.getInt(pos);
+            if (length <= 0 || pos + Integer.BYTES + length > contents.limit())
+            {
+                break;
+            }
+            offsets.add(pos);
+            pos += Integer.BYTES + length;
+        }
+        return offsets;
+    }
+
+    /**
+     * Reads every event of a segment
+     *
+     * @param contents the contents of the segment, up to its limit
+     * @return the events, in the order written
+     */
+    private List<AuditEvent> read(ByteBuffer contents)
+    {
+        List<AuditEvent> events = new ArrayList<>();
+        for (int offset : offsets(contents))
+        {
+            events.add(event(contents,
+                offset));
+        }
+        return events;
+    }
+
+    /**
+     * Reads one event of a segment
+     *
+     * @param contents the contents of the segment
+     * @param offset   where the event's length is
+     * @return the event
+     */
+    private AuditEvent event(
+        ByteBuffer contents,
+        int offset)
+    {
+        byte[] bytes = new byte[contents.getInt(offset)];
+        ByteBuffer b = contents.duplicate();
+        b.position(offset + Integer.BYTES);
+        b.get(bytes);
+        try
+        {
+            return journalMapper.readValue(bytes,
+                AuditEvent.class);
+        } catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * The counter of the events with the given outcome
+     *
+     * @param outcome what happened to the events: queued, written or dropped
+     * @return the counter
+     */
+    private Counter events(String outcome)
+    {
+        return Counter.builder("usermodel.audit.events")
+            .description("Audit events queued, written to the journal, or dropped")
+            .tag("outcome",
+                outcome)
+            .register(meterRegistry);
+    }
+}
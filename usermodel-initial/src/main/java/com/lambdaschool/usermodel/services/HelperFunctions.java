@@ -18,4 +18,14 @@ public interface HelperFunctions
      */
     List<ValidationError> getConstraintViolation(Throwable cause);
 
+    /**
+     * Runs the given action once the current transaction commits. Nothing is run if the transaction rolls back.
+     * If there is no transaction, the action is run right away.
+     * <p>
+     * Used to keep in memory structures in step with what is actually in the database.
+     *
+     * @param action what to do after the commit
+     */
+    void afterCommit(Runnable action);
+
 }
@@ -2,6 +2,8 @@ package com.lambdaschool.usermodel.services;
 
 import com.lambdaschool.usermodel.models.ValidationError;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import javax.validation.ConstraintViolation;
 import javax.validation.ConstraintViolationException;
@@ -40,4 +42,23 @@ public class HelperFunctionsImpl
         }
         return listVE;
     }
+
+    @Override
+    public void afterCommit(Runnable action)
+    {
+        if (TransactionSynchronizationManager.isSynchronizationActive())
+        {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization()
+            {
+                @Override
+                public void afterCommit()
+                {
+                    action.run();
+                }
+            });
+        } else
+        {
+            action.run();
+        }
+    }
 }
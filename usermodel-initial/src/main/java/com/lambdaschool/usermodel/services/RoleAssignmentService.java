@@ -0,0 +1,75 @@
+package com.lambdaschool.usermodel.services;
+
+import com.lambdaschool.usermodel.models.RoleAssignmentResult;
+
+import java.util.Collection;
+
+/**
+ * The Service that assigns a role to, or revokes a role from, many users at once
+ */
+public interface RoleAssignmentService
+{
+    /**
+     * Gives the role to each of the given users not already holding it. Users that do not exist are skipped.
+     * <p>
+     * The users are changed in chunks, in userid order, each chunk in its own transaction, so a failure may leave
+     * the role given to some of the users.
+     *
+     * @param roleid  The primary key (long) of the role to give
+     * @param userids The primary keys (Long) of the users
+     * @return how many users were asked for and how many were given the role
+     */
+    RoleAssignmentResult assign(
+        long roleid,
+        Collection<Long> userids);
+
+    /**
+     * Takes the role from each of the given users holding it.
+     * <p>
+     * The users are changed in chunks, in userid order, each chunk in its own transaction, so a failure may leave
+     * the role taken from some of the users.
+     *
+     * @param roleid  The primary key (long) of the role to take
+     * @param userids The primary keys (Long) of the users
+     * @return how many users were asked for and how many lost the role
+     */
+    RoleAssignmentResult revoke(
+        long roleid,
+        Collection<Long> userids);
+
+    /**
+     * Gives the role to each user holding every role named in all, at least one role named in any, and no role
+     * named in none, see UserService.findIdsByRoles. At least one of all and any must be given.
+     * <p>
+     * The users are found and changed in chunks, in userid order, each chunk in its own transaction.
+     *
+     * @param roleid The primary key (long) of the role to give
+     * @param all    The names (String) of the roles each user must hold
+     * @param any    The names (String) of the roles of which each user must hold one
+     * @param none   The names (String) of the roles no user may hold
+     * @return how many users matched and how many were given the role
+     */
+    RoleAssignmentResult assignByRoles(
+        long roleid,
+        Collection<String> all,
+        Collection<String> any,
+        Collection<String> none);
+
+    /**
+     * Takes the role from each user holding every role named in all, at least one role named in any, and no role
+     * named in none, see UserService.findIdsByRoles. At least one of all and any must be given.
+     * <p>
+     * The users are found and changed in chunks, in userid order, each chunk in its own transaction.
+     *
+     * @param roleid The primary key (long) of the role to take
+     * @param all    The names (String) of the roles each user must hold
+     * @param any    The names (String) of the roles of which each user must hold one
+     * @param none   The names (String) of the roles no user may hold
+     * @return how many users matched and how many lost the role
+     */
+    RoleAssignmentResult revokeByRoles(
+        long roleid,
+        Collection<String> all,
+        Collection<String> any,
+        Collection<String> none);
+}
@@ -0,0 +1,339 @@
+package com.lambdaschool.usermodel.services;
+
+import com.lambdaschool.usermodel.models.RoleAssignmentResult;
+import com.lambdaschool.usermodel.models.UserRoles;
+import com.lambdaschool.usermodel.repository.UserRepository;
+import org.hibernate.query.NativeQuery;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.function.LongFunction;
+
+/**
+ * Implements the RoleAssignmentService Interface
+ * <p>
+ * Not Transactional as a whole. Each chunk of users is changed in its own transaction by one set based statement
+ * against the userroles table, without loading any user. The audit fields are filled in by the statement.
+ * <p>
+ * The statements tell Hibernate they change the userroles table, so only what is read from it is dropped from the
+ * second-level cache: the userroles region, the roles of each user and the cached queries reading userroles.
+ */
+@Service(value = "roleAssignmentService")
+public class RoleAssignmentServiceImpl
+    implements RoleAssignmentService
+{
+    /**
+     * Adds the role to the users of a chunk not already holding it, and that exist
+     */
+    private static final String ASSIGN = "INSERT INTO userroles (userid, roleid, created_by, created_date, last_modified_by, last_modified_date) " +
+        "SELECT u.userid, :roleid, :uname, CURRENT_TIMESTAMP, :uname, CURRENT_TIMESTAMP FROM users u " +
+        "WHERE u.userid IN :userids AND NOT EXISTS (SELECT 1 FROM userroles ur WHERE ur.roleid = :roleid AND ur.userid = u.userid)";
+
+    /**
+     * Removes the role from the users of a chunk
+     */
+    private static final String REVOKE = "DELETE FROM userroles WHERE roleid = :roleid AND userid IN :userids";
+
+    /**
+     * Checks the role exists
+     */
+    @Autowired
+    private RoleService roleService;
+
+    /**
+     * Finds the users holding a combination of roles
+     */
+    @Autowired
+    private UserService userService;
+
+    /**
+     * Connects this service to the User table
+     */
+    @Autowired
+    private UserRepository userrepos;
+
+    /**
+     * Connects this service to the auditing service in order to get current user name
+     */
+    @Autowired
+    private UserAuditing userAuditing;
+
+    /**
+     * The cache of users, which holds the roles of each user
+     */
+    @Autowired
+    private UserCache userCache;
+
+    /**
+     * The in memory index of the users holding each role
+     */
+    @Autowired
+    private RoleMembershipIndex membershipIndex;
+
+    /**
+     * Used to update the role membership index and the audit journal once chunks are committed
+     */
+    @Autowired
+    private HelperFunctions helperFunctions;
+
+    /**
+     * Where the user role combinations added and removed are recorded, as the statements bypass Hibernate's events
+     */
+    @Autowired
+    private AuditJournal auditJournal;
+
+    /**
+     * Runs each chunk of users in its own transaction
+     */
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * The persistence context the statements are run through
+     */
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * The number of users changed in one transaction
+     */
+    @Value("${usermodel.roles.assignment.chunk-size:1000}")
+    private int chunkSize;
+
+    @Override
+    public RoleAssignmentResult assign(
+        long roleid,
+        Collection<Long> userids)
+    {
+        return change(roleid,
+            true,
+            chunksOf(userids));
+    }
+
+    @Override
+    public RoleAssignmentResult revoke(
+        long roleid,
+        Collection<Long> userids)
+    {
+        return change(roleid,
+            false,
+            chunksOf(userids));
+    }
+
+    @Override
+    public RoleAssignmentResult assignByRoles(
+        long roleid,
+        Collection<String> all,
+        Collection<String> any,
+        Collection<String> none)
+    {
+        return change(roleid,
+            true,
+            after -> userService.findIdsByRoles(all,
+                any,
+                none,
+                after,
+                chunkSize));
+    }
+
+    @Override
+    public RoleAssignmentResult revokeByRoles(
+        long roleid,
+        Collection<String> all,
+        Collection<String> any,
+        Collection<String> none)
+    {
+        return change(roleid,
+            false,
+            after -> userService.findIdsByRoles(all,
+                any,
+                none,
+                after,
+                chunkSize));
+    }
+
+    /**
+     * The chunks of the given userids, in userid order
+     *
+     * @param userids the primary keys (Long) of the users, in any order and possibly repeated
+     * @return the next chunk of userids after a given userid
+     */
+    private LongFunction<List<Long>> chunksOf(Collection<Long> userids)
+    {
+        NavigableSet<Long> sorted = new TreeSet<>(userids);
+        return after ->
+        {
+            List<Long> chunk = new ArrayList<>(Math.min(chunkSize,
+                sorted.size()));
+            for (Long userid : sorted.tailSet(after,
+                false))
+            {
+                if (chunk.size() == chunkSize)
+                {
+                    break;
+                }
+                chunk.add(userid);
+            }
+            return chunk;
+        };
+    }
+
+    /**
+     * Gives or takes the role, a chunk of users at a time. The chunks are read by userid, so users changed by one
+     * chunk are not found again by the next, even when the users are chosen by the role being changed.
+     *
+     * @param roleid    the primary key (long) of the role
+     * @param assign    true to give the role, false to take it
+     * @param nextChunk the next chunk of userids, in userid order, after a given userid. Empty when done.
+     * @return how many users were in the chunks and how many were changed
+     */
+    private RoleAssignmentResult change(
+        long roleid,
+        boolean assign,
+        LongFunction<List<Long>> nextChunk)
+    {
+        roleService.findRoleById(roleid);
+        String uname = userAuditing.getCurrentAuditor()
+            .get();
+
+        RoleAssignmentResult result = new RoleAssignmentResult(roleid);
+        long after = Long.MIN_VALUE;
+        List<Long> chunk;
+        while (!(chunk = nextChunk.apply(after)).isEmpty())
+        {
+            List<Long> userids = chunk;
+            int changed = transactionTemplate.execute(status -> assign ? assignChunk(roleid,
+                userids,
+                uname) : revokeChunk(roleid,
+                userids));
+            result.setUsers(result.getUsers() + userids.size());
+            result.setChanged(result.getChanged() + changed);
+            after = userids.get(userids.size() - 1);
+        }
+        return result;
+    }
+
+    /**
+     * Gives the role to the users of one chunk
+     *
+     * @param roleid  the primary key (long) of the role
+     * @param userids the primary keys (Long) of the users
+     * @param uname   the username making this change
+     * @return the number of users given the role
+     */
+    private int assignChunk(
+        long roleid,
+        List<Long> userids,
+        String uname)
+    {
+        List<Long> before = userrepos.findUseridsHoldingRole(roleid,
+            userids);
+        int added = statement(ASSIGN,
+            roleid,
+            userids).setParameter("uname",
+            uname)
+            .executeUpdate();
+        // only the users that exist are indexed
+        List<Long> holding = userrepos.findUseridsHoldingRole(roleid,
+            userids);
+        List<Long> given = new ArrayList<>(holding);
+        given.removeAll(new HashSet<>(before));
+        helperFunctions.afterCommit(() ->
+        {
+            membershipIndex.grant(roleid,
+                holding);
+            journal(roleid,
+                given,
+                "INSERT");
+        });
+        // just the users changed, rather than every cached user once per chunk
+        userCache.evict(given);
+        return added;
+    }
+
+    /**
+     * Takes the role from the users of one chunk
+     *
+     * @param roleid  the primary key (long) of the role
+     * @param userids the primary keys (Long) of the users
+     * @return the number of users losing the role
+     */
+    private int revokeChunk(
+        long roleid,
+        List<Long> userids)
+    {
+        List<Long> holding = userrepos.findUseridsHoldingRole(roleid,
+            userids);
+        int removed = statement(REVOKE,
+            roleid,
+            userids).executeUpdate();
+        helperFunctions.afterCommit(() ->
+        {
+            membershipIndex.revoke(roleid,
+                userids);
+            journal(roleid,
+                holding,
+                "DELETE");
+        });
+        userCache.evict(holding);
+        return removed;
+    }
+
+    /**
+     * Records the user role combinations added or removed in the audit journal
+     *
+     * @param roleid  the primary key (long) of the role
+     * @param userids the primary keys (Long) of the users changed
+     * @param action  INSERT or DELETE
+     */
+    private void journal(
+        long roleid,
+        List<Long> userids,
+        String action)
+    {
+        List<String> fields = "INSERT".equals(action) ? List.of("role",
+            "user") : Collections.emptyList();
+        for (long userid : userids)
+        {
+            auditJournal.record(UserRoles.class.getSimpleName(),
+                AuditEventListener.idOf(userid,
+                    roleid),
+                action,
+                fields);
+        }
+    }
+
+    /**
+     * Builds a statement changing the userroles table, marked as changing only that table
+     *
+     * @param sql     the statement
+     * @param roleid  the primary key (long) of the role
+     * @param userids the primary keys (Long) of the users
+     * @return the statement with the roleid and userids set
+     */
+    private NativeQuery<?> statement(
+        String sql,
+        long roleid,
+        List<Long> userids)
+    {
+        NativeQuery<?> query = entityManager.createNativeQuery(sql)
+            .unwrap(NativeQuery.class);
+        query.addSynchronizedEntityClass(UserRoles.class);
+        query.setParameter("roleid",
+            roleid);
+        query.setParameterList("userids",
+            userids);
+        return query;
+    }
+}
@@ -0,0 +1,472 @@
+package com.lambdaschool.usermodel.services;
+
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * An in memory index from each roleid to the userids of the users holding the role, used to answer role checks
+ * and role set queries, such as the users holding ADMIN but not DATA, without reading users.
+ * <p>
+ * The userids of a role are kept in a compressed bitmap, see RoaringBitmap. A bitmap is never changed once
+ * published; a write copies the bitmaps of the roles it touches, so reads never lock. Userids are held as
+ * unsigned ints. Should a userid ever be too large for that, the index goes cold.
+ * <p>
+ * The index starts cold. It is filled from the database once the application is ready, see UserIndexLoader,
+ * and kept up to date by the User and Role Services. Until it is warm, checks must go to the database.
+ * It may be a commit behind.
+ */
+@Component
+public class RoleMembershipIndex
+{
+    /**
+     * The largest userid the bitmaps can hold
+     */
+    private static final long MAX_USERID = 0xFFFFFFFFL;
+
+    /**
+     * The userids holding no role, or an unknown one
+     */
+    private static final RoaringBitmap NONE = new RoaringBitmap();
+
+    /**
+     * The userids holding each roleid
+     */
+    private volatile Map<Long, RoaringBitmap> members = new ConcurrentHashMap<>();
+
+    /**
+     * The indexed roleids of each userid, needed to remove the user's roles when they change.
+     * Only used by writes, which are synchronized.
+     */
+    private Map<Long, Set<Long>> roles = new HashMap<>();
+
+    /**
+     * True once the index holds every user role combination
+     */
+    private volatile boolean warm = false;
+
+    /**
+     * Is the index complete enough to answer checks
+     *
+     * @return true if every user role combination has been indexed
+     */
+    public boolean isWarm()
+    {
+        return warm;
+    }
+
+    /**
+     * Replaces the contents of the index with the given user role combinations and marks the index warm,
+     * unless a userid was too large to hold
+     *
+     * @param rows every user role combination, each an array holding the userid (Number) then the roleid (Number)
+     */
+    public synchronized void load(Stream<Object[]> rows)
+    {
+        Map<Long, RoaringBitmap> building = new HashMap<>();
+        Map<Long, Set<Long>> buildingRoles = new HashMap<>();
+        boolean fits = true;
+        Iterator<Object[]> it = rows.iterator();
+        while (it.hasNext())
+        {
+            Object[] row = it.next();
+            long userid = ((Number) row[0]).longValue();
+            long roleid = ((Number) row[1]).longValue();
+            if (!fitsBitmap(userid))
+            {
+                fits = false;
+                continue;
+            }
+            buildingRoles.computeIfAbsent(userid,
+                id -> new HashSet<>())
+                .add(roleid);
+            building.computeIfAbsent(roleid,
+                id -> new RoaringBitmap())
+                .add((int) userid);
+        }
+
+        building.values()
+            .forEach(RoaringBitmap::runOptimize);
+        members = new ConcurrentHashMap<>(building);
+        roles = buildingRoles;
+        warm = fits;
+    }
+
+    /**
+     * Replaces the contents of the index with the rows read from the given source, reading them while holding
+     * the lock the writes take so that no write is lost to the load, see UsernameTrigramIndex#load(Supplier)
+     *
+     * @param source opens a stream of every user role combination in the database, closed once read
+     */
+    public synchronized void load(Supplier<Stream<Object[]>> source)
+    {
+        try (Stream<Object[]> rows = source.get())
+        {
+            load(rows);
+        }
+    }
+
+    /**
+     * Replaces the roles of a user in the index
+     *
+     * @param userid  the primary key (long) of the user
+     * @param roleids the primary keys (Long) of every role the user holds
+     */
+    public synchronized void put(
+        long userid,
+        Collection<Long> roleids)
+    {
+        Map<Long, Collection<Long>> one = new HashMap<>();
+        one.put(userid,
+            roleids);
+        putAll(one);
+    }
+
+    /**
+     * Replaces the roles of several users in the index, copying the bitmap of each role touched once
+     *
+     * @param rolesByUser the primary keys (Long) of every role held by each user, by userid
+     */
+    public synchronized void putAll(Map<Long, ? extends Collection<Long>> rolesByUser)
+    {
+        Map<Long, RoaringBitmap> changed = new HashMap<>();
+        for (Map.Entry<Long, ? extends Collection<Long>> e : rolesByUser.entrySet())
+        {
+            long userid = e.getKey();
+            if (!fitsBitmap(userid))
+            {
+                warm = false;
+                continue;
+            }
+            Set<Long> had = roles.getOrDefault(userid,
+                new HashSet<>());
+            Set<Long> has = new HashSet<>(e.getValue());
+            for (long roleid : had)
+            {
+                if (!has.contains(roleid))
+                {
+                    copyOf(changed,
+                        roleid).remove((int) userid);
+                }
+            }
+            for (long roleid : has)
+            {
+                if (!had.contains(roleid))
+                {
+                    copyOf(changed,
+                        roleid).add((int) userid);
+                }
+            }
+            if (has.isEmpty())
+            {
+                roles.remove(userid);
+            } else
+            {
+                roles.put(userid,
+                    has);
+            }
+        }
+        publish(changed);
+    }
+
+    /**
+     * Adds a role to several users, copying the bitmap of the role once
+     *
+     * @param roleid  the primary key (long) of the role
+     * @param userids the primary keys (Long) of the users now holding the role
+     */
+    public synchronized void grant(
+        long roleid,
+        Collection<Long> userids)
+    {
+        Map<Long, RoaringBitmap> changed = new HashMap<>();
+        RoaringBitmap b = copyOf(changed,
+            roleid);
+        for (long userid : userids)
+        {
+            if (!fitsBitmap(userid))
+            {
+                warm = false;
+                continue;
+            }
+            b.add((int) userid);
+            roles.computeIfAbsent(userid,
+                id -> new HashSet<>())
+                .add(roleid);
+        }
+        publish(changed);
+    }
+
+    /**
+     * Removes a role from several users, copying the bitmap of the role once
+     *
+     * @param roleid  the primary key (long) of the role
+     * @param userids the primary keys (Long) of the users no longer holding the role
+     */
+    public synchronized void revoke(
+        long roleid,
+        Collection<Long> userids)
+    {
+        Map<Long, RoaringBitmap> changed = new HashMap<>();
+        RoaringBitmap b = copyOf(changed,
+            roleid);
+        for (long userid : userids)
+        {
+            if (!fitsBitmap(userid))
+            {
+                continue;
+            }
+            b.remove((int) userid);
+            Set<Long> r = roles.get(userid);
+            if (r != null)
+            {
+                r.remove(roleid);
+                if (r.isEmpty())
+                {
+                    roles.remove(userid);
+                }
+            }
+        }
+        publish(changed);
+    }
+
+    /**
+     * Removes every role of a user from the index
+     *
+     * @param userid the primary key (long) of the user
+     */
+    public synchronized void remove(long userid)
+    {
+        put(userid,
+            new HashSet<>());
+    }
+
+    /**
+     * Removes a role, and every user's hold of it, from the index
+     *
+     * @param roleid the primary key (long) of the role
+     */
+    public synchronized void removeRole(long roleid)
+    {
+        RoaringBitmap had = members.remove(roleid);
+        if (had != null)
+        {
+            had.forEach((int userid) ->
+            {
+                Set<Long> r = roles.get(Integer.toUnsignedLong(userid));
+                if (r != null)
+                {
+                    r.remove(roleid);
+                }
+            });
+        }
+    }
+
+    /**
+     * Removes every user role combination from the index. The index stays warm, as it now matches an empty
+     * userroles table.
+     */
+    public synchronized void clear()
+    {
+        members = new ConcurrentHashMap<>();
+        roles.clear();
+    }
+
+    /**
+     * Does the user hold the role
+     *
+     * @param userid the primary key (long) of the user
+     * @param roleid the primary key (long) of the role
+     * @return true if the index has the user holding the role
+     */
+    public boolean hasRole(
+        long userid,
+        long roleid)
+    {
+        return fitsBitmap(userid) && members.getOrDefault(roleid,
+            NONE)
+            .contains((int) userid);
+    }
+
+    /**
+     * Counts the users holding every role of all, at least one role of any, and no role of none.
+     * At least one of all and any must be given.
+     *
+     * @param all  the roleids (Long) each user must hold
+     * @param any  the roleids (Long) of which each user must hold one, or empty
+     * @param none the roleids (Long) no user may hold
+     * @return the number of users matching
+     */
+    public long count(
+        Collection<Long> all,
+        Collection<Long> any,
+        Collection<Long> none)
+    {
+        return matching(all,
+            any,
+            none).getLongCardinality();
+    }
+
+    /**
+     * Finds the users holding every role of all, at least one role of any, and no role of none, in userid order.
+     * At least one of all and any must be given.
+     *
+     * @param all   the roleids (Long) each user must hold
+     * @param any   the roleids (Long) of which each user must hold one, or empty
+     * @param none  the roleids (Long) no user may hold
+     * @param after the last userid (long) already seen; only greater userids are returned
+     * @param limit the most userids to return
+     * @return the userids of the users matching
+     */
+    public List<Long> search(
+        Collection<Long> all,
+        Collection<Long> any,
+        Collection<Long> none,
+        long after,
+        int limit)
+    {
+        List<Long> found = new ArrayList<>();
+        if (after >= MAX_USERID)
+        {
+            return found;
+        }
+        PeekableIntIterator it = matching(all,
+            any,
+            none).getIntIterator();
+        it.advanceIfNeeded((int) Math.max(0,
+            after + 1));
+        while (it.hasNext() && found.size() < limit)
+        {
+            found.add(Integer.toUnsignedLong(it.next()));
+        }
+        return found;
+    }
+
+    /**
+     * Combines the bitmaps of the roles into the bitmap of the users matching. Bitmaps held by the index
+     * may be returned as they are, so the result must not be changed.
+     *
+     * @param all  the roleids (Long) each user must hold
+     * @param any  the roleids (Long) of which each user must hold one, or empty
+     * @param none the roleids (Long) no user may hold
+     * @return the userids matching
+     */
+    private RoaringBitmap matching(
+        Collection<Long> all,
+        Collection<Long> any,
+        Collection<Long> none)
+    {
+        if (all.isEmpty() && any.isEmpty())
+        {
+            throw new IllegalArgumentException("At least one role the users must hold is needed");
+        }
+
+        Map<Long, RoaringBitmap> m = members;
+        RoaringBitmap result = null;
+        for (Long roleid : all)
+        {
+            RoaringBitmap b = m.getOrDefault(roleid,
+                NONE);
+            result = (result == null) ? b : RoaringBitmap.and(result,
+                b);
+        }
+        if (!any.isEmpty())
+        {
+            RoaringBitmap union = FastAggregation.or(bitmaps(m,
+                any));
+            result = (result == null) ? union : RoaringBitmap.and(result,
+                union);
+        }
+        if (!none.isEmpty())
+        {
+            result = RoaringBitmap.andNot(result,
+                FastAggregation.or(bitmaps(m,
+                    none)));
+        }
+        return result;
+    }
+
+    /**
+     * The bitmaps of the given roles
+     *
+     * @param m       the bitmaps of every role
+     * @param roleids the roleids (Long) whose bitmaps you seek
+     * @return an iterator over the bitmap of each role
+     */
+    private static Iterator<RoaringBitmap> bitmaps(
+        Map<Long, RoaringBitmap> m,
+        Collection<Long> roleids)
+    {
+        List<RoaringBitmap> list = new ArrayList<>(roleids.size());
+        for (Long roleid : roleids)
+        {
+            list.add(m.getOrDefault(roleid,
+                NONE));
+        }
+        return list.iterator();
+    }
+
+    /**
+     * Returns the copy of the bitmap of a role being changed by the current write, copying it on first use
+     *
+     * @param changed the copies made so far, by roleid
+     * @param roleid  the primary key (long) of the role
+     * @return the copy to change
+     */
+    private RoaringBitmap copyOf(
+        Map<Long, RoaringBitmap> changed,
+        long roleid)
+    {
+        return changed.computeIfAbsent(roleid,
+            id ->
+            {
+                RoaringBitmap had = members.get(id);
+                return (had == null) ? new RoaringBitmap() : had.clone();
+            });
+    }
+
+    /**
+     * Publishes the changed bitmaps, dropping those left empty
+     *
+     * @param changed the new bitmap of each role changed, by roleid
+     */
+    private void publish(Map<Long, RoaringBitmap> changed)
+    {
+        changed.forEach((roleid, b) ->
+        {
+            if (b.isEmpty())
+            {
+                members.remove(roleid);
+            } else
+            {
+                b.runOptimize();
+                members.put(roleid,
+                    b);
+            }
+        });
+    }
+
+    /**
+     * Can the userid be held in a bitmap
+     *
+     * @param userid the primary key (long) of a user
+     * @return true if the userid fits in an unsigned int
+     */
+    private static boolean fitsBitmap(long userid)
+    {
+        return userid >= 0 && userid <= MAX_USERID;
+    }
+}
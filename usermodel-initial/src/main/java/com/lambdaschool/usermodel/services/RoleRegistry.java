@@ -0,0 +1,254 @@
+package com.lambdaschool.usermodel.services;
+
+import com.lambdaschool.usermodel.models.Role;
+import com.lambdaschool.usermodel.repository.RoleRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Every role held in memory, found by roleid or by uppercase name.
+ * <p>
+ * The roles table is small and rarely changes, so the whole table is read at once and replaced as a whole
+ * whenever the Role Service changes it. Reads never lock. Until the roles are loaded, or after they are
+ * invalidated, the next read loads them again. Reads racing to load the roles share one load, counted as
+ * the flight roles, see {@link SingleFlight}.
+ * <p>
+ * A transaction changing the roles reads them from the database itself, seeing its own changes, but never
+ * publishes what it read. Other threads keep the roles as last committed until the transaction commits, when
+ * the roles are read again, or rolls back.
+ * <p>
+ * Each read hands out new Role objects holding just the roleid and name, without the users of the role,
+ * so callers may change them freely. The Role objects of one snapshot share its name strings.
+ */
+@Component
+public class RoleRegistry
+{
+    /**
+     * The roles as read at one point in time. Never changed once built.
+     */
+    private static final class Snapshot
+    {
+        private final Map<Long, String> names;
+
+        private final Map<String, Long> ids;
+
+        private Snapshot(
+            Map<Long, String> names,
+            Map<String, Long> ids)
+        {
+            this.names = names;
+            this.ids = ids;
+        }
+    }
+
+    /**
+     * Connects the registry to the Role table
+     */
+    @Autowired
+    private RoleRepository rolerepos;
+
+    /**
+     * Where the loads of the roles are counted
+     */
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * The loads of the roles in flight, keyed by the generation they started in
+     */
+    private SingleFlight<Long, Snapshot> loads;
+
+    /**
+     * The current roles. Null when they need to be read again.
+     */
+    private volatile Snapshot snapshot;
+
+    /**
+     * Counts invalidations, so a load that raced with a change to the roles is not kept
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Sets up the counting of loads once the metrics registry has been injected
+     */
+    @PostConstruct
+    public void init()
+    {
+        loads = new SingleFlight<>("roles",
+            meterRegistry);
+    }
+
+    /**
+     * Reads the roles once the application is ready, so the first request does not have to
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load()
+    {
+        current();
+    }
+
+    /**
+     * Finds the role with the given roleid
+     *
+     * @param roleid the primary key (long) of the role you seek
+     * @return a copy of the role, or empty if there is no such role
+     */
+    public Optional<Role> findById(long roleid)
+    {
+        String name = current().names.get(roleid);
+        return (name == null) ? Optional.empty() : Optional.of(role(roleid,
+            name));
+    }
+
+    /**
+     * Finds the role with the given name
+     *
+     * @param name the name (String) of the role you seek, any case
+     * @return a copy of the role, or empty if there is no such role
+     */
+    public Optional<Role> findByName(String name)
+    {
+        Snapshot s = current();
+        Long roleid = s.ids.get(name.toUpperCase());
+        return (roleid == null) ? Optional.empty() : Optional.of(role(roleid,
+            s.names.get(roleid)));
+    }
+
+    /**
+     * Returns every role
+     *
+     * @return a copy of each role, in roleid order
+     */
+    public List<Role> findAll()
+    {
+        List<Role> list = new ArrayList<>();
+        current().names.forEach((roleid, name) -> list.add(role(roleid,
+            name)));
+        return list;
+    }
+
+    /**
+     * Drops the roles held, so they are read again on the next use. If a transaction is active, the roles it
+     * reads from now on are its own, and once it completes the roles are dropped again, so a read racing with it
+     * is not kept past the commit or rollback. After a commit the roles are read again straight away.
+     */
+    public void invalidate()
+    {
+        invalidateNow();
+        if (TransactionSynchronizationManager.isSynchronizationActive() && !TransactionSynchronizationManager.hasResource(this))
+        {
+            TransactionSynchronizationManager.bindResource(this,
+                Boolean.TRUE);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization()
+            {
+                @Override
+                public void afterCompletion(int status)
+                {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(RoleRegistry.this);
+                    invalidateNow();
+                    if (status == STATUS_COMMITTED)
+                    {
+                        current();
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Drops the roles held
+     */
+    private synchronized void invalidateNow()
+    {
+        generation.incrementAndGet();
+        snapshot = null;
+    }
+
+    /**
+     * Returns the roles held, reading them from the database first if needed
+     *
+     * @return the current roles
+     */
+    private Snapshot current()
+    {
+        if (TransactionSynchronizationManager.hasResource(this))
+        {
+            // the transaction has changed the roles, so what it reads is neither shared nor kept
+            return read(-1);
+        }
+
+        Snapshot s = snapshot;
+        if (s != null)
+        {
+            return s;
+        }
+
+        // a read arriving after an invalidation does not wait for a load started before it
+        long started = generation.get();
+        return loads.run(started,
+            () -> read(started));
+    }
+
+    /**
+     * Reads the roles from the database, keeping them unless they were invalidated while being read
+     *
+     * @param started the generation when the read started, or -1 to never keep the roles read
+     * @return the roles read
+     */
+    private Snapshot read(long started)
+    {
+        Map<Long, String> names = new TreeMap<>();
+        Map<String, Long> ids = new TreeMap<>();
+        // read as columns, not entities, so a stale entity in the persistence context cannot hide a rename
+        for (Object[] row : rolerepos.findAllNames())
+        {
+            long roleid = ((Number) row[0]).longValue();
+            String name = (String) row[1];
+            names.put(roleid,
+                name);
+            ids.put(name.toUpperCase(),
+                roleid);
+        }
+
+        Snapshot s = new Snapshot(Collections.unmodifiableMap(names),
+            Collections.unmodifiableMap(ids));
+        synchronized (this)
+        {
+            if (generation.get() == started)
+            {
+                snapshot = s;
+            }
+        }
+        return s;
+    }
+
+    /**
+     * Builds a role holding just the roleid and name
+     *
+     * @param roleid the primary key (long) of the role
+     * @param name   the name (String) of the role
+     * @return the new role object
+     */
+    private static Role role(
+        long roleid,
+        String name)
+    {
+        Role r = new Role(name);
+        r.setRoleid(roleid);
+        return r;
+    }
+}
@@ -1,6 +1,7 @@
 package com.lambdaschool.usermodel.services;
 
 import com.lambdaschool.usermodel.models.Role;
+import com.lambdaschool.usermodel.models.UserSummary;
 
 import java.util.List;
 
@@ -12,20 +13,34 @@ import java.util.List;
 public interface RoleService
 {
     /**
-     * Returns a list of all Role objects
+     * Returns a list of all Role objects. Roles are read from memory and do not include their users.
      *
      * @return list of all Role object
      */
     List<Role> findAll();
 
     /**
-     * Return the first Role matching the given primary key
+     * Return the first Role matching the given primary key. Roles are read from memory and do not include their users.
      *
      * @param id The primary key (long) of the Role you seek
      * @return The Role object you seek
      */
     Role findRoleById(long id);
 
+    /**
+     * Returns the summaries of the users holding the role whose userid comes after the given userid, in userid order.
+     * Used for keyset (cursor) scrolling through the users of a role.
+     *
+     * @param id     The primary key (long) of the Role whose users you seek
+     * @param userid The last userid (long) already seen, 0 to start from the first user
+     * @param size   The most summaries to return
+     * @return List of the summaries of the next users holding the role
+     */
+    List<UserSummary> findUsersAfter(
+        long id,
+        long userid,
+        int size);
+
     /**
      * Given a complete Role object, saved that Role object in the database.
      * If a primary key is provided, the record is completely replaced
@@ -39,7 +54,7 @@ public interface RoleService
     Role save(Role role);
 
     /**
-     * Find the first Role object matching the given name
+     * Find the first Role object matching the given name. Roles are read from memory and do not include their users.
      *
      * @param name The name (String) of the role you seek
      * @return The Role object matching the given name
@@ -3,13 +3,15 @@ package com.lambdaschool.usermodel.services;
 import com.lambdaschool.usermodel.exceptions.ResourceFoundException;
 import com.lambdaschool.usermodel.exceptions.ResourceNotFoundException;
 import com.lambdaschool.usermodel.models.Role;
+import com.lambdaschool.usermodel.models.UserSummary;
 import com.lambdaschool.usermodel.repository.RoleRepository;
 import com.lambdaschool.usermodel.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -38,40 +40,68 @@ public class RoleServiceImpl
     @Autowired
     private UserAuditing userAuditing;
 
+    /**
+     * The cache of users, which holds the roles of each user
+     */
+    @Autowired
+    private UserCache userCache;
+
+    /**
+     * The roles held in memory, which answer every role read
+     */
+    @Autowired
+    private RoleRegistry roleRegistry;
+
+    /**
+     * The in memory index of the users holding each role
+     */
+    @Autowired
+    private RoleMembershipIndex membershipIndex;
+
+    /**
+     * Used to update the role membership index and the audit journal once changes are committed
+     */
+    @Autowired
+    private HelperFunctions helperFunctions;
+
+    /**
+     * Where changes made by update statements are recorded
+     */
+    @Autowired
+    private AuditJournal auditJournal;
+
     @Override
     public List<Role> findAll()
     {
-        List<Role> list = new ArrayList<>();
-        /*
-         * findAll returns an iterator set.
-         * iterate over the iterator set and add each element to an array list.
-         */
-        rolerepos.findAll()
-            .iterator()
-            .forEachRemaining(list::add);
-        return list;
+        return roleRegistry.findAll();
     }
 
 
     @Override
     public Role findRoleById(long id)
     {
-        return rolerepos.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Role id " + id + " not found!"));
+        return roleRegistry.findById(id)
+            .orElseThrow(() -> new ResourceNotFoundException("Role id " + id + " not found!"));
     }
 
     @Override
-    public Role findByName(String name)
+    public List<UserSummary> findUsersAfter(
+        long id,
+        long userid,
+        int size)
     {
-        Role rr = rolerepos.findByNameIgnoreCase(name);
+        findRoleById(id);
+        return userrepos.findSummariesByRoleAfter(id,
+            userid,
+            PageRequest.of(0,
+                size));
+    }
 
-        if (rr != null)
-        {
-            return rr;
-        } else
-        {
-            throw new ResourceNotFoundException(name);
-        }
+    @Override
+    public Role findByName(String name)
+    {
+        return roleRegistry.findByName(name)
+            .orElseThrow(() -> new ResourceNotFoundException(name));
     }
 
     @Transactional
@@ -84,7 +114,9 @@ public class RoleServiceImpl
             throw new ResourceFoundException("User Roles are not updated through Role.");
         }
 
-        return rolerepos.save(role);
+        Role saved = rolerepos.save(role);
+        roleRegistry.invalidate();
+        return saved;
     }
 
     @Transactional
@@ -92,6 +124,9 @@ public class RoleServiceImpl
     public void deleteAll()
     {
         rolerepos.deleteAll();
+        userCache.evictAll();
+        roleRegistry.invalidate();
+        helperFunctions.afterCommit(membershipIndex::clear);
     }
 
     @Transactional
@@ -117,6 +152,14 @@ public class RoleServiceImpl
                 .get(),
             id,
             role.getName());
+        // cached users carry the old role name
+        userCache.evictAll();
+        roleRegistry.invalidate();
+        // the update statement bypasses Hibernate's events
+        helperFunctions.afterCommit(() -> auditJournal.record("Role",
+            String.valueOf(id),
+            "UPDATE",
+            Collections.singletonList("name")));
         return findRoleById(id);
     }
 }
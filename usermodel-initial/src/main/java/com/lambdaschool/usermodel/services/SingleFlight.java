@@ -0,0 +1,163 @@
+package com.lambdaschool.usermodel.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Shares one call between concurrent callers asking for the same key.
+ * <p>
+ * The first caller for a key makes the call. Callers asking for the key while that call is in flight wait for it
+ * and get its result, or its exception, instead of making the call again. Once the call returns the next caller
+ * makes a new one, so nothing is cached here.
+ * <p>
+ * The calls are counted through the metrics registry as usermodel.singleflight.calls, tagged with the name of the
+ * flight and whether the call was coalesced into one already in flight.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the results
+ */
+public class SingleFlight<K, V>
+{
+    /**
+     * The calls in flight, keyed by what they are for
+     */
+    private final ConcurrentHashMap<K, CompletableFuture<V>> flights = new ConcurrentHashMap<>();
+
+    /**
+     * Counts the calls made
+     */
+    private final Counter made;
+
+    /**
+     * Counts the calls that waited for one already in flight
+     */
+    private final Counter coalesced;
+
+    /**
+     * Creates the flight and registers its counters
+     *
+     * @param name          the name the calls are counted under
+     * @param meterRegistry where the calls are counted
+     */
+    public SingleFlight(
+        String name,
+        MeterRegistry meterRegistry)
+    {
+        made = calls(name,
+            false,
+            meterRegistry);
+        coalesced = calls(name,
+            true,
+            meterRegistry);
+    }
+
+    /**
+     * Returns the result of the call for the key, making the call unless one for the key is already in flight.
+     * The call must not ask this flight for the same key.
+     *
+     * @param key  what the call is for
+     * @param call makes the call. Runs on the thread of the first caller.
+     * @return the result of the call
+     */
+    public V run(
+        K key,
+        Supplier<V> call)
+    {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> inFlight = flights.putIfAbsent(key,
+            mine);
+        if (inFlight != null)
+        {
+            coalesced.increment();
+            return join(inFlight);
+        }
+
+        made.increment();
+        try
+        {
+            V result = call.get();
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException | Error e)
+        {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally
+        {
+            flights.remove(key,
+                mine);
+        }
+    }
+
+    /**
+     * Stops later callers for the key from waiting for the call in flight, for when what it reads has changed.
+     * Callers already waiting still get its result.
+     *
+     * @param key what the call is for
+     */
+    public void forget(K key)
+    {
+        flights.remove(key);
+    }
+
+    /**
+     * Stops later callers for any key from waiting for the calls in flight
+     */
+    public void forgetAll()
+    {
+        flights.clear();
+    }
+
+    /**
+     * Waits for the call in flight, throwing its exception as it was thrown
+     *
+     * @param inFlight the call in flight
+     * @return the result of the call
+     */
+    private static <V> V join(CompletableFuture<V> inFlight)
+    {
+        try
+        {
+            return inFlight.join();
+        } catch (CompletionException e)
+        {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error)
+            {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * The counter of the calls of the flight
+     *
+     * @param name          the name of the flight
+     * @param coalesced     true to count the calls that waited for one in flight
+     * @param meterRegistry where the calls are counted
+     * @return the counter
+     */
+    private static Counter calls(
+        String name,
+        boolean coalesced,
+        MeterRegistry meterRegistry)
+    {
+        return Counter.builder("usermodel.singleflight.calls")
+            .description("Calls made, or coalesced into a call already in flight for the same key")
+            .tag("flight",
+                name)
+            .tag("coalesced",
+                String.valueOf(coalesced))
+            .register(meterRegistry);
+    }
+}
@@ -0,0 +1,26 @@
+package com.lambdaschool.usermodel.services;
+
+import com.lambdaschool.usermodel.models.User;
+import com.lambdaschool.usermodel.models.UserBatchResult;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * The Service that works with large batches of new users
+ */
+public interface UserBatchService
+{
+    /**
+     * Creates each of the given users, with their emails and roles, as in UserService.save.
+     * <p>
+     * Users are read from the iterator as they are needed and written in chunks, each chunk in its own transaction,
+     * so one batch may be partly created. A user that cannot be created is reported and does not stop the others.
+     * If the iterator itself fails, the users read so far are still created and the failure is reported
+     * at the position it happened.
+     *
+     * @param users the new users. Roles must already exist.
+     * @return what happened to each user, in the order the users were given
+     */
+    List<UserBatchResult> saveAll(Iterator<User> users);
+}
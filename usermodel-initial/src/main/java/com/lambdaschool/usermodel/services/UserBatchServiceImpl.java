@@ -0,0 +1,355 @@
+package com.lambdaschool.usermodel.services;
+
+import com.lambdaschool.usermodel.models.Role;
+import com.lambdaschool.usermodel.models.User;
+import com.lambdaschool.usermodel.models.UserBatchResult;
+import com.lambdaschool.usermodel.models.UserRoles;
+import com.lambdaschool.usermodel.models.Useremail;
+import com.lambdaschool.usermodel.models.ValidationError;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Implements UserBatchService Interface
+ * <p>
+ * Not Transactional as a whole. Each chunk of users is written in its own transaction, so a large batch
+ * neither holds one long transaction nor keeps every user in the persistence context.
+ */
+@Service(value = "userBatchService")
+public class UserBatchServiceImpl
+    implements UserBatchService
+{
+    /**
+     * Connects this service to the Role table
+     */
+    @Autowired
+    private RoleService roleService;
+
+    /**
+     * Runs each chunk of users in its own transaction
+     */
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * Checks each user before it is written
+     */
+    @Autowired
+    private Validator validator;
+
+    /**
+     * Used to update the username indexes once chunks are committed
+     */
+    @Autowired
+    private HelperFunctions helperFunctions;
+
+    /**
+     * The in memory index answering username contains searches
+     */
+    @Autowired
+    private UsernameTrigramIndex trigramIndex;
+
+    /**
+     * The in memory index answering username starts with searches
+     */
+    @Autowired
+    private UsernamePrefixIndex prefixIndex;
+
+    /**
+     * The in memory index answering lookups by email
+     */
+    @Autowired
+    private UserEmailIndex emailIndex;
+
+    /**
+     * The in memory index of the users holding each role
+     */
+    @Autowired
+    private RoleMembershipIndex membershipIndex;
+
+    /**
+     * The persistence context the users are written through
+     */
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * The number of users written in one transaction
+     */
+    @Value("${usermodel.users.batch.chunk-size:500}")
+    private int chunkSize;
+
+    @Override
+    public List<UserBatchResult> saveAll(Iterator<User> users)
+    {
+        // roles are looked up once for the whole batch
+        Set<Long> roleids = roleService.findAll()
+            .stream()
+            .map(Role::getRoleid)
+            .collect(Collectors.toSet());
+        Set<String> usernames = new HashSet<>();
+        Set<String> primaryemails = new HashSet<>();
+
+        List<UserBatchResult> results = new ArrayList<>();
+        List<User> chunk = new ArrayList<>(chunkSize);
+        List<UserBatchResult> chunkResults = new ArrayList<>(chunkSize);
+        while (true)
+        {
+            User user;
+            try
+            {
+                if (!users.hasNext())
+                {
+                    break;
+                }
+                user = users.next();
+            } catch (RuntimeException e)
+            {
+                UserBatchResult unreadable = new UserBatchResult(results.size(),
+                    null);
+                unreadable.setErrors(Collections.singletonList(error("unreadable",
+                    NestedExceptionUtils.getMostSpecificCause(e)
+                        .getMessage())));
+                results.add(unreadable);
+                break;
+            }
+
+            UserBatchResult result = new UserBatchResult(results.size(),
+                user.getUsername());
+            results.add(result);
+            List<ValidationError> errors = validate(user,
+                roleids,
+                usernames,
+                primaryemails);
+            if (!errors.isEmpty())
+            {
+                result.setErrors(errors);
+                continue;
+            }
+
+            chunk.add(user);
+            chunkResults.add(result);
+            if (chunk.size() == chunkSize)
+            {
+                saveChunk(chunk,
+                    chunkResults);
+                chunk.clear();
+                chunkResults.clear();
+            }
+        }
+        saveChunk(chunk,
+            chunkResults);
+        return results;
+    }
+
+    /**
+     * Checks the user can be written, without going to the database
+     *
+     * @param user          the new user
+     * @param roleids       the roleid of every role
+     * @param usernames     the usernames already seen in this batch
+     * @param primaryemails the primary emails already seen in this batch
+     * @return why the user cannot be written, empty if it can
+     */
+    private List<ValidationError> validate(
+        User user,
+        Set<Long> roleids,
+        Set<String> usernames,
+        Set<String> primaryemails)
+    {
+        List<ValidationError> errors = new ArrayList<>();
+        for (ConstraintViolation<User> cv : validator.validate(user))
+        {
+            errors.add(error(String.valueOf(cv.getInvalidValue()),
+                cv.getPropertyPath() + " " + cv.getMessage()));
+        }
+        if (user.getUsername() == null || user.getPassword() == null || user.getPrimaryemail() == null)
+        {
+            errors.add(error("user",
+                "username, password and primaryemail are required"));
+            return errors;
+        }
+        if (!usernames.add(user.getUsername()
+            .toLowerCase()))
+        {
+            errors.add(error(user.getUsername(),
+                "username appears more than once in the batch"));
+        }
+        if (!primaryemails.add(user.getPrimaryemail()
+            .toLowerCase()))
+        {
+            errors.add(error(user.getPrimaryemail(),
+                "primaryemail appears more than once in the batch"));
+        }
+        for (UserRoles ur : user.getRoles())
+        {
+            if (ur.getRole() == null || !roleids.contains(ur.getRole()
+                .getRoleid()))
+            {
+                errors.add(error(ur.getRole() == null ? "null" : String.valueOf(ur.getRole()
+                        .getRoleid()),
+                    "Role id not found!"));
+            }
+        }
+        for (Useremail ue : user.getUseremails())
+        {
+            for (ConstraintViolation<Useremail> cv : validator.validateValue(Useremail.class,
+                "useremail",
+                ue.getUseremail()))
+            {
+                errors.add(error(String.valueOf(ue.getUseremail()),
+                    "useremail " + cv.getMessage()));
+            }
+        }
+        return errors;
+    }
+
+    /**
+     * Writes the users in one transaction and records their new userids. If the transaction fails, the users are
+     * written one at a time so the failure can be reported against the users that caused it.
+     *
+     * @param users   the checked new users
+     * @param results the results of the same users, in the same order
+     */
+    private void saveChunk(
+        List<User> users,
+        List<UserBatchResult> results)
+    {
+        if (users.isEmpty())
+        {
+            return;
+        }
+
+        List<User> saved = new ArrayList<>(users.size());
+        try
+        {
+            transactionTemplate.execute(status ->
+            {
+                for (User user : users)
+                {
+                    saved.add(newUser(user));
+                }
+                entityManager.flush();
+                List<List<String>> addresses = new ArrayList<>(saved.size());
+                Map<Long, List<Long>> roleids = new HashMap<>();
+                for (User u : saved)
+                {
+                    addresses.add(UserServiceImpl.emailsOf(u));
+                    roleids.put(u.getUserid(),
+                        UserServiceImpl.roleidsOf(u));
+                }
+                entityManager.clear();
+
+                helperFunctions.afterCommit(() ->
+                {
+                    for (int i = 0; i < saved.size(); i++)
+                    {
+                        User u = saved.get(i);
+                        trigramIndex.put(u.getUserid(),
+                            u.getUsername());
+                        prefixIndex.put(u.getUserid(),
+                            u.getUsername());
+                        emailIndex.put(u.getUserid(),
+                            addresses.get(i));
+                    }
+                    membershipIndex.putAll(roleids);
+                });
+                return null;
+            });
+        } catch (RuntimeException e)
+        {
+            entityManager.clear();
+            if (users.size() == 1)
+            {
+                results.get(0)
+                    .setErrors(Collections.singletonList(error("database",
+                        NestedExceptionUtils.getMostSpecificCause(e)
+                            .getMessage())));
+                return;
+            }
+            for (int i = 0; i < users.size(); i++)
+            {
+                saveChunk(users.subList(i,
+                    i + 1),
+                    results.subList(i,
+                        i + 1));
+            }
+            return;
+        }
+
+        for (int i = 0; i < saved.size(); i++)
+        {
+            results.get(i)
+                .setUserid(saved.get(i)
+                    .getUserid());
+        }
+    }
+
+    /**
+     * Copies the given user into a new, persisted, entity, as UserService.save does, with each role a reference
+     * to the existing role rather than a read of it
+     *
+     * @param user the checked new user
+     * @return the new entity
+     */
+    private User newUser(User user)
+    {
+        User newUser = new User();
+        newUser.setUsername(user.getUsername()
+            .toLowerCase());
+        newUser.setPassword(user.getPassword());
+        newUser.setPrimaryemail(user.getPrimaryemail()
+            .toLowerCase());
+
+        for (UserRoles ur : user.getRoles())
+        {
+            newUser.getRoles()
+                .add(new UserRoles(newUser,
+                    entityManager.getReference(Role.class,
+                        ur.getRole()
+                            .getRoleid())));
+        }
+        for (Useremail ue : user.getUseremails())
+        {
+            newUser.getUseremails()
+                .add(new Useremail(newUser,
+                    ue.getUseremail()));
+        }
+        entityManager.persist(newUser);
+        return newUser;
+    }
+
+    /**
+     * Builds a validation error
+     *
+     * @param code    the value (String) in error
+     * @param message what (String) is wrong with it
+     * @return the validation error
+     */
+    private static ValidationError error(
+        String code,
+        String message)
+    {
+        ValidationError ve = new ValidationError();
+        ve.setCode(code);
+        ve.setMessage(message);
+        return ve;
+    }
+}
@@ -0,0 +1,253 @@
+package com.lambdaschool.usermodel.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.lambdaschool.usermodel.models.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * A bounded, in process cache of users sitting in front of the User Service.
+ * <p>
+ * Users are found by userid or by lowercase username. Entries are evicted when the cache is full
+ * or when they reach their time to live. Hit, miss and eviction counts are reported through the
+ * metrics registry as the caches users.byid and users.byname.
+ * <p>
+ * Concurrent misses for the same user share one read of the database, counted as the flights users.byid
+ * and users.byname, see {@link SingleFlight}.
+ * <p>
+ * Cached users are shared between requests so they are read only. Anything that changes a user must
+ * go to the database for its own copy and then evict the user from this cache.
+ */
+@Component
+public class UserCache
+{
+    /**
+     * The most users to hold in the cache
+     */
+    @Value("${usermodel.cache.users.maximum-size:10000}")
+    private long maximumSize;
+
+    /**
+     * How long, in seconds, a user stays in the cache after being loaded
+     */
+    @Value("${usermodel.cache.users.expire-after-write-seconds:300}")
+    private long expireAfterWriteSeconds;
+
+    /**
+     * Where the cache statistics are reported
+     */
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * The users keyed by userid
+     */
+    private Cache<Long, User> byId;
+
+    /**
+     * The userid of users keyed by lowercase username
+     */
+    private Cache<String, Long> byName;
+
+    /**
+     * The reads of users by userid in flight
+     */
+    private SingleFlight<Long, User> byIdFlights;
+
+    /**
+     * The reads of users by lowercase username in flight
+     */
+    private SingleFlight<String, User> byNameFlights;
+
+    /**
+     * Builds the caches once the configuration has been injected
+     */
+    @PostConstruct
+    public void init()
+    {
+        byId = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(expireAfterWriteSeconds,
+                TimeUnit.SECONDS)
+            .recordStats()
+            .build();
+        byName = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(expireAfterWriteSeconds,
+                TimeUnit.SECONDS)
+            .recordStats()
+            .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry,
+            byId,
+            "users.byid");
+        CaffeineCacheMetrics.monitor(meterRegistry,
+            byName,
+            "users.byname");
+
+        byIdFlights = new SingleFlight<>("users.byid",
+            meterRegistry);
+        byNameFlights = new SingleFlight<>("users.byname",
+            meterRegistry);
+    }
+
+    /**
+     * Returns the user with the given userid, loading and caching it if it is not cached
+     *
+     * @param userid the primary key (long) of the user you seek
+     * @param loader reads the user from the database. May throw an exception if the user does not exist,
+     *               in which case nothing is cached. Called once for concurrent callers asking for the same user.
+     * @return the user you seek
+     */
+    public User get(
+        long userid,
+        Function<Long, User> loader)
+    {
+        User u = byId.getIfPresent(userid);
+        if (u != null)
+        {
+            return u;
+        }
+        return byIdFlights.run(userid,
+            () -> byId.get(userid,
+                id -> cacheable(loader.apply(id))));
+    }
+
+    /**
+     * Returns the user with the given username, loading and caching it if it is not cached
+     *
+     * @param username the lowercase username (String) of the user you seek
+     * @param loader   reads the user from the database. May throw an exception if the user does not exist,
+     *                 in which case nothing is cached. Called once for concurrent callers asking for the same user.
+     * @return the user you seek
+     */
+    public User getByName(
+        String username,
+        Function<String, User> loader)
+    {
+        Long userid = byName.getIfPresent(username);
+        if (userid != null)
+        {
+            User u = byId.getIfPresent(userid);
+            // the user may have been renamed since the name was cached
+            if (u != null && username.equals(u.getUsername()))
+            {
+                return u;
+            }
+        }
+
+        return byNameFlights.run(username,
+            () ->
+            {
+                User loaded = cacheable(loader.apply(username));
+                byId.put(loaded.getUserid(),
+                    loaded);
+                byName.put(username,
+                    loaded.getUserid());
+                return loaded;
+            });
+    }
+
+    /**
+     * Removes the user with the given userid from the cache, both by userid and by username.
+     * Later misses read the user again rather than wait for a read already in flight.
+     * <p>
+     * If a transaction is active the user is removed again once the transaction completes, so that a
+     * read racing with the change cannot leave the old version of the user in the cache.
+     *
+     * @param userid the primary key (long) of the user to remove
+     */
+    public void evict(long userid)
+    {
+        nowAndAfterCompletion(() -> evictNow(userid));
+    }
+
+    /**
+     * Removes the users with the given userids from the cache, as evict does for one user, with one removal
+     * once any active transaction completes for all of them
+     *
+     * @param userids the primary keys (Long) of the users to remove
+     */
+    public void evict(Collection<Long> userids)
+    {
+        nowAndAfterCompletion(() -> userids.forEach(this::evictNow));
+    }
+
+    /**
+     * Removes every user from the cache, now and again once any active transaction completes
+     */
+    public void evictAll()
+    {
+        nowAndAfterCompletion(() ->
+        {
+            byId.invalidateAll();
+            byName.invalidateAll();
+            byIdFlights.forgetAll();
+            byNameFlights.forgetAll();
+        });
+    }
+
+    /**
+     * Runs the eviction now and, if a transaction is active, again once it completes
+     *
+     * @param eviction the entries to remove
+     */
+    private void nowAndAfterCompletion(Runnable eviction)
+    {
+        eviction.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive())
+        {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization()
+            {
+                @Override
+                public void afterCompletion(int status)
+                {
+                    eviction.run();
+                }
+            });
+        }
+    }
+
+    /**
+     * Removes the user from both caches
+     *
+     * @param userid the primary key (long) of the user to remove
+     */
+    private void evictNow(long userid)
+    {
+        User u = byId.getIfPresent(userid);
+        byId.invalidate(userid);
+        if (u != null)
+        {
+            byName.invalidate(u.getUsername());
+        }
+        byIdFlights.forget(userid);
+        // the username being read may not be known, and evictions are rare
+        byNameFlights.forgetAll();
+    }
+
+    /**
+     * Reads the lazy collections of the user so it can be used once its session is gone
+     *
+     * @param u the user about to be cached
+     * @return the same user
+     */
+    private User cacheable(User u)
+    {
+        Hibernate.initialize(u.getUseremails());
+        Hibernate.initialize(u.getRoles());
+        return u;
+    }
+}
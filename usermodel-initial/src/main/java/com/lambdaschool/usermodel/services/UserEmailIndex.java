@@ -0,0 +1,242 @@
+package com.lambdaschool.usermodel.services;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * An in memory hash index from each lowercase email address, primary or not, to the userids of the users having it.
+ * Used to find a user by email without going to the database.
+ * <p>
+ * The userids of an address are kept as an array of primitive longs that is never changed once published,
+ * so lookups never lock. Most addresses belong to one user.
+ * <p>
+ * The index starts cold. It is filled from the database once the application is ready, see UserIndexLoader,
+ * and kept up to date by the User and Useremail Services. Until it is warm, lookups must go to the database.
+ * It may be a commit behind, so users found through it must be checked.
+ */
+@Component
+public class UserEmailIndex
+{
+    /**
+     * The userids having each address
+     */
+    private volatile Map<String, long[]> userids = new ConcurrentHashMap<>();
+
+    /**
+     * The indexed addresses of each userid, needed to remove the user's addresses when they change.
+     * Only used by writes, which are synchronized.
+     */
+    private Map<Long, Set<String>> emails = new HashMap<>();
+
+    /**
+     * True once the index holds every user
+     */
+    private volatile boolean warm = false;
+
+    /**
+     * Is the index complete enough to answer lookups
+     *
+     * @return true if every user has been indexed
+     */
+    public boolean isWarm()
+    {
+        return warm;
+    }
+
+    /**
+     * Replaces the contents of the index with the given addresses and marks the index warm
+     *
+     * @param rows every address in the database, each an array holding the userid (Number) then the address (String)
+     */
+    public synchronized void load(Stream<Object[]> rows)
+    {
+        Map<String, long[]> oldUserids = userids;
+        Map<Long, Set<String>> oldEmails = emails;
+
+        userids = new ConcurrentHashMap<>();
+        emails = new HashMap<>();
+        try
+        {
+            rows.forEach(row -> add(((Number) row[0]).longValue(),
+                (String) row[1]));
+        } catch (RuntimeException e)
+        {
+            userids = oldUserids;
+            emails = oldEmails;
+            throw e;
+        }
+        warm = true;
+    }
+
+    /**
+     * Replaces the contents of the index with the rows read from the given source, reading them while holding
+     * the lock the writes take so that no write is lost to the load, see UsernameTrigramIndex#load(Supplier)
+     *
+     * @param source opens a stream of every address in the database, closed once read
+     */
+    public synchronized void load(Supplier<Stream<Object[]>> source)
+    {
+        try (Stream<Object[]> rows = source.get())
+        {
+            load(rows);
+        }
+    }
+
+    /**
+     * Replaces the addresses of a user in the index
+     *
+     * @param userid    the primary key (long) of the user
+     * @param addresses every address (String) of the user, primary or not
+     */
+    public synchronized void put(
+        long userid,
+        Collection<String> addresses)
+    {
+        remove(userid);
+        for (String address : addresses)
+        {
+            add(userid,
+                address);
+        }
+    }
+
+    /**
+     * Adds one address of a user to the index
+     *
+     * @param userid  the primary key (long) of the user
+     * @param address the address (String) to add
+     */
+    public synchronized void add(
+        long userid,
+        String address)
+    {
+        String key = address.toLowerCase();
+        if (!emails.computeIfAbsent(userid,
+            id -> new LinkedHashSet<>())
+            .add(key))
+        {
+            return;
+        }
+
+        long[] had = userids.get(key);
+        if (had == null)
+        {
+            userids.put(key,
+                new long[]{userid});
+        } else
+        {
+            long[] more = Arrays.copyOf(had,
+                had.length + 1);
+            more[had.length] = userid;
+            userids.put(key,
+                more);
+        }
+    }
+
+    /**
+     * Removes one address of a user from the index
+     *
+     * @param userid  the primary key (long) of the user
+     * @param address the address (String) to remove
+     */
+    public synchronized void remove(
+        long userid,
+        String address)
+    {
+        String key = address.toLowerCase();
+        Set<String> had = emails.get(userid);
+        if (had == null || !had.remove(key))
+        {
+            return;
+        }
+        if (had.isEmpty())
+        {
+            emails.remove(userid);
+        }
+        unlink(userid,
+            key);
+    }
+
+    /**
+     * Removes every address of a user from the index
+     *
+     * @param userid the primary key (long) of the user
+     */
+    public synchronized void remove(long userid)
+    {
+        Set<String> had = emails.remove(userid);
+        if (had != null)
+        {
+            for (String key : had)
+            {
+                unlink(userid,
+                    key);
+            }
+        }
+    }
+
+    /**
+     * Removes every address from the index. The index stays warm, as it now matches an empty users table.
+     */
+    public synchronized void clear()
+    {
+        userids = new ConcurrentHashMap<>();
+        emails.clear();
+    }
+
+    /**
+     * Finds the users having the given address
+     *
+     * @param address the address (String) you seek, any case
+     * @return the userids of the users having the address, empty if none
+     */
+    public long[] search(String address)
+    {
+        long[] found = userids.get(address.toLowerCase());
+        return (found == null) ? new long[0] : found;
+    }
+
+    /**
+     * Drops the userid from the users having the address
+     *
+     * @param userid the primary key (long) of the user
+     * @param key    the lowercase address
+     */
+    private void unlink(
+        long userid,
+        String key)
+    {
+        long[] had = userids.get(key);
+        if (had == null)
+        {
+            return;
+        }
+        long[] fewer = new long[had.length];
+        int n = 0;
+        for (long id : had)
+        {
+            if (id != userid)
+            {
+                fewer[n++] = id;
+            }
+        }
+        if (n == 0)
+        {
+            userids.remove(key);
+        } else if (n < had.length)
+        {
+            userids.put(key,
+                Arrays.copyOf(fewer,
+                    n));
+        }
+    }
+}
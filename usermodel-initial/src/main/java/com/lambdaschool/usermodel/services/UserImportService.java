@@ -0,0 +1,50 @@
+package com.lambdaschool.usermodel.services;
+
+import com.lambdaschool.usermodel.models.UserImportReport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+/**
+ * The Service that imports users from CSV or newline delimited JSON files, for migrations too large for
+ * UserBatchService alone
+ * <p>
+ * A CSV file has a header naming its columns: username, password and primaryemail, and optionally useremails and
+ * roles. Several useremails or role names in one column are separated by semicolons. A newline delimited JSON file
+ * holds one user per line, given as to POST /users/user.
+ */
+public interface UserImportService
+{
+    /**
+     * Imports the users of a file, see {@link #importUsers(InputStream, String)}
+     *
+     * @param file   The path of the file
+     * @param format csv or ndjson. If null, taken from the extension of the file: .csv is CSV, anything else
+     *               newline delimited JSON.
+     * @return how many users were read, created and rejected, how fast, and why users were rejected
+     * @throws IOException if the file cannot be read
+     */
+    UserImportReport importFile(
+        Path file,
+        String format) throws IOException;
+
+    /**
+     * Creates each user read from the stream, as UserBatchService.saveAll does.
+     * <p>
+     * The stream is read by one thread, a bounded number of chunks ahead of the writing. A username or primary
+     * email seen earlier in the stream is rejected without going to the database. The chunks are checked and
+     * written by several threads at once, each chunk in its own transaction, so an import may be partly done
+     * and the users are not created in the order of the stream. A user that cannot be created is reported and does
+     * not stop the others. A row that cannot be read is rejected, unless the CSV itself is broken, which ends the
+     * import.
+     *
+     * @param in     The users
+     * @param format csv or ndjson
+     * @return how many users were read, created and rejected, how fast, and why users were rejected
+     * @throws IOException if the stream cannot be read
+     */
+    UserImportReport importUsers(
+        InputStream in,
+        String format) throws IOException;
+}
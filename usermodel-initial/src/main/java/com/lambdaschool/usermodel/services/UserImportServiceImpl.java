@@ -0,0 +1,641 @@
+package com.lambdaschool.usermodel.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.lambdaschool.usermodel.exceptions.ResourceFoundException;
+import com.lambdaschool.usermodel.exceptions.ResourceNotFoundException;
+import com.lambdaschool.usermodel.models.Role;
+import com.lambdaschool.usermodel.models.User;
+import com.lambdaschool.usermodel.models.UserBatchResult;
+import com.lambdaschool.usermodel.models.UserImportReport;
+import com.lambdaschool.usermodel.models.UserRoles;
+import com.lambdaschool.usermodel.models.Useremail;
+import com.lambdaschool.usermodel.models.ValidationError;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Implements the UserImportService Interface
+ * <p>
+ * Not Transactional. The chunks of users are handed to UserBatchService, which checks and writes each chunk in
+ * its own transaction, with Hibernate batching the inserts, and keeps the in memory indexes up to date.
+ */
+@Service(value = "userImportService")
+public class UserImportServiceImpl
+    implements UserImportService
+{
+    private static final Logger logger = LoggerFactory.getLogger(UserImportServiceImpl.class);
+
+    /**
+     * Progress is logged each time this many more users have been written
+     */
+    private static final long PROGRESS_ROWS = 100000;
+
+    /**
+     * Writes each chunk of users
+     */
+    @Autowired
+    private UserBatchService userBatchService;
+
+    /**
+     * Looks up the roles named in a CSV file
+     */
+    @Autowired
+    private RoleService roleService;
+
+    /**
+     * Reads the users of a newline delimited JSON file
+     */
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * The number of users handed to UserBatchService at once
+     */
+    @Value("${usermodel.import.chunk-size:1000}")
+    private int chunkSize;
+
+    /**
+     * The number of chunks checked and written at once
+     */
+    @Value("${usermodel.import.threads:4}")
+    private int threads;
+
+    /**
+     * The most chunks read ahead of the writing
+     */
+    @Value("${usermodel.import.queued-chunks:8}")
+    private int queuedChunks;
+
+    /**
+     * The most rejected users listed in a report
+     */
+    @Value("${usermodel.import.max-rejections:1000}")
+    private int maxRejections;
+
+    @Override
+    public UserImportReport importFile(
+        Path file,
+        String format) throws IOException
+    {
+        if (format == null)
+        {
+            format = file.getFileName()
+                .toString()
+                .toLowerCase(Locale.ROOT)
+                .endsWith(".csv") ? "csv" : "ndjson";
+        }
+        try (InputStream in = Files.newInputStream(file))
+        {
+            return importUsers(in,
+                format);
+        }
+    }
+
+    @Override
+    public UserImportReport importUsers(
+        InputStream in,
+        String format) throws IOException
+    {
+        String fmt = (format == null) ? "" : format.toLowerCase(Locale.ROOT);
+        if (!fmt.equals("csv") && !fmt.equals("ndjson"))
+        {
+            throw new ResourceFoundException("Import format must be csv or ndjson, not " + format);
+        }
+
+        Import run = new Import(fmt);
+        try
+        {
+            if (fmt.equals("csv"))
+            {
+                readCsv(in,
+                    run);
+            } else
+            {
+                readNdjson(in,
+                    run);
+            }
+            run.submit();
+        } finally
+        {
+            run.finish();
+        }
+        return run.report();
+    }
+
+    /**
+     * Reads the users of a CSV file with a header. Stops at the first row that cannot be parsed.
+     *
+     * @param in  the file
+     * @param run the import
+     * @throws IOException if the file cannot be read
+     */
+    private void readCsv(
+        InputStream in,
+        Import run) throws IOException
+    {
+        MappingIterator<Map<String, String>> rows = new CsvMapper().readerFor(Map.class)
+            .with(CsvSchema.emptySchema()
+                .withHeader())
+            .readValues(in);
+        int row = 0;
+        while (true)
+        {
+            Map<String, String> values;
+            try
+            {
+                if (!rows.hasNextValue())
+                {
+                    break;
+                }
+                values = rows.nextValue();
+            } catch (IOException | RuntimeException e)
+            {
+                run.reject(row,
+                    null,
+                    "unreadable",
+                    NestedExceptionUtils.getMostSpecificCause(e)
+                        .getMessage());
+                break;
+            }
+
+            User user = fromCsv(row,
+                values,
+                run);
+            if (user != null)
+            {
+                run.add(row,
+                    user);
+            }
+            row++;
+        }
+    }
+
+    /**
+     * Builds a user from a row of a CSV file, rejecting the row if it names a role that does not exist
+     *
+     * @param row    the position of the row in the file
+     * @param values the columns of the row, by name
+     * @param run    the import
+     * @return the new user, with the fields missing from the row left null, or null if the row was rejected
+     */
+    private User fromCsv(
+        int row,
+        Map<String, String> values,
+        Import run)
+    {
+        User user = new User();
+        if (!isBlank(values.get("username")))
+        {
+            user.setUsername(values.get("username")
+                .trim());
+        }
+        if (!isBlank(values.get("password")))
+        {
+            user.setPassword(values.get("password"));
+        }
+        if (!isBlank(values.get("primaryemail")))
+        {
+            user.setPrimaryemail(values.get("primaryemail")
+                .trim());
+        }
+        for (String useremail : split(values.get("useremails")))
+        {
+            user.getUseremails()
+                .add(new Useremail(user,
+                    useremail));
+        }
+        for (String name : split(values.get("roles")))
+        {
+            Role role = new Role();
+            try
+            {
+                role.setRoleid(roleService.findByName(name)
+                    .getRoleid());
+            } catch (ResourceNotFoundException e)
+            {
+                run.reject(row,
+                    values.get("username"),
+                    name,
+                    "Role not found!");
+                return null;
+            }
+            user.getRoles()
+                .add(new UserRoles(user,
+                    role));
+        }
+        return user;
+    }
+
+    /**
+     * Reads the users of a newline delimited JSON file, one user per line. Blank lines are skipped.
+     *
+     * @param in  the file
+     * @param run the import
+     * @throws IOException if the file cannot be read
+     */
+    private void readNdjson(
+        InputStream in,
+        Import run) throws IOException
+    {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in,
+            StandardCharsets.UTF_8));
+        int row = 0;
+        String line;
+        while ((line = reader.readLine()) != null)
+        {
+            if (line.isBlank())
+            {
+                continue;
+            }
+            try
+            {
+                run.add(row,
+                    objectMapper.readValue(line,
+                        User.class));
+            } catch (JsonProcessingException e)
+            {
+                run.reject(row,
+                    null,
+                    "unreadable",
+                    e.getOriginalMessage());
+            }
+            row++;
+        }
+    }
+
+    /**
+     * One import of users. Used by the reading thread, apart from the counts and rejections, which the writing
+     * threads add to.
+     */
+    private class Import
+    {
+        /**
+         * What the import did
+         */
+        private final UserImportReport report;
+
+        /**
+         * When the import started, in nanoseconds
+         */
+        private final long started = System.nanoTime();
+
+        /**
+         * The usernames read so far
+         */
+        private final Set<String> usernames = new HashSet<>();
+
+        /**
+         * The primary emails read so far
+         */
+        private final Set<String> primaryemails = new HashSet<>();
+
+        /**
+         * The users of the chunk being read
+         */
+        private List<User> chunk = new ArrayList<>(chunkSize);
+
+        /**
+         * The positions in the file of the users of the chunk being read
+         */
+        private List<Integer> chunkRows = new ArrayList<>(chunkSize);
+
+        /**
+         * The number of users read
+         */
+        private long rows;
+
+        /**
+         * Checks and writes the chunks
+         */
+        private final ExecutorService writers = Executors.newFixedThreadPool(threads,
+            new CustomizableThreadFactory("user-import-"));
+
+        /**
+         * Bounds the chunks read but not yet written
+         */
+        private final Semaphore inFlight = new Semaphore(threads + queuedChunks);
+
+        /**
+         * The number of users created
+         */
+        private final AtomicLong created = new AtomicLong();
+
+        /**
+         * The number of users rejected
+         */
+        private final AtomicLong rejected = new AtomicLong();
+
+        /**
+         * The first users rejected. Guarded by itself.
+         */
+        private final List<UserBatchResult> rejections = new ArrayList<>();
+
+        private Import(String format)
+        {
+            report = new UserImportReport(format);
+        }
+
+        /**
+         * Adds a user read to the chunk being read, unless its username or primary email was read before.
+         * Writes the chunk once it is full.
+         *
+         * @param row  the position of the user in the file
+         * @param user the user read
+         */
+        private void add(
+            int row,
+            User user)
+        {
+            rows++;
+            if (user.getUsername() != null && !usernames.add(user.getUsername()))
+            {
+                rejected(row,
+                    user.getUsername(),
+                    user.getUsername(),
+                    "username appears earlier in the file");
+                return;
+            }
+            if (user.getPrimaryemail() != null && !primaryemails.add(user.getPrimaryemail()))
+            {
+                rejected(row,
+                    user.getUsername(),
+                    user.getPrimaryemail(),
+                    "primaryemail appears earlier in the file");
+                return;
+            }
+            chunk.add(user);
+            chunkRows.add(row);
+            if (chunk.size() == chunkSize)
+            {
+                submit();
+            }
+        }
+
+        /**
+         * Rejects a row that could not be read into a user
+         *
+         * @param row      the position of the row in the file
+         * @param username the username given in the row, if known
+         * @param code     the value, or part of the row, in error
+         * @param message  what is wrong with it
+         */
+        private void reject(
+            int row,
+            String username,
+            String code,
+            String message)
+        {
+            rows++;
+            rejected(row,
+                username,
+                code,
+                message);
+        }
+
+        /**
+         * Hands the chunk being read to a writing thread, waiting while too many chunks are waiting to be written
+         */
+        private void submit()
+        {
+            if (chunk.isEmpty())
+            {
+                return;
+            }
+            List<User> users = chunk;
+            List<Integer> positions = chunkRows;
+            chunk = new ArrayList<>(chunkSize);
+            chunkRows = new ArrayList<>(chunkSize);
+
+            inFlight.acquireUninterruptibly();
+            writers.execute(() ->
+            {
+                try
+                {
+                    write(users,
+                        positions);
+                } finally
+                {
+                    inFlight.release();
+                }
+            });
+        }
+
+        /**
+         * Checks and writes one chunk. Runs on a writing thread.
+         *
+         * @param users     the users of the chunk
+         * @param positions the positions of the users in the file
+         */
+        private void write(
+            List<User> users,
+            List<Integer> positions)
+        {
+            List<UserBatchResult> results;
+            try
+            {
+                results = userBatchService.saveAll(users.iterator());
+            } catch (RuntimeException e)
+            {
+                logger.error("Could not import {} users",
+                    users.size(),
+                    e);
+                for (int i = 0; i < users.size(); i++)
+                {
+                    rejected(positions.get(i),
+                        users.get(i)
+                            .getUsername(),
+                        "database",
+                        NestedExceptionUtils.getMostSpecificCause(e)
+                            .getMessage());
+                }
+                return;
+            }
+
+            long written = 0;
+            for (int i = 0; i < results.size(); i++)
+            {
+                UserBatchResult result = results.get(i);
+                if (result.getUserid() != null)
+                {
+                    written++;
+                } else
+                {
+                    result.setIndex(positions.get(i));
+                    rejected(result);
+                }
+            }
+            long total = created.addAndGet(written);
+            if (total / PROGRESS_ROWS != (total - written) / PROGRESS_ROWS)
+            {
+                logger.info("Imported {} users, {} rejected, {} users/s",
+                    total,
+                    rejected.get(),
+                    Math.round(perSecond(total)));
+            }
+        }
+
+        /**
+         * Counts a rejected user, listing it if there is room
+         *
+         * @param row      the position of the user in the file
+         * @param username the username given for the user, if known
+         * @param code     the value in error
+         * @param message  what is wrong with it
+         */
+        private void rejected(
+            int row,
+            String username,
+            String code,
+            String message)
+        {
+            UserBatchResult result = new UserBatchResult(row,
+                username);
+            ValidationError ve = new ValidationError();
+            ve.setCode(code);
+            ve.setMessage(message);
+            result.setErrors(Collections.singletonList(ve));
+            rejected(result);
+        }
+
+        /**
+         * Counts a rejected user, listing it if there is room
+         *
+         * @param result the user and why it was rejected
+         */
+        private void rejected(UserBatchResult result)
+        {
+            rejected.incrementAndGet();
+            synchronized (rejections)
+            {
+                if (rejections.size() < maxRejections)
+                {
+                    rejections.add(result);
+                }
+            }
+        }
+
+        /**
+         * Waits for every chunk to be written
+         */
+        private void finish()
+        {
+            writers.shutdown();
+            try
+            {
+                while (!writers.awaitTermination(1,
+                    TimeUnit.MINUTES))
+                {
+                    logger.info("Waiting for the import to finish writing, {} users imported",
+                        created.get());
+                }
+            } catch (InterruptedException e)
+            {
+                writers.shutdownNow();
+                Thread.currentThread()
+                    .interrupt();
+            }
+        }
+
+        /**
+         * The users written per second so far
+         *
+         * @param users the number of users written
+         * @return users per second
+         */
+        private double perSecond(long users)
+        {
+            double seconds = (System.nanoTime() - started) / 1e9;
+            return (seconds > 0) ? users / seconds : 0;
+        }
+
+        /**
+         * Completes the report, once every chunk is written
+         *
+         * @return what the import did
+         */
+        private UserImportReport report()
+        {
+            report.setRows(rows);
+            report.setCreated(created.get());
+            report.setRejected(rejected.get());
+            report.setElapsedMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+            report.setUsersPerSecond(perSecond(created.get()));
+            synchronized (rejections)
+            {
+                List<UserBatchResult> sorted = new ArrayList<>(rejections);
+                sorted.sort(Comparator.comparingInt(UserBatchResult::getIndex));
+                report.setRejections(sorted);
+            }
+            logger.info("Imported {} of {} users in {} ms, {} users/s, {} rejected",
+                report.getCreated(),
+                report.getRows(),
+                report.getElapsedMillis(),
+                Math.round(report.getUsersPerSecond()),
+                report.getRejected());
+            return report;
+        }
+    }
+
+    /**
+     * The values of a column holding several, separated by semicolons
+     *
+     * @param column the column, possibly null
+     * @return the values, trimmed, without empty ones
+     */
+    private static List<String> split(String column)
+    {
+        List<String> values = new ArrayList<>();
+        if (column != null)
+        {
+            for (String value : column.split(";"))
+            {
+                if (!value.isBlank())
+                {
+                    values.add(value.trim());
+                }
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Is the value missing
+     *
+     * @param value a column of a row, possibly null
+     * @return true if the value is null or only whitespace
+     */
+    private static boolean isBlank(String value)
+    {
+        return value == null || value.isBlank();
+    }
+}
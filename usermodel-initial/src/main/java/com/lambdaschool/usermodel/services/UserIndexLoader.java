@@ -0,0 +1,61 @@
+package com.lambdaschool.usermodel.services;
+
+import com.lambdaschool.usermodel.models.UserSummary;
+import com.lambdaschool.usermodel.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Fills the in memory user indexes from the database once the application, including any seed data, is ready.
+ * Searches go to the database until this has finished.
+ */
+@Component
+public class UserIndexLoader
+{
+    /**
+     * Connects this loader to the User table
+     */
+    @Autowired
+    private UserRepository userrepos;
+
+    /**
+     * The index of usernames by trigram
+     */
+    @Autowired
+    private UsernameTrigramIndex trigramIndex;
+
+    /**
+     * The index of usernames by prefix
+     */
+    @Autowired
+    private UsernamePrefixIndex prefixIndex;
+
+    /**
+     * The index of email addresses
+     */
+    @Autowired
+    private UserEmailIndex emailIndex;
+
+    /**
+     * The index of the users holding each role
+     */
+    @Autowired
+    private RoleMembershipIndex membershipIndex;
+
+    /**
+     * Reads the userid and username, the email addresses and the roles of every user into the indexes. Each index
+     * reads its rows holding its own lock, so writes committed while it loads are not lost.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void load()
+    {
+        trigramIndex.load(userrepos::streamSummaries);
+        prefixIndex.load(userrepos::streamSummaries);
+        emailIndex.load(userrepos::streamEmails);
+        membershipIndex.load(userrepos::streamUserRoles);
+    }
+}
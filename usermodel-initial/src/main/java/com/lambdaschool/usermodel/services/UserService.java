@@ -1,8 +1,13 @@
 package com.lambdaschool.usermodel.services;
 
 import com.lambdaschool.usermodel.models.User;
+import com.lambdaschool.usermodel.models.UserSummary;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * The Service that works with User Model.
@@ -20,6 +25,44 @@ public interface UserService
      */
     List<User> findAll();
 
+    /**
+     * Returns one page of Users
+     *
+     * @param pageable The page number, page size and sort order of the page you seek
+     * @return The requested page of Users along with the total number of Users
+     */
+    Page<User> findAll(Pageable pageable);
+
+    /**
+     * Returns the Users whose userid comes after the given userid, in userid order.
+     * The last userid returned is the cursor for the next call.
+     *
+     * @param userid The last userid (long) already seen. Use 0 to start from the beginning.
+     * @param size   The maximum number of Users to return
+     * @return List of at most size Users. If no more users, empty list.
+     */
+    List<User> findAllAfter(
+        long userid,
+        int size);
+
+    /**
+     * Returns the Users with the given primary keys, read with one query, in the order the keys are given.
+     * Users that do not exist are left out.
+     *
+     * @param ids The primary keys (Long) of the Users you seek, without duplicates
+     * @return List of the Users found, in the order of ids
+     */
+    List<User> findAllById(Collection<Long> ids);
+
+    /**
+     * Hands every User, in userid order, to the given action one at a time without building a list.
+     * Each User is detached once the action returns, so memory does not grow with the number of users.
+     * Lazy collections of a User can only be read inside the action.
+     *
+     * @param action What to do with each User
+     */
+    void forEachUser(Consumer<User> action);
+
     /**
      * A list of all users whose username contains the given substring
      *
@@ -28,6 +71,17 @@ public interface UserService
      */
     List<User> findByNameContaining(String username);
 
+    /**
+     * The first users, in username order, whose username starts with the given string
+     *
+     * @param prefix The start (String) of the usernames of the Users you seek
+     * @param limit  The most users to return
+     * @return List of the userid and username of users whose username starts with prefix
+     */
+    List<UserSummary> findByNameStarting(
+        String prefix,
+        int limit);
+
     /**
      * Returns the user with the given primary key.
      *
@@ -44,6 +98,148 @@ public interface UserService
      */
     User findByName(String name);
 
+    /**
+     * Returns the user having the given email address, as their primary email or as one of their useremails.
+     * If several users have the address, the user having it as their primary email is returned.
+     *
+     * @param email The email address (String) of the User you seek, any case
+     * @return The User with the given email or throws an exception if not found.
+     */
+    User findByEmail(String email);
+
+    /**
+     * Does the user hold the role with the given name. Answered from memory once the role membership index is warm.
+     *
+     * @param id       The primary key (long) of the user
+     * @param roleName The name (String) of the role, any case
+     * @return true if the user holds the role, false if not or if there is no such user
+     */
+    boolean hasRole(
+        long id,
+        String roleName);
+
+    /**
+     * Counts the users holding every role named in all, at least one role named in any, and no role named in none.
+     * At least one of all and any must be given.
+     *
+     * @param all  The names (String) of the roles each user must hold
+     * @param any  The names (String) of the roles of which each user must hold one
+     * @param none The names (String) of the roles no user may hold
+     * @return the number of users matching
+     */
+    long countByRoles(
+        Collection<String> all,
+        Collection<String> any,
+        Collection<String> none);
+
+    /**
+     * Returns the userids of the users holding every role named in all, at least one role named in any, and no
+     * role named in none, coming after the given userid, in userid order. Answered from memory when it can be,
+     * so the userids may be a commit behind.
+     * At least one of all and any must be given.
+     *
+     * @param all    The names (String) of the roles each user must hold
+     * @param any    The names (String) of the roles of which each user must hold one
+     * @param none   The names (String) of the roles no user may hold
+     * @param userid The last userid (long) already seen, 0 to start from the first user
+     * @param size   The most userids to return
+     * @return List of the next userids (Long) matching
+     */
+    List<Long> findIdsByRoles(
+        Collection<String> all,
+        Collection<String> any,
+        Collection<String> none,
+        long userid,
+        int size);
+
+    /**
+     * Returns the summaries of the users holding every role named in all, at least one role named in any, and no
+     * role named in none, whose userid comes after the given userid, in userid order.
+     * At least one of all and any must be given.
+     *
+     * @param all    The names (String) of the roles each user must hold
+     * @param any    The names (String) of the roles of which each user must hold one
+     * @param none   The names (String) of the roles no user may hold
+     * @param userid The last userid (long) already seen, 0 to start from the first user
+     * @param size   The most summaries to return
+     * @return List of the summaries of the next users matching
+     */
+    List<UserSummary> findSummariesByRoles(
+        Collection<String> all,
+        Collection<String> any,
+        Collection<String> none,
+        long userid,
+        int size);
+
+    /**
+     * Returns one page of the userid, username and primary email of the Users, without reading their
+     * useremails or roles
+     *
+     * @param pageable The page number, page size and sort order of the page you seek
+     * @return The requested page of user summaries along with the total number of Users
+     */
+    Page<UserSummary> findAllSummaries(Pageable pageable);
+
+    /**
+     * Returns the summaries of the Users whose userid comes after the given userid, in userid order
+     *
+     * @param userid The last userid (long) already seen. Use 0 to start from the beginning.
+     * @param size   The maximum number of summaries to return
+     * @return List of at most size user summaries. If no more users, empty list.
+     */
+    List<UserSummary> findAllSummariesAfter(
+        long userid,
+        int size);
+
+    /**
+     * Returns the summaries of the Users with the given primary keys, in the order the keys are given.
+     * Users that do not exist are left out.
+     *
+     * @param ids The primary keys (Long) of the Users you seek, without duplicates
+     * @return List of the summaries of the Users found, in the order of ids
+     */
+    List<UserSummary> findAllSummariesById(Collection<Long> ids);
+
+    /**
+     * Hands the summary of every User, in userid order, to the given action one at a time without building a list
+     *
+     * @param action What to do with each user summary
+     */
+    void forEachUserSummary(Consumer<UserSummary> action);
+
+    /**
+     * The summaries of all users whose username contains the given substring
+     *
+     * @param username The substring (String) of the username of the Users you seek
+     * @return List of the summaries of users whose username contains the given substring
+     */
+    List<UserSummary> findSummariesByNameContaining(String username);
+
+    /**
+     * Returns the summary of the user having the given email address, as their primary email or as one of their
+     * useremails. If several users have the address, the user having it as their primary email is returned.
+     *
+     * @param email The email address (String) of the User you seek, any case
+     * @return The summary of the User with the given email or throws an exception if not found.
+     */
+    UserSummary findSummaryByEmail(String email);
+
+    /**
+     * Returns the summary of the user with the given primary key
+     *
+     * @param id The primary key (long) of the user you seek.
+     * @return The summary of the given User or throws an exception if not found.
+     */
+    UserSummary findSummaryById(long id);
+
+    /**
+     * Returns the summary of the user with the given name
+     *
+     * @param name The full name (String) of the User you seek.
+     * @return The summary of the User with the given name or throws an exception if not found.
+     */
+    UserSummary findSummaryByName(String name);
+
     /**
      * Deletes the user record and its useremail items from the database based off of the provided primary key
      *
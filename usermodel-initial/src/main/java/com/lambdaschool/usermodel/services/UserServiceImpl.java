@@ -4,14 +4,33 @@ import com.lambdaschool.usermodel.exceptions.ResourceNotFoundException;
 import com.lambdaschool.usermodel.models.Role;
 import com.lambdaschool.usermodel.models.User;
 import com.lambdaschool.usermodel.models.UserRoles;
+import com.lambdaschool.usermodel.models.UserSummary;
 import com.lambdaschool.usermodel.models.Useremail;
 import com.lambdaschool.usermodel.repository.UserRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Implements UserService Interface
@@ -33,17 +52,118 @@ public class UserServiceImpl
     @Autowired
     private RoleService roleService;
 
+    /**
+     * The cache of users read through this service
+     */
+    @Autowired
+    private UserCache userCache;
+
+    /**
+     * The in memory index answering username contains searches
+     */
+    @Autowired
+    private UsernameTrigramIndex trigramIndex;
+
+    /**
+     * The in memory index answering username starts with searches
+     */
+    @Autowired
+    private UsernamePrefixIndex prefixIndex;
+
+    /**
+     * The in memory index answering lookups by email
+     */
+    @Autowired
+    private UserEmailIndex emailIndex;
+
+    /**
+     * The in memory index answering role checks
+     */
+    @Autowired
+    private RoleMembershipIndex membershipIndex;
+
+    /**
+     * Used to update the username and email indexes once changes are committed
+     */
+    @Autowired
+    private HelperFunctions helperFunctions;
+
+    /**
+     * Where the number of rows each update writes is reported
+     */
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * The persistence context, used to detach users as they are streamed
+     */
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * How many lazy collections Hibernate loads in one statement
+     */
+    @Value("${spring.jpa.properties.hibernate.default_batch_fetch_size:100}")
+    private int batchFetchSize;
+
     public User findUserById(long id) throws
                                       ResourceNotFoundException
     {
-        return userrepos.findById(id)
-            .orElseThrow(() -> new ResourceNotFoundException("User id " + id + " not found!"));
+        return userCache.get(id,
+            key -> userrepos.findById(key)
+                .orElseThrow(() -> new ResourceNotFoundException("User id " + id + " not found!")));
     }
 
     @Override
     public List<User> findByNameContaining(String username)
     {
-        return userrepos.findByUsernameContainingIgnoreCase(username.toLowerCase());
+        String part = username.toLowerCase();
+        if (!indexAnswers(part))
+        {
+            return withCollections(userrepos.findByUsernameContainingIgnoreCase(part));
+        }
+
+        List<Long> ids = trigramIndex.search(part);
+        List<User> list = new ArrayList<>(ids.size());
+        // the index may be a commit behind, so check each user read actually matches
+        for (List<Long> chunk : chunks(ids))
+        {
+            userrepos.findAllById(chunk)
+                .forEach(u ->
+                {
+                    if (u.getUsername()
+                        .contains(part))
+                    {
+                        list.add(u);
+                    }
+                });
+        }
+        list.sort(Comparator.comparingLong(User::getUserid));
+        return withCollections(list);
+    }
+
+    @Override
+    public List<UserSummary> findByNameStarting(
+        String prefix,
+        int limit)
+    {
+        String start = prefix.toLowerCase();
+        if (prefixIndex.isWarm())
+        {
+            return prefixIndex.search(start,
+                limit);
+        }
+
+        List<UserSummary> list = new ArrayList<>();
+        for (User u : userrepos.findByUsernameStartingWithOrderByUsernameAsc(start,
+            PageRequest.of(0,
+                limit)))
+        {
+            list.add(new UserSummary(u.getUserid(),
+                u.getUsername(),
+                null));
+        }
+        return list;
     }
 
     @Override
@@ -57,9 +177,137 @@ public class UserServiceImpl
         userrepos.findAll()
             .iterator()
             .forEachRemaining(list::add);
+        return withCollections(list);
+    }
+
+    @Override
+    public List<User> findAllById(Collection<Long> ids)
+    {
+        if (ids.isEmpty())
+        {
+            return new ArrayList<>();
+        }
+        Map<Long, User> found = new HashMap<>();
+        userrepos.findAllById(ids)
+            .forEach(u -> found.put(u.getUserid(),
+                u));
+        return withCollections(inOrder(ids,
+            found));
+    }
+
+    @Override
+    public List<UserSummary> findAllSummariesById(Collection<Long> ids)
+    {
+        if (ids.isEmpty())
+        {
+            return new ArrayList<>();
+        }
+        Map<Long, UserSummary> found = new HashMap<>();
+        userrepos.findSummariesById(ids)
+            .forEach(u -> found.put(u.getUserid(),
+                u));
+        return inOrder(ids,
+            found);
+    }
+
+    /**
+     * Lists what was found for each id, in the order of the ids, leaving out ids not found
+     *
+     * @param ids   the ids in the order wanted
+     * @param found what was found, by id
+     * @param <T>   the type of what was found
+     * @return List of what was found, in the order of ids
+     */
+    private <T> List<T> inOrder(
+        Collection<Long> ids,
+        Map<Long, T> found)
+    {
+        List<T> list = new ArrayList<>(found.size());
+        for (Long id : ids)
+        {
+            T t = found.get(id);
+            if (t != null)
+            {
+                list.add(t);
+            }
+        }
         return list;
     }
 
+    @Transactional(readOnly = true)
+    @Override
+    public void forEachUser(Consumer<User> action)
+    {
+        // Users are handed out in groups so that reading the collections of the first user of the group
+        // batch loads the collections of the whole group.
+        List<User> group = new ArrayList<>(batchFetchSize);
+        try (Stream<User> users = userrepos.streamAll())
+        {
+            users.forEach(u ->
+            {
+                group.add(u);
+                if (group.size() == batchFetchSize)
+                {
+                    forEachAndDetach(group,
+                        action);
+                }
+            });
+        }
+        forEachAndDetach(group,
+            action);
+    }
+
+    /**
+     * Hands each user of the group to the action, then detaches the group and empties it
+     *
+     * @param group  the users to process
+     * @param action what to do with each user
+     */
+    private void forEachAndDetach(
+        List<User> group,
+        Consumer<User> action)
+    {
+        group.forEach(action);
+        // cascades to the user's useremails and roles
+        group.forEach(entityManager::detach);
+        group.clear();
+    }
+
+    @Override
+    public Page<User> findAll(Pageable pageable)
+    {
+        return withCollections(userrepos.findAll(pageable));
+    }
+
+    @Override
+    public List<User> findAllAfter(
+        long userid,
+        int size)
+    {
+        return withCollections(userrepos.findByUseridGreaterThanOrderByUseridAsc(userid,
+            PageRequest.of(0,
+                size)));
+    }
+
+    /**
+     * Reads the useremails and roles of each user while the transaction is open, so the users can be written
+     * out as JSON after it ends. The collections are read in batches, see hibernate.default_batch_fetch_size,
+     * so this costs a few statements however many users there are.
+     *
+     * @param users the users about to be returned
+     * @param <T>   the type of the collection of users
+     * @return the same users
+     */
+    private static <T extends Iterable<User>> T withCollections(T users)
+    {
+        for (User u : users)
+        {
+            Hibernate.initialize(u.getUseremails());
+            Hibernate.initialize(u.getRoles());
+        }
+        return users;
+    }
+
     @Transactional
     @Override
     public void delete(long id)
@@ -67,12 +315,108 @@ public class UserServiceImpl
         userrepos.findById(id)
             .orElseThrow(() -> new ResourceNotFoundException("User id " + id + " not found!"));
         userrepos.deleteById(id);
+        userCache.evict(id);
+        helperFunctions.afterCommit(() ->
+        {
+            trigramIndex.remove(id);
+            prefixIndex.remove(id);
+            emailIndex.remove(id);
+            membershipIndex.remove(id);
+        });
     }
 
     @Override
     public User findByName(String name)
     {
-        User uu = userrepos.findByUsername(name.toLowerCase());
+        return userCache.getByName(name.toLowerCase(),
+            key ->
+            {
+                User uu = userrepos.findByUsername(key);
+                if (uu == null)
+                {
+                    throw new ResourceNotFoundException("User name " + name + " not found!");
+                }
+                return uu;
+            });
+    }
+
+    @Override
+    public Page<UserSummary> findAllSummaries(Pageable pageable)
+    {
+        return userrepos.findAllSummaries(pageable);
+    }
+
+    @Override
+    public List<UserSummary> findAllSummariesAfter(
+        long userid,
+        int size)
+    {
+        return userrepos.findSummariesAfter(userid,
+            PageRequest.of(0,
+                size));
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public void forEachUserSummary(Consumer<UserSummary> action)
+    {
+        try (Stream<UserSummary> users = userrepos.streamSummaries())
+        {
+            users.forEach(action);
+        }
+    }
+
+    @Override
+    public List<UserSummary> findSummariesByNameContaining(String username)
+    {
+        String part = username.toLowerCase();
+        if (!indexAnswers(part))
+        {
+            return userrepos.findSummariesByUsernameContaining(part);
+        }
+
+        List<Long> ids = trigramIndex.search(part);
+        List<UserSummary> list = new ArrayList<>(ids.size());
+        // the index may be a commit behind, so check each user read actually matches
+        for (List<Long> chunk : chunks(ids))
+        {
+            for (UserSummary u : userrepos.findSummariesById(chunk))
+            {
+                if (u.getUsername()
+                    .contains(part))
+                {
+                    list.add(u);
+                }
+            }
+        }
+        list.sort(Comparator.comparingLong(UserSummary::getUserid));
+        return list;
+    }
+
+    @Override
+    public UserSummary findSummaryById(long id) throws
+                                                ResourceNotFoundException
+    {
+        return userrepos.findSummaryById(id)
+            .orElseThrow(() -> new ResourceNotFoundException("User id " + id + " not found!"));
+    }
+
+    @Override
+    public UserSummary findSummaryByEmail(String email)
+    {
+        // one indexed statement finds the userid, without the entity reads the email index needs to check it
+        List<Long> ids = userrepos.findUseridsByEmail(email.toLowerCase());
+        if (ids.isEmpty())
+        {
+            throw new ResourceNotFoundException("User email " + email + " not found!");
+        }
+        return findSummaryById(ids.get(0));
+    }
+
+    @Override
+    public UserSummary findSummaryByName(String name)
+    {
+        UserSummary uu = userrepos.findSummaryByUsername(name.toLowerCase());
         if (uu == null)
         {
             throw new ResourceNotFoundException("User name " + name + " not found!");
@@ -80,17 +424,244 @@ public class UserServiceImpl
         return uu;
     }
 
+    @Override
+    public User findByEmail(String email)
+    {
+        String address = email.toLowerCase();
+        if (emailIndex.isWarm())
+        {
+            // the index may be a commit behind, so check each user read actually has the address
+            User found = null;
+            for (long id : emailIndex.search(address))
+            {
+                User u;
+                try
+                {
+                    u = findUserById(id);
+                } catch (ResourceNotFoundException e)
+                {
+                    continue;
+                }
+                if (address.equals(u.getPrimaryemail()))
+                {
+                    return u;
+                }
+                if (found == null && hasUseremail(u,
+                    address))
+                {
+                    found = u;
+                }
+            }
+            if (found != null)
+            {
+                return found;
+            }
+        }
+
+        List<Long> ids = userrepos.findUseridsByEmail(address);
+        if (ids.isEmpty())
+        {
+            throw new ResourceNotFoundException("User email " + email + " not found!");
+        }
+        return findUserById(ids.get(0));
+    }
+
+    @Override
+    public boolean hasRole(
+        long id,
+        String roleName)
+    {
+        long roleid = roleService.findByName(roleName)
+            .getRoleid();
+        if (membershipIndex.isWarm())
+        {
+            return membershipIndex.hasRole(id,
+                roleid);
+        }
+
+        User u;
+        try
+        {
+            u = findUserById(id);
+        } catch (ResourceNotFoundException e)
+        {
+            return false;
+        }
+        for (UserRoles ur : u.getRoles())
+        {
+            if (ur.getRole()
+                .getRoleid() == roleid)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public long countByRoles(
+        Collection<String> all,
+        Collection<String> any,
+        Collection<String> none)
+    {
+        List<Long> allIds = roleids(all);
+        List<Long> anyIds = roleids(any);
+        List<Long> noneIds = roleids(none);
+        return membershipOf(allIds,
+            anyIds,
+            noneIds).count(allIds,
+            anyIds,
+            noneIds);
+    }
+
+    @Override
+    public List<Long> findIdsByRoles(
+        Collection<String> all,
+        Collection<String> any,
+        Collection<String> none,
+        long userid,
+        int size)
+    {
+        List<Long> allIds = roleids(all);
+        List<Long> anyIds = roleids(any);
+        List<Long> noneIds = roleids(none);
+        return membershipOf(allIds,
+            anyIds,
+            noneIds).search(allIds,
+            anyIds,
+            noneIds,
+            userid,
+            size);
+    }
+
+    @Override
+    public List<UserSummary> findSummariesByRoles(
+        Collection<String> all,
+        Collection<String> any,
+        Collection<String> none,
+        long userid,
+        int size)
+    {
+        // users deleted since the index was updated are left out by the read of the summaries
+        return findAllSummariesById(findIdsByRoles(all,
+            any,
+            none,
+            userid,
+            size));
+    }
+
+    /**
+     * Whether the trigram index can answer a search for the given username substring. It cannot until it is warm,
+     * nor for a substring shorter than a trigram, which is then searched for in the database.
+     *
+     * @param part the substring (String) of the username, in lowercase
+     * @return true if the substring is to be searched for in the index
+     */
+    private boolean indexAnswers(String part)
+    {
+        return part.length() >= UsernameTrigramIndex.GRAM && trigramIndex.isWarm();
+    }
+
+    /**
+     * Splits userids into chunks of at most hibernate.default_batch_fetch_size, so that reading the users of
+     * many userids never binds them all to one statement
+     *
+     * @param ids the userids
+     * @return the userids in chunks, in their order
+     */
+    private List<List<Long>> chunks(List<Long> ids)
+    {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += batchFetchSize)
+        {
+            chunks.add(ids.subList(i,
+                Math.min(i + batchFetchSize,
+                    ids.size())));
+        }
+        return chunks;
+    }
+
+    /**
+     * The roleids of the named roles
+     *
+     * @param names the names (String) of roles, any case
+     * @return the roleid of each role
+     * @throws ResourceNotFoundException if a role does not exist
+     */
+    private List<Long> roleids(Collection<String> names)
+    {
+        List<Long> ids = new ArrayList<>(names.size());
+        for (String name : names)
+        {
+            ids.add(roleService.findByName(name)
+                .getRoleid());
+        }
+        return ids;
+    }
+
+    /**
+     * The role membership index if it is warm. Otherwise an index of just the given roles, read from the database.
+     *
+     * @param roleids the roleids (Long) whose users are needed, in any number of collections
+     * @return an index holding at least the users of the given roles
+     */
+    @SafeVarargs
+    private RoleMembershipIndex membershipOf(Collection<Long>... roleids)
+    {
+        if (membershipIndex.isWarm())
+        {
+            return membershipIndex;
+        }
+        Set<Long> ids = new HashSet<>();
+        for (Collection<Long> c : roleids)
+        {
+            ids.addAll(c);
+        }
+        RoleMembershipIndex index = new RoleMembershipIndex();
+        if (!ids.isEmpty())
+        {
+            index.load(userrepos.findUserRolesByRoleids(ids)
+                .stream());
+        }
+        return index;
+    }
+
+    /**
+     * Does the user have the given address as one of their useremails
+     *
+     * @param user    the user to check
+     * @param address the lowercase address
+     * @return true if one of the user's useremails is the address
+     */
+    private boolean hasUseremail(
+        User user,
+        String address)
+    {
+        for (Useremail ue : user.getUseremails())
+        {
+            if (address.equals(ue.getUseremail()))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Transactional
     @Override
     public User save(User user)
     {
-        User newUser = new User();
+        User newUser;
 
         if (user.getUserid() != 0)
         {
-            userrepos.findById(user.getUserid())
+            // not the cached copy, which is shared and read only
+            newUser = userrepos.findById(user.getUserid())
                 .orElseThrow(() -> new ResourceNotFoundException("User id " + user.getUserid() + " not found!"));
-            newUser.setUserid(user.getUserid());
+            userCache.evict(user.getUserid());
+        } else
+        {
+            newUser = new User();
         }
 
         newUser.setUsername(user.getUsername()
@@ -99,27 +670,19 @@ public class UserServiceImpl
         newUser.setPrimaryemail(user.getPrimaryemail()
             .toLowerCase());
 
-        newUser.getRoles()
-            .clear();
-        for (UserRoles ur : user.getRoles())
-        {
-            Role addRole = roleService.findRoleById(ur.getRole()
-                .getRoleid());
-            newUser.getRoles()
-                .add(new UserRoles(newUser,
-                    addRole));
-        }
-
-        newUser.getUseremails()
-            .clear();
-        for (Useremail ue : user.getUseremails())
+        int rows = replaceRoles(newUser,
+            user.getRoles()) + replaceUseremails(newUser,
+            user.getUseremails());
+        if (user.getUserid() != 0)
         {
-            newUser.getUseremails()
-                .add(new Useremail(newUser,
-                    ue.getUseremail()));
+            rowsWritten("save").record(rows);
         }
 
-        return userrepos.save(newUser);
+        User saved = userrepos.save(newUser);
+        indexAfterCommit(saved);
+        indexEmailsAfterCommit(saved);
+        indexRolesAfterCommit(saved);
+        return saved;
     }
 
     @Transactional
@@ -128,7 +691,10 @@ public class UserServiceImpl
         User user,
         long id)
     {
-        User currentUser = findUserById(id);
+        // not the cached copy, which is shared and read only
+        User currentUser = userrepos.findById(id)
+            .orElseThrow(() -> new ResourceNotFoundException("User id " + id + " not found!"));
+        userCache.evict(id);
 
         if (user.getUsername() != null)
         {
@@ -147,36 +713,245 @@ public class UserServiceImpl
                 .toLowerCase());
         }
 
+        int rows = 0;
         if (user.getRoles()
             .size() > 0)
         {
-            currentUser.getRoles()
-                .clear();
-            for (UserRoles ur : user.getRoles())
+            rows += replaceRoles(currentUser,
+                user.getRoles());
+        }
+
+        if (user.getUseremails()
+            .size() > 0)
+        {
+            rows += replaceUseremails(currentUser,
+                user.getUseremails());
+        }
+        rowsWritten("update").record(rows);
+
+        User saved = userrepos.save(currentUser);
+        if (user.getUsername() != null)
+        {
+            indexAfterCommit(saved);
+        }
+        if (user.getPrimaryemail() != null || user.getUseremails()
+            .size() > 0)
+        {
+            indexEmailsAfterCommit(saved);
+        }
+        if (user.getRoles()
+            .size() > 0)
+        {
+            indexRolesAfterCommit(saved);
+        }
+        return saved;
+    }
+
+    /**
+     * Makes the roles of the user match the wanted roles. Roles the user already has are left alone,
+     * so only the user role combinations that change are deleted or inserted.
+     *
+     * @param user   the user being saved
+     * @param wanted the roles the user should end up with. Only the roleid of each role is used.
+     * @return the number of user role combinations added or removed
+     */
+    private int replaceRoles(
+        User user,
+        Collection<UserRoles> wanted)
+    {
+        // copied first, as wanted may be the user's own collection
+        Set<Long> wantedids = new HashSet<>();
+        for (UserRoles ur : wanted)
+        {
+            wantedids.add(ur.getRole()
+                .getRoleid());
+        }
+
+        int rows = 0;
+        Set<Long> haveids = new HashSet<>();
+        Iterator<UserRoles> have = user.getRoles()
+            .iterator();
+        while (have.hasNext())
+        {
+            long roleid = have.next()
+                .getRole()
+                .getRoleid();
+            if (wantedids.contains(roleid))
             {
-                Role addRole = roleService.findRoleById(ur.getRole()
-                    .getRoleid());
+                haveids.add(roleid);
+            } else
+            {
+                have.remove();
+                rows++;
+            }
+        }
 
-                currentUser.getRoles()
-                    .add(new UserRoles(currentUser,
+        for (long roleid : wantedids)
+        {
+            if (!haveids.contains(roleid))
+            {
+                Role addRole = roleService.findRoleById(roleid);
+                user.getRoles()
+                    .add(new UserRoles(user,
                         addRole));
+                rows++;
             }
         }
+        return rows;
+    }
 
-        if (user.getUseremails()
-            .size() > 0)
+    /**
+     * Makes the emails of the user match the wanted emails. Emails the user already has keep their row,
+     * so only the emails that change are deleted or inserted.
+     *
+     * @param user   the user being saved
+     * @param wanted the emails the user should end up with. Only the useremail of each is used.
+     * @return the number of emails added or removed
+     */
+    private int replaceUseremails(
+        User user,
+        List<Useremail> wanted)
+    {
+        // how many times each email is wanted. Copied first, as wanted may be the user's own list
+        Map<String, Integer> wantedcounts = new HashMap<>();
+        List<String> wantedemails = new ArrayList<>();
+        for (Useremail ue : wanted)
+        {
+            wantedcounts.merge(ue.getUseremail(),
+                1,
+                Integer::sum);
+            wantedemails.add(ue.getUseremail());
+        }
+
+        int rows = 0;
+        Iterator<Useremail> have = user.getUseremails()
+            .iterator();
+        while (have.hasNext())
         {
-            currentUser.getUseremails()
-                .clear();
-            for (Useremail ue : user.getUseremails())
+            String email = have.next()
+                .getUseremail();
+            Integer count = wantedcounts.get(email);
+            if (count == null || count == 0)
             {
-                currentUser.getUseremails()
-                    .add(new Useremail(currentUser,
-                        ue.getUseremail()));
+                have.remove();
+                rows++;
+            } else
+            {
+                wantedcounts.put(email,
+                    count - 1);
             }
         }
 
-        return userrepos.save(currentUser);
+        for (String email : wantedemails)
+        {
+            int count = wantedcounts.get(email);
+            if (count > 0)
+            {
+                user.getUseremails()
+                    .add(new Useremail(user,
+                        email));
+                wantedcounts.put(email,
+                    count - 1);
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * The distribution of useremail and user role rows written per user save or update
+     *
+     * @param method the service method, save or update, doing the writing
+     * @return the distribution summary for that method
+     */
+    private DistributionSummary rowsWritten(String method)
+    {
+        return DistributionSummary.builder("users.update.rows")
+            .description("Useremail and user role rows inserted or deleted by one update of an existing user")
+            .baseUnit("rows")
+            .tag("method",
+                method)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Puts the username of the user in the username indexes once the current transaction commits
+     *
+     * @param user the user just saved
+     */
+    private void indexAfterCommit(User user)
+    {
+        long userid = user.getUserid();
+        String username = user.getUsername();
+        helperFunctions.afterCommit(() ->
+        {
+            trigramIndex.put(userid,
+                username);
+            prefixIndex.put(userid,
+                username);
+        });
+    }
+
+    /**
+     * Puts the roles of the user in the role membership index once the current transaction commits
+     *
+     * @param user the user just saved
+     */
+    private void indexRolesAfterCommit(User user)
+    {
+        long userid = user.getUserid();
+        List<Long> roleids = roleidsOf(user);
+        helperFunctions.afterCommit(() -> membershipIndex.put(userid,
+            roleids));
+    }
+
+    /**
+     * Lists the roleid of every role of the user
+     *
+     * @param user the user whose roles you seek
+     * @return the roleid of each role the user holds
+     */
+    static List<Long> roleidsOf(User user)
+    {
+        List<Long> roleids = new ArrayList<>(user.getRoles()
+            .size());
+        for (UserRoles ur : user.getRoles())
+        {
+            roleids.add(ur.getRole()
+                .getRoleid());
+        }
+        return roleids;
+    }
+
+    /**
+     * Puts the primary email and useremails of the user in the email index once the current transaction commits
+     *
+     * @param user the user just saved
+     */
+    private void indexEmailsAfterCommit(User user)
+    {
+        long userid = user.getUserid();
+        List<String> addresses = emailsOf(user);
+        helperFunctions.afterCommit(() -> emailIndex.put(userid,
+            addresses));
+    }
+
+    /**
+     * Lists every email address of the user
+     *
+     * @param user the user whose addresses you seek
+     * @return the primary email then each useremail of the user
+     */
+    static List<String> emailsOf(User user)
+    {
+        List<String> addresses = new ArrayList<>(user.getUseremails()
+            .size() + 1);
+        addresses.add(user.getPrimaryemail());
+        for (Useremail ue : user.getUseremails())
+        {
+            addresses.add(ue.getUseremail());
+        }
+        return addresses;
     }
 
     @Transactional
@@ -184,5 +959,13 @@ public class UserServiceImpl
     public void deleteAll()
     {
         userrepos.deleteAll();
+        userCache.evictAll();
+        helperFunctions.afterCommit(() ->
+        {
+            trigramIndex.clear();
+            prefixIndex.clear();
+            emailIndex.clear();
+            membershipIndex.clear();
+        });
     }
 }
@@ -4,12 +4,14 @@ import com.lambdaschool.usermodel.exceptions.ResourceNotFoundException;
 import com.lambdaschool.usermodel.models.User;
 import com.lambdaschool.usermodel.models.Useremail;
 import com.lambdaschool.usermodel.repository.UseremailRepository;
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Implements the UseremailService Interface
@@ -31,6 +33,24 @@ public class UseremailServiceImpl
     @Autowired
     private UserService userService;
 
+    /**
+     * The cache of users, which holds each user's emails
+     */
+    @Autowired
+    private UserCache userCache;
+
+    /**
+     * The in memory index answering lookups by email
+     */
+    @Autowired
+    private UserEmailIndex emailIndex;
+
+    /**
+     * Used to update the email index once changes are committed
+     */
+    @Autowired
+    private HelperFunctions helperFunctions;
+
     @Override
     public List<Useremail> findAll()
     {
@@ -42,24 +62,47 @@ public class UseremailServiceImpl
         useremailrepos.findAll()
             .iterator()
             .forEachRemaining(list::add);
+        list.forEach(UseremailServiceImpl::withRoles);
         return list;
     }
 
     @Override
     public Useremail findUseremailById(long id)
     {
-        return useremailrepos.findById(id)
-            .orElseThrow(() -> new ResourceNotFoundException("Useremail with id " + id + " Not Found!"));
+        return withRoles(useremailrepos.findById(id)
+            .orElseThrow(() -> new ResourceNotFoundException("Useremail with id " + id + " Not Found!")));
+    }
+
+    /**
+     * Reads the roles of the user of the useremail while the transaction is open, so the useremail can be
+     * written out as JSON after it ends
+     *
+     * @param useremail the useremail about to be returned
+     * @return the same useremail
+     */
+    private static Useremail withRoles(Useremail useremail)
+    {
+        Hibernate.initialize(useremail.getUser()
+            .getRoles());
+        return useremail;
     }
 
     @Transactional
     @Override
     public void delete(long id)
     {
-        if (useremailrepos.findById(id)
-            .isPresent())
+        Optional<Useremail> useremail = useremailrepos.findById(id);
+        if (useremail.isPresent())
         {
             useremailrepos.deleteById(id);
+            long userid = useremail.get()
+                .getUser()
+                .getUserid();
+            String address = useremail.get()
+                .getUseremail();
+            userCache.evict(userid);
+            helperFunctions.afterCommit(() -> emailIndex.remove(userid,
+                address));
         } else
         {
             throw new ResourceNotFoundException("Useremail with id " + id + " Not Found!");
@@ -76,7 +119,19 @@ public class UseremailServiceImpl
             .isPresent())
         {
             Useremail useremail = findUseremailById(useremailid);
+            long userid = useremail.getUser()
+                .getUserid();
+            String oldAddress = useremail.getUseremail();
             useremail.setUseremail(emailaddress.toLowerCase());
+            String newAddress = useremail.getUseremail();
+            userCache.evict(userid);
+            helperFunctions.afterCommit(() ->
+            {
+                emailIndex.remove(userid,
+                    oldAddress);
+                emailIndex.add(userid,
+                    newAddress);
+            });
             return useremailrepos.save(useremail);
         } else
         {
@@ -94,6 +149,10 @@ public class UseremailServiceImpl
 
         Useremail newUserEmail = new Useremail(currentUser,
             emailaddress);
+        userCache.evict(userid);
+        String address = newUserEmail.getUseremail();
+        helperFunctions.afterCommit(() -> emailIndex.add(userid,
+            address));
         return useremailrepos.save(newUserEmail);
     }
 }
@@ -0,0 +1,523 @@
+package com.lambdaschool.usermodel.services;
+
+import com.lambdaschool.usermodel.models.UserSummary;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * An in memory radix tree of lowercase usernames, used to answer "username starts with" searches without
+ * going to the database.
+ * <p>
+ * Each node holds a run of characters shared by every username below it, and the userid, as a primitive long,
+ * of the user whose username ends at that node. Nodes never change once built. A write copies the nodes on the
+ * path it changes and then swaps in the new root, so searches never lock and always see a whole tree.
+ * <p>
+ * The index starts cold. It is filled from the database once the application is ready, see UserIndexLoader,
+ * and kept up to date by the User Service. Until it is warm, searches must go to the database.
+ */
+@Component
+public class UsernamePrefixIndex
+{
+    /**
+     * The userid of a node no username ends at
+     */
+    private static final long NONE = -1;
+
+    /**
+     * A node of the tree. The children are kept in order of the first character of their label.
+     */
+    private static final class Node
+    {
+        private static final Node[] LEAF = new Node[0];
+
+        private final char[] label;
+
+        private final Node[] children;
+
+        private final long userid;
+
+        private Node(
+            char[] label,
+            Node[] children,
+            long userid)
+        {
+            this.label = label;
+            this.children = children;
+            this.userid = userid;
+        }
+    }
+
+    /**
+     * The root of the tree, with an empty label
+     */
+    private volatile Node root = new Node(new char[0],
+        Node.LEAF,
+        NONE);
+
+    /**
+     * The indexed username of each userid, needed to find the user's node when the user is renamed or removed.
+     * Only used by writes, which are synchronized.
+     */
+    private Map<Long, String> usernames = new HashMap<>();
+
+    /**
+     * True once the index holds every user
+     */
+    private volatile boolean warm = false;
+
+    /**
+     * Is the index complete enough to answer searches
+     *
+     * @return true if every user has been indexed
+     */
+    public boolean isWarm()
+    {
+        return warm;
+    }
+
+    /**
+     * Replaces the contents of the index with the given users and marks the index warm
+     *
+     * @param users every user in the database
+     */
+    public synchronized void load(Stream<UserSummary> users)
+    {
+        Node oldRoot = root;
+        Map<Long, String> oldUsernames = usernames;
+
+        root = new Node(new char[0],
+            Node.LEAF,
+            NONE);
+        usernames = new HashMap<>();
+        try
+        {
+            users.forEach(u -> put(u.getUserid(),
+                u.getUsername()));
+        } catch (RuntimeException e)
+        {
+            root = oldRoot;
+            usernames = oldUsernames;
+            throw e;
+        }
+        warm = true;
+    }
+
+    /**
+     * Replaces the contents of the index with the rows read from the given source, reading them while holding
+     * the lock the writes take so that no write is lost to the load, see UsernameTrigramIndex#load(Supplier)
+     *
+     * @param source opens a stream of every user in the database, closed once read
+     */
+    public synchronized void load(Supplier<Stream<UserSummary>> source)
+    {
+        try (Stream<UserSummary> users = source.get())
+        {
+            load(users);
+        }
+    }
+
+    /**
+     * Adds a user to the index, replacing the user's old username if it has one
+     *
+     * @param userid   the primary key (long) of the user
+     * @param username the username (String) of the user
+     */
+    public synchronized void put(
+        long userid,
+        String username)
+    {
+        String name = username.toLowerCase();
+        String old = usernames.put(userid,
+            name);
+        if (name.equals(old))
+        {
+            return;
+        }
+
+        Node r = root;
+        if (old != null)
+        {
+            r = remove(r,
+                old.toCharArray(),
+                0);
+        }
+        root = insert(r,
+            name.toCharArray(),
+            0,
+            userid);
+    }
+
+    /**
+     * Removes a user from the index
+     *
+     * @param userid the primary key (long) of the user
+     */
+    public synchronized void remove(long userid)
+    {
+        String old = usernames.remove(userid);
+        if (old != null)
+        {
+            root = remove(root,
+                old.toCharArray(),
+                0);
+        }
+    }
+
+    /**
+     * Removes every user from the index. The index stays warm, as it now matches an empty users table.
+     */
+    public synchronized void clear()
+    {
+        root = new Node(new char[0],
+            Node.LEAF,
+            NONE);
+        usernames.clear();
+    }
+
+    /**
+     * Finds the users whose username starts with the given string
+     *
+     * @param prefix the start (String) of the usernames you seek, any case
+     * @param limit  the most users to return
+     * @return up to limit users, in username order, holding just their userid and username
+     */
+    public List<UserSummary> search(
+        String prefix,
+        int limit)
+    {
+        char[] key = prefix.toLowerCase()
+            .toCharArray();
+        List<UserSummary> found = new ArrayList<>(Math.min(limit,
+            16));
+        StringBuilder path = new StringBuilder(prefix.length() + 16);
+
+        // walk down to the node holding the end of the prefix
+        Node n = root;
+        int i = 0;
+        while (i < key.length)
+        {
+            Node c = child(n,
+                key[i]);
+            if (c == null)
+            {
+                return found;
+            }
+            int l = common(c.label,
+                key,
+                i);
+            if (l < c.label.length && i + l < key.length)
+            {
+                return found;
+            }
+            path.append(c.label);
+            i += l;
+            n = c;
+        }
+
+        collect(n,
+            path,
+            limit,
+            found);
+        return found;
+    }
+
+    /**
+     * Adds the users at and below the node to the list, in username order, until the list is full
+     *
+     * @param n     the node to start at
+     * @param path  the username ending at the node
+     * @param limit the most users the list may hold
+     * @param found the users found so far
+     */
+    private static void collect(
+        Node n,
+        StringBuilder path,
+        int limit,
+        List<UserSummary> found)
+    {
+        if (n.userid != NONE)
+        {
+            found.add(new UserSummary(n.userid,
+                path.toString(),
+                null));
+        }
+        for (Node c : n.children)
+        {
+            if (found.size() >= limit)
+            {
+                return;
+            }
+            int length = path.length();
+            path.append(c.label);
+            collect(c,
+                path,
+                limit,
+                found);
+            path.setLength(length);
+        }
+    }
+
+    /**
+     * Returns a copy of the node with the key, from the offset on, added below it
+     *
+     * @param n      the node the key continues from
+     * @param key    the username being added
+     * @param offset how much of the key the node and its parents already cover
+     * @param userid the userid of the username
+     * @return the new node
+     */
+    private static Node insert(
+        Node n,
+        char[] key,
+        int offset,
+        long userid)
+    {
+        if (offset == key.length)
+        {
+            return new Node(n.label,
+                n.children,
+                userid);
+        }
+
+        int at = childIndex(n,
+            key[offset]);
+        if (at < 0)
+        {
+            Node leaf = new Node(Arrays.copyOfRange(key,
+                offset,
+                key.length),
+                Node.LEAF,
+                userid);
+            return new Node(n.label,
+                withChild(n.children,
+                    -at - 1,
+                    leaf),
+                n.userid);
+        }
+
+        Node c = n.children[at];
+        int l = common(c.label,
+            key,
+            offset);
+        Node replacement;
+        if (l == c.label.length)
+        {
+            replacement = insert(c,
+                key,
+                offset + l,
+                userid);
+        } else
+        {
+            // split the child where the key leaves its label
+            Node tail = new Node(Arrays.copyOfRange(c.label,
+                l,
+                c.label.length),
+                c.children,
+                c.userid);
+            Node split = new Node(Arrays.copyOf(c.label,
+                l),
+                new Node[]{tail},
+                NONE);
+            replacement = insert(split,
+                key,
+                offset + l,
+                userid);
+        }
+
+        Node[] children = n.children.clone();
+        children[at] = replacement;
+        return new Node(n.label,
+            children,
+            n.userid);
+    }
+
+    /**
+     * Returns a copy of the node with the key, from the offset on, removed from below it
+     *
+     * @param n      the node the key continues from
+     * @param key    the username being removed
+     * @param offset how much of the key the node and its parents already cover
+     * @return the new node, null if nothing is left of it
+     */
+    private static Node remove(
+        Node n,
+        char[] key,
+        int offset)
+    {
+        Node[] children = n.children;
+        long userid = n.userid;
+
+        if (offset == key.length)
+        {
+            userid = NONE;
+        } else
+        {
+            int at = childIndex(n,
+                key[offset]);
+            if (at < 0)
+            {
+                return n;
+            }
+            Node c = children[at];
+            int l = common(c.label,
+                key,
+                offset);
+            if (l < c.label.length)
+            {
+                return n;
+            }
+            Node replacement = remove(c,
+                key,
+                offset + l);
+            if (replacement == c)
+            {
+                return n;
+            }
+            children = children.clone();
+            if (replacement == null)
+            {
+                Node[] fewer = new Node[children.length - 1];
+                System.arraycopy(children,
+                    0,
+                    fewer,
+                    0,
+                    at);
+                System.arraycopy(children,
+                    at + 1,
+                    fewer,
+                    at,
+                    fewer.length - at);
+                children = fewer;
+            } else
+            {
+                children[at] = replacement;
+            }
+        }
+
+        // the root always stays, other nodes are dropped or merged into their only child
+        if (offset == 0 || userid != NONE || children.length > 1)
+        {
+            return new Node(n.label,
+                children,
+                userid);
+        }
+        if (children.length == 0)
+        {
+            return null;
+        }
+        Node only = children[0];
+        char[] label = Arrays.copyOf(n.label,
+            n.label.length + only.label.length);
+        System.arraycopy(only.label,
+            0,
+            label,
+            n.label.length,
+            only.label.length);
+        return new Node(label,
+            only.children,
+            only.userid);
+    }
+
+    /**
+     * Finds the child of the node whose label starts with the given character
+     *
+     * @param n     the parent node
+     * @param first the first character of the child's label
+     * @return the child, null if there is none
+     */
+    private static Node child(
+        Node n,
+        char first)
+    {
+        int at = childIndex(n,
+            first);
+        return (at < 0) ? null : n.children[at];
+    }
+
+    /**
+     * Binary searches the children of the node by the first character of their label
+     *
+     * @param n     the parent node
+     * @param first the first character of the child's label
+     * @return the index of the child, or -(insertion point) - 1 if there is none
+     */
+    private static int childIndex(
+        Node n,
+        char first)
+    {
+        int low = 0;
+        int high = n.children.length - 1;
+        while (low <= high)
+        {
+            int mid = (low + high) >>> 1;
+            char c = n.children[mid].label[0];
+            if (c < first)
+            {
+                low = mid + 1;
+            } else if (c > first)
+            {
+                high = mid - 1;
+            } else
+            {
+                return mid;
+            }
+        }
+        return -low - 1;
+    }
+
+    /**
+     * Returns a copy of the children with a new child placed at the given index
+     *
+     * @param children the current children
+     * @param at       where the new child goes
+     * @param child    the new child
+     * @return the new children
+     */
+    private static Node[] withChild(
+        Node[] children,
+        int at,
+        Node child)
+    {
+        Node[] more = new Node[children.length + 1];
+        System.arraycopy(children,
+            0,
+            more,
+            0,
+            at);
+        more[at] = child;
+        System.arraycopy(children,
+            at,
+            more,
+            at + 1,
+            children.length - at);
+        return more;
+    }
+
+    /**
+     * The length of the run the label shares with the key from the offset on
+     *
+     * @param label  the label of a node
+     * @param key    the username being looked at
+     * @param offset where in the key to start comparing
+     * @return the number of characters in common
+     */
+    private static int common(
+        char[] label,
+        char[] key,
+        int offset)
+    {
+        int l = 0;
+        while (l < label.length && offset + l < key.length && label[l] == key[offset + l])
+        {
+            l++;
+        }
+        return l;
+    }
+}
@@ -0,0 +1,245 @@
+package com.lambdaschool.usermodel.services;
+
+import com.lambdaschool.usermodel.models.UserSummary;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * An in memory trigram index over usernames, used to answer "username contains" searches without a table scan.
+ * <p>
+ * Every three character run of each lowercase username points to the userids having it. A search intersects the
+ * userids of the trigrams in the search string, then checks each candidate's username actually contains it.
+ * Search strings must be at least three characters long. Shorter ones are searched for in the database.
+ * <p>
+ * The index starts cold. It is filled from the database once the application is ready, see UserIndexLoader,
+ * and kept up to date by the User Service. Until it is warm, searches must go to the database.
+ */
+@Component
+public class UsernameTrigramIndex
+{
+    /**
+     * The length of the runs of characters indexed, and so the shortest string that can be searched for
+     */
+    public static final int GRAM = 3;
+
+    /**
+     * The username of each indexed userid
+     */
+    private volatile Map<Long, String> usernames = new ConcurrentHashMap<>();
+
+    /**
+     * The userids whose username contains each trigram
+     */
+    private volatile Map<String, Set<Long>> postings = new ConcurrentHashMap<>();
+
+    /**
+     * True once the index holds every user
+     */
+    private volatile boolean warm = false;
+
+    /**
+     * Is the index complete enough to answer searches
+     *
+     * @return true if every user has been indexed
+     */
+    public boolean isWarm()
+    {
+        return warm;
+    }
+
+    /**
+     * Replaces the contents of the index with the given users and marks the index warm
+     *
+     * @param users every user in the database
+     */
+    public synchronized void load(Stream<UserSummary> users)
+    {
+        Map<Long, String> oldUsernames = usernames;
+        Map<String, Set<Long>> oldPostings = postings;
+
+        usernames = new ConcurrentHashMap<>();
+        postings = new ConcurrentHashMap<>();
+        try
+        {
+            users.forEach(u -> put(u.getUserid(),
+                u.getUsername()));
+        } catch (RuntimeException e)
+        {
+            usernames = oldUsernames;
+            postings = oldPostings;
+            throw e;
+        }
+        warm = true;
+    }
+
+    /**
+     * Replaces the contents of the index with the users read from the given source and marks the index warm.
+     * <p>
+     * The source is read holding the lock the writes take. A write made before the read was committed before it,
+     * so its user is read, and a write made during the read waits and is applied on top. No write is lost to
+     * the load.
+     *
+     * @param source opens a stream of every user in the database, closed once read
+     */
+    public synchronized void load(Supplier<Stream<UserSummary>> source)
+    {
+        try (Stream<UserSummary> users = source.get())
+        {
+            load(users);
+        }
+    }
+
+    /**
+     * Adds a user to the index, replacing the user's old username if it has one
+     *
+     * @param userid   the primary key (long) of the user
+     * @param username the username (String) of the user
+     */
+    public synchronized void put(
+        long userid,
+        String username)
+    {
+        String name = username.toLowerCase();
+        String old = usernames.put(userid,
+            name);
+        if (name.equals(old))
+        {
+            return;
+        }
+        if (old != null)
+        {
+            removePostings(userid,
+                old);
+        }
+        for (String gram : trigrams(name))
+        {
+            postings.computeIfAbsent(gram,
+                g -> ConcurrentHashMap.newKeySet())
+                .add(userid);
+        }
+    }
+
+    /**
+     * Removes a user from the index
+     *
+     * @param userid the primary key (long) of the user
+     */
+    public synchronized void remove(long userid)
+    {
+        String old = usernames.remove(userid);
+        if (old != null)
+        {
+            removePostings(userid,
+                old);
+        }
+    }
+
+    /**
+     * Removes every user from the index. The index stays warm, as it now matches an empty users table.
+     */
+    public synchronized void clear()
+    {
+        usernames.clear();
+        postings.clear();
+    }
+
+    /**
+     * Finds the users whose username contains the given string
+     *
+     * @param fragment the string (String) to look for, any case, at least GRAM characters long
+     * @return the userids, in ascending order, of the users whose indexed username contains the fragment
+     * @throws IllegalArgumentException if the fragment is shorter than GRAM
+     */
+    public List<Long> search(String fragment)
+    {
+        String part = fragment.toLowerCase();
+        if (part.length() < GRAM)
+        {
+            throw new IllegalArgumentException("Search for at least " + GRAM + " characters");
+        }
+
+        Map<Long, String> names = usernames;
+        Map<String, Set<Long>> index = postings;
+        List<Long> found = new ArrayList<>();
+        List<Set<Long>> lists = new ArrayList<>();
+        for (String gram : trigrams(part))
+        {
+            Set<Long> ids = index.get(gram);
+            if (ids == null)
+            {
+                return found;
+            }
+            lists.add(ids);
+        }
+        // intersect starting from the rarest trigram
+        lists.sort(Comparator.comparingInt(Set::size));
+        for (Long id : lists.get(0))
+        {
+            boolean inAll = true;
+            for (int i = 1; i < lists.size() && inAll; i++)
+            {
+                inAll = lists.get(i)
+                    .contains(id);
+            }
+            String name = names.get(id);
+            if (inAll && name != null && name.contains(part))
+            {
+                found.add(id);
+            }
+        }
+
+        Collections.sort(found);
+        return found;
+    }
+
+    /**
+     * Removes the userid from the postings of each trigram of the username
+     *
+     * @param userid   the primary key (long) of the user
+     * @param username the indexed username (String) of the user
+     */
+    private void removePostings(
+        long userid,
+        String username)
+    {
+        for (String gram : trigrams(username))
+        {
+            Set<Long> ids = postings.get(gram);
+            if (ids != null)
+            {
+                ids.remove(userid);
+                if (ids.isEmpty())
+                {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    /**
+     * The distinct three character runs of the given string
+     *
+     * @param s the string (String) to split
+     * @return the trigrams of the string, empty if the string is shorter than three characters
+     */
+    private static Set<String> trigrams(String s)
+    {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= s.length(); i++)
+        {
+            grams.add(s.substring(i,
+                i + GRAM));
+        }
+        return grams;
+    }
+}
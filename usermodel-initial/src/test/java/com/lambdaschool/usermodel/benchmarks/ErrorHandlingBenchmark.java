@@ -0,0 +1,162 @@
+package com.lambdaschool.usermodel.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lambdaschool.usermodel.exceptions.ResourceNotFoundException;
+import com.lambdaschool.usermodel.handlers.RestExceptionHandler;
+import com.lambdaschool.usermodel.models.Useremail;
+import com.lambdaschool.usermodel.models.ValidationError;
+import com.lambdaschool.usermodel.services.HelperFunctionsImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.HttpRequestMethodNotSupportedException;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.ConstraintViolationException;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building the error responses: the Rest Exception Handler turning an exception into error details,
+ * written as JSON, and HelperFunctionsImpl.getConstraintViolation searching the causes of an exception for
+ * data violations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3,
+    time = 2)
+@Measurement(iterations = 5,
+    time = 2)
+@Fork(1)
+public class ErrorHandlingBenchmark
+{
+    /**
+     * The number of exceptions wrapped around the one thrown, as Spring and Hibernate wrap them
+     */
+    @Param({"1", "10"})
+    private int depth;
+
+    /**
+     * The number of data violations in the exception
+     */
+    @Param({"1", "20"})
+    private int violations;
+
+    private HelperFunctionsImpl helperFunctions;
+
+    private RestExceptionHandler restExceptionHandler;
+
+    private ObjectMapper objectMapper;
+
+    private WebRequest webRequest;
+
+    private RuntimeException violated;
+
+    private RuntimeException notViolated;
+
+    private ResourceNotFoundException notFound;
+
+    private HttpRequestMethodNotSupportedException methodNotSupported;
+
+    @Setup
+    public void setUp()
+    {
+        helperFunctions = new HelperFunctionsImpl();
+        restExceptionHandler = new RestExceptionHandler();
+        ReflectionTestUtils.setField(restExceptionHandler,
+            "helperFunctions",
+            helperFunctions);
+        objectMapper = new ObjectMapper();
+        webRequest = new ServletWebRequest(new MockHttpServletRequest("DELETE",
+            "/users/users"));
+
+        Validator validator = Validation.buildDefaultValidatorFactory()
+            .getValidator();
+        Set<ConstraintViolation<Useremail>> cvs = new HashSet<>();
+        for (int i = 0; i < violations; i++)
+        {
+            Useremail ue = new Useremail();
+            ue.setUseremail("not an email " + i);
+            cvs.addAll(validator.validate(ue));
+        }
+        violated = wrap(new ConstraintViolationException(cvs));
+        notViolated = wrap(new IllegalStateException("not a data violation"));
+        notFound = new ResourceNotFoundException("User id 42 not found!");
+        methodNotSupported = new HttpRequestMethodNotSupportedException("DELETE",
+            List.of("GET",
+                "POST"));
+    }
+
+    private RuntimeException wrap(RuntimeException cause)
+    {
+        RuntimeException e = cause;
+        for (int i = 0; i < depth; i++)
+        {
+            e = new RuntimeException("wrapped " + i,
+                e);
+        }
+        return e;
+    }
+
+    @Benchmark
+    public List<ValidationError> constraintViolation()
+    {
+        return helperFunctions.getConstraintViolation(violated);
+    }
+
+    @Benchmark
+    public List<ValidationError> noConstraintViolation()
+    {
+        return helperFunctions.getConstraintViolation(notViolated);
+    }
+
+    @Benchmark
+    public byte[] resourceNotFound() throws
+                                     Exception
+    {
+        ResponseEntity<?> response = restExceptionHandler.handleResourceNotFoundException(notFound);
+        return objectMapper.writeValueAsBytes(response.getBody());
+    }
+
+    @Benchmark
+    public byte[] methodNotSupported() throws
+                                       Exception
+    {
+        ResponseEntity<?> response = restExceptionHandler.handleException(methodNotSupported,
+            webRequest);
+        return objectMapper.writeValueAsBytes(response.getBody());
+    }
+
+    /**
+     * Runs just this benchmark
+     *
+     * @param args Not used
+     * @throws Exception if the benchmark cannot be run
+     */
+    public static void main(String[] args) throws
+                                           Exception
+    {
+        new Runner(new OptionsBuilder().include(ErrorHandlingBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
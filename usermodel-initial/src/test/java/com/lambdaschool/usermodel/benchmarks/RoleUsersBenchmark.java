@@ -0,0 +1,128 @@
+package com.lambdaschool.usermodel.benchmarks;
+
+import com.lambdaschool.usermodel.models.Role;
+import com.lambdaschool.usermodel.models.User;
+import com.lambdaschool.usermodel.models.UserRoles;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of filling Role.users, the way Hibernate does when it loads the members of a role.
+ * <p>
+ * constantHash is the old Role.users, a hash set of user role combinations whose hash code was 37 for every one.
+ * roleUsers is the current one, a list, as UserRoles.hashCode is now the roleid, which every member shares.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3,
+    time = 2)
+@Measurement(iterations = 5,
+    time = 2)
+@Fork(1)
+public class RoleUsersBenchmark
+{
+    /**
+     * The number of users holding the role
+     */
+    @Param({"1000", "10000"})
+    private int members;
+
+    private Role role;
+
+    private List<User> users;
+
+    /**
+     * A user role combination with the old, constant, hash code
+     */
+    static class ConstantHashUserRoles
+        extends UserRoles
+    {
+        ConstantHashUserRoles(
+            User user,
+            Role role)
+        {
+            super(user,
+                role);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return 37;
+        }
+    }
+
+    @Setup
+    public void setUp()
+    {
+        role = new Role("user");
+        role.setRoleid(2);
+
+        users = new ArrayList<>(members);
+        for (int i = 1; i <= members; i++)
+        {
+            User u = new User("user" + i,
+                "password",
+                "user" + i + "@lambdaschool.local");
+            u.setUserid(i);
+            users.add(u);
+        }
+    }
+
+    @Benchmark
+    public Set<UserRoles> constantHash()
+    {
+        Set<UserRoles> members = new HashSet<>();
+        for (User u : users)
+        {
+            members.add(new ConstantHashUserRoles(u,
+                role));
+        }
+        return members;
+    }
+
+    @Benchmark
+    public List<UserRoles> roleUsers()
+    {
+        Role r = new Role(role.getName());
+        r.setRoleid(role.getRoleid());
+        for (User u : users)
+        {
+            r.getUsers()
+                .add(new UserRoles(u,
+                    r));
+        }
+        return r.getUsers();
+    }
+
+    /**
+     * Runs just this benchmark
+     *
+     * @param args Not used
+     * @throws Exception if the benchmark cannot be run
+     */
+    public static void main(String[] args) throws
+                                           Exception
+    {
+        new Runner(new OptionsBuilder().include(RoleUsersBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
@@ -0,0 +1,131 @@
+package com.lambdaschool.usermodel.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.lambdaschool.usermodel.models.Role;
+import com.lambdaschool.usermodel.models.User;
+import com.lambdaschool.usermodel.models.UserRoles;
+import com.lambdaschool.usermodel.models.Useremail;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures turning lists of users, with their emails and roles, into JSON and back, with an object mapper
+ * set up as application.properties sets up the one the controllers use.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3,
+    time = 2)
+@Measurement(iterations = 5,
+    time = 2)
+@Fork(1)
+public class UserJsonBenchmark
+{
+    /**
+     * The number of users in the list
+     */
+    @Param({"1", "100"})
+    private int users;
+
+    /**
+     * The number of emails, and of roles, of each user
+     */
+    @Param({"1", "10", "50"})
+    private int children;
+
+    private ObjectMapper objectMapper;
+
+    private List<User> list;
+
+    private byte[] json;
+
+    @Setup
+    public void setUp() throws
+                        Exception
+    {
+        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        dateFormat.setTimeZone(TimeZone.getTimeZone("America/Los_Angeles"));
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+            .dateFormat(dateFormat)
+            .featuresToDisable(SerializationFeature.FAIL_ON_EMPTY_BEANS)
+            .build();
+
+        List<Role> roles = new ArrayList<>(children);
+        for (int i = 1; i <= children; i++)
+        {
+            Role r = new Role("role" + i);
+            r.setRoleid(i);
+            roles.add(r);
+        }
+
+        list = new ArrayList<>(users);
+        for (int i = 1; i <= users; i++)
+        {
+            User u = new User("user" + i,
+                "password",
+                "user" + i + "@lambdaschool.local");
+            u.setUserid(i);
+            for (int j = 0; j < children; j++)
+            {
+                Useremail ue = new Useremail(u,
+                    "user" + i + "." + j + "@email.local");
+                ue.setUseremailid((long) i * children + j);
+                u.getUseremails()
+                    .add(ue);
+                u.getRoles()
+                    .add(new UserRoles(u,
+                        roles.get(j)));
+            }
+            list.add(u);
+        }
+        json = objectMapper.writeValueAsBytes(list);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws
+                              Exception
+    {
+        return objectMapper.writeValueAsBytes(list);
+    }
+
+    @Benchmark
+    public User[] deserialize() throws
+                                Exception
+    {
+        return objectMapper.readValue(json,
+            User[].class);
+    }
+
+    /**
+     * Runs just this benchmark
+     *
+     * @param args Not used
+     * @throws Exception if the benchmark cannot be run
+     */
+    public static void main(String[] args) throws
+                                           Exception
+    {
+        new Runner(new OptionsBuilder().include(UserJsonBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
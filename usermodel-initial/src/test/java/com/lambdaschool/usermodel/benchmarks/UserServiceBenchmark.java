@@ -0,0 +1,168 @@
+package com.lambdaschool.usermodel.benchmarks;
+
+import com.lambdaschool.usermodel.UserModelApplicationTest;
+import com.lambdaschool.usermodel.models.Role;
+import com.lambdaschool.usermodel.models.User;
+import com.lambdaschool.usermodel.models.UserRoles;
+import com.lambdaschool.usermodel.models.Useremail;
+import com.lambdaschool.usermodel.services.RoleService;
+import com.lambdaschool.usermodel.services.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the User Service against the in memory database, with the application context the tests use
+ * and without the web server.
+ * <p>
+ * findAll reads the users and their emails and roles in one transaction, as a request does when the users
+ * are turned into JSON.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3,
+    time = 2)
+@Measurement(iterations = 5,
+    time = 2)
+@Fork(1)
+public class UserServiceBenchmark
+{
+    /**
+     * The number of users in the database
+     */
+    @Param({"100", "1000"})
+    private int users;
+
+    private ConfigurableApplicationContext context;
+
+    private UserService userService;
+
+    private TransactionTemplate transactionTemplate;
+
+    private Role role;
+
+    private long updatedid;
+
+    private long saved;
+
+    @Setup(Level.Trial)
+    public void setUp()
+    {
+        context = new SpringApplicationBuilder(UserModelApplicationTest.class).web(WebApplicationType.NONE)
+            .properties("command.line.runner.enabled=false",
+                "spring.main.banner-mode=off",
+                "logging.level.root=WARN")
+            .run();
+        userService = context.getBean(UserService.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+
+        role = context.getBean(RoleService.class)
+            .save(new Role("bench"));
+        for (int i = 0; i < users; i++)
+        {
+            User u = userService.save(newUser("seed" + i));
+            updatedid = u.getUserid();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown()
+    {
+        context.close();
+    }
+
+    private User newUser(String username)
+    {
+        User u = new User(username,
+            "password",
+            username + "@lambdaschool.local");
+        u.getRoles()
+            .add(new UserRoles(u,
+                role));
+        u.getUseremails()
+            .add(new Useremail(u,
+                username + "@email.local"));
+        u.getUseremails()
+            .add(new Useremail(u,
+                username + "@mymail.local"));
+        return u;
+    }
+
+    /**
+     * Adds a new user with one role and two emails
+     *
+     * @return the saved user
+     */
+    @Benchmark
+    public User save()
+    {
+        return userService.save(newUser("bench" + saved++));
+    }
+
+    /**
+     * Changes the password of one user, leaving its emails and roles alone
+     *
+     * @return the updated user
+     */
+    @Benchmark
+    public User update()
+    {
+        User u = new User();
+        u.setPassword("password" + (saved++ & 1));
+        return userService.update(u,
+            updatedid);
+    }
+
+    /**
+     * Reads every user with its emails and roles
+     *
+     * @return the number of emails and roles read
+     */
+    @Benchmark
+    public Integer findAll()
+    {
+        return transactionTemplate.execute(status ->
+        {
+            int rows = 0;
+            for (User u : userService.findAll())
+            {
+                rows += u.getUseremails()
+                    .size() + u.getRoles()
+                    .size();
+            }
+            return rows;
+        });
+    }
+
+    /**
+     * Runs just this benchmark
+     *
+     * @param args Not used
+     * @throws Exception if the benchmark cannot be run
+     */
+    public static void main(String[] args) throws
+                                           Exception
+    {
+        new Runner(new OptionsBuilder().include(UserServiceBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
@@ -1,11 +1,15 @@
 package com.lambdaschool.usermodel.controllers;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.lambdaschool.usermodel.UserModelApplicationTest;
 import com.lambdaschool.usermodel.models.Role;
 import com.lambdaschool.usermodel.models.User;
+import com.lambdaschool.usermodel.models.UserBatchResult;
 import com.lambdaschool.usermodel.models.UserRoles;
+import com.lambdaschool.usermodel.models.UserSummary;
 import com.lambdaschool.usermodel.models.Useremail;
+import com.lambdaschool.usermodel.services.UserBatchService;
 import com.lambdaschool.usermodel.services.UserService;
 import io.restassured.module.mockmvc.RestAssuredMockMvc;
 import org.junit.After;
@@ -18,6 +22,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
@@ -29,10 +35,18 @@ import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.junit.Assert.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 
@@ -53,6 +67,9 @@ public class UserControllerNoDBTest
     @MockBean
     private UserService userService;
 
+    @MockBean
+    private UserBatchService userBatchService;
+
     private List<User> userList;
 
     @Before
@@ -141,8 +158,8 @@ public class UserControllerNoDBTest
     public void listAllUsers() throws Exception
     {
         String apiUrl = "/users/users";
-        Mockito.when(userService.findAll())
-            .thenReturn(userList);
+        Mockito.when(userService.findAll(any(Pageable.class)))
+            .thenReturn(new PageImpl<>(userList));
 
         RequestBuilder rb = MockMvcRequestBuilders.get(apiUrl)
             .accept(MediaType.APPLICATION_JSON);
@@ -159,6 +176,115 @@ public class UserControllerNoDBTest
             tr);
     }
 
+    @Test
+    public void listAllUsersAfter() throws Exception
+    {
+        String apiUrl = "/users/users?after=0&size=2";
+        Mockito.when(userService.findAllAfter(0,
+            2))
+            .thenReturn(userList.subList(0,
+                2));
+
+        RequestBuilder rb = MockMvcRequestBuilders.get(apiUrl)
+            .accept(MediaType.APPLICATION_JSON);
+        MvcResult r = mockMvc.perform(rb)
+            .andReturn();
+        String tr = r.getResponse()
+            .getContentAsString();
+
+        ObjectMapper mapper = new ObjectMapper();
+        String er = mapper.writeValueAsString(userList.subList(0,
+            2));
+
+        assertEquals(er,
+            tr);
+        assertEquals("20",
+            r.getResponse()
+                .getHeader("X-Next-Cursor"));
+    }
+
+    @Test
+    public void listUsersById() throws Exception
+    {
+        String apiUrl = "/users/users?ids=30,10,40,30";
+        Mockito.when(userService.findAllById(new LinkedHashSet<>(Arrays.asList(30L,
+            10L,
+            40L))))
+            .thenReturn(Arrays.asList(userList.get(2),
+                userList.get(0)));
+
+        RequestBuilder rb = MockMvcRequestBuilders.get(apiUrl)
+            .accept(MediaType.APPLICATION_JSON);
+        MvcResult r = mockMvc.perform(rb)
+            .andReturn();
+        String tr = r.getResponse()
+            .getContentAsString();
+
+        ObjectMapper mapper = new ObjectMapper();
+        String er = mapper.writeValueAsString(Arrays.asList(userList.get(2),
+            userList.get(0)));
+
+        assertEquals(er,
+            tr);
+        assertEquals("40",
+            r.getResponse()
+                .getHeader("X-Missing-Ids"));
+    }
+
+    @Test
+    public void listUsersByIdTooMany() throws Exception
+    {
+        String apiUrl = "/users/users/ids";
+        List<Long> ids = new ArrayList<>();
+        for (long i = 1; i <= 501; i++)
+        {
+            ids.add(i);
+        }
+
+        RequestBuilder rb = MockMvcRequestBuilders.post(apiUrl)
+            .contentType(MediaType.APPLICATION_JSON)
+            .accept(MediaType.APPLICATION_JSON)
+            .content(new ObjectMapper().writeValueAsString(ids));
+        mockMvc.perform(rb)
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void streamAllUsers() throws Exception
+    {
+        String apiUrl = "/users/users/stream";
+        Mockito.doAnswer(invocation ->
+        {
+            Consumer<User> action = invocation.getArgument(0);
+            userList.forEach(action);
+            return null;
+        })
+            .when(userService)
+            .forEachUser(any());
+
+        RequestBuilder rb = MockMvcRequestBuilders.get(apiUrl)
+            .accept("application/x-ndjson");
+        MvcResult r = mockMvc.perform(rb)
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        String tr = mockMvc.perform(asyncDispatch(r))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+
+        ObjectMapper mapper = new ObjectMapper();
+        StringBuilder er = new StringBuilder();
+        for (User u : userList)
+        {
+            er.append(mapper.writeValueAsString(u))
+                .append('\n');
+        }
+
+        assertEquals(er.toString(),
+            tr);
+    }
+
     @Test
     public void getUserById() throws Exception
     {
@@ -181,6 +307,65 @@ public class UserControllerNoDBTest
             tr);
     }
 
+    @Test
+    public void getUserByIdFields() throws Exception
+    {
+        String apiUrl = "/users/user/10?fields=userid,username";
+        Mockito.when(userService.findSummaryById(10))
+            .thenReturn(new UserSummary(10,
+                "admin",
+                "admin@lambdaschool.local"));
+
+        RequestBuilder rb = MockMvcRequestBuilders.get(apiUrl)
+            .accept(MediaType.APPLICATION_JSON);
+        MvcResult r = mockMvc.perform(rb)
+            .andReturn();
+        String tr = r.getResponse()
+            .getContentAsString();
+
+        assertEquals("{\"userid\":10,\"username\":\"admin\"}",
+            tr);
+        Mockito.verify(userService,
+            Mockito.never())
+            .findUserById(anyLong());
+    }
+
+    @Test
+    public void listAllUsersFields() throws Exception
+    {
+        String apiUrl = "/users/users?fields=username,roles";
+        Mockito.when(userService.findAll(any(Pageable.class)))
+            .thenReturn(new PageImpl<>(userList.subList(2,
+                3)));
+
+        RequestBuilder rb = MockMvcRequestBuilders.get(apiUrl)
+            .accept(MediaType.APPLICATION_JSON);
+        MvcResult r = mockMvc.perform(rb)
+            .andReturn();
+        String tr = r.getResponse()
+            .getContentAsString();
+
+        ObjectMapper mapper = new ObjectMapper();
+        ObjectNode u = mapper.valueToTree(userList.get(2));
+        u.retain("username",
+            "roles");
+        String er = "[" + mapper.writeValueAsString(u) + "]";
+
+        assertEquals(er,
+            tr);
+    }
+
+    @Test
+    public void getUserByIdUnknownField() throws Exception
+    {
+        String apiUrl = "/users/user/10?fields=userid,password";
+
+        RequestBuilder rb = MockMvcRequestBuilders.get(apiUrl)
+            .accept(MediaType.APPLICATION_JSON);
+        mockMvc.perform(rb)
+            .andExpect(status().isBadRequest());
+    }
+
     @Test
     public void getUserByIdNotFound() throws Exception
     {
@@ -228,6 +413,104 @@ public class UserControllerNoDBTest
             tr);
     }
 
+    @Test
+    public void getUserByEmail() throws Exception
+    {
+        String apiUrl = "/users/user/email/Cinnamon@MyMail.local";
+
+        Mockito.when(userService.findByEmail("Cinnamon@MyMail.local"))
+            .thenReturn(userList.get(1));
+
+        RequestBuilder rb = MockMvcRequestBuilders.get(apiUrl)
+            .accept(MediaType.APPLICATION_JSON);
+        MvcResult r = mockMvc.perform(rb)
+            .andReturn(); // this could throw an exception
+        String tr = r.getResponse()
+            .getContentAsString();
+
+        ObjectMapper mapper = new ObjectMapper();
+        String er = mapper.writeValueAsString(userList.get(1));
+
+        System.out.println("Expect: " + er);
+        System.out.println("Actual: " + tr);
+
+        Assert.assertEquals("Rest API Returns User",
+            er,
+            tr);
+    }
+
+    @Test
+    public void getUserByEmailFields() throws Exception
+    {
+        String apiUrl = "/users/user/email/Hops@MyMail.local?fields=userid,primaryemail";
+        Mockito.when(userService.findSummaryByEmail("Hops@MyMail.local"))
+            .thenReturn(new UserSummary(20,
+                "cinnamon",
+                "cinnamon@lambdaschool.local"));
+
+        RequestBuilder rb = MockMvcRequestBuilders.get(apiUrl)
+            .accept(MediaType.APPLICATION_JSON);
+        MvcResult r = mockMvc.perform(rb)
+            .andReturn();
+        String tr = r.getResponse()
+            .getContentAsString();
+
+        assertEquals("{\"userid\":20,\"primaryemail\":\"cinnamon@lambdaschool.local\"}",
+            tr);
+        Mockito.verify(userService,
+            Mockito.never())
+            .findByEmail(any());
+    }
+
+    @Test
+    public void listUsersByRoles() throws Exception
+    {
+        String apiUrl = "/users/users/roles?all=user&none=admin&size=1";
+        Mockito.when(userService.findSummariesByRoles(Collections.singleton("user"),
+            Collections.emptySet(),
+            Collections.singleton("admin"),
+            0,
+            1))
+            .thenReturn(Collections.singletonList(new UserSummary(20,
+                "cinnamon",
+                "cinnamon@lambdaschool.local")));
+        Mockito.when(userService.countByRoles(Collections.singleton("user"),
+            Collections.emptySet(),
+            Collections.singleton("admin")))
+            .thenReturn(2L);
+
+        RequestBuilder rb = MockMvcRequestBuilders.get(apiUrl)
+            .accept(MediaType.APPLICATION_JSON);
+        MvcResult r = mockMvc.perform(rb)
+            .andReturn();
+        String tr = r.getResponse()
+            .getContentAsString();
+
+        assertEquals("[{\"userid\":20,\"username\":\"cinnamon\",\"primaryemail\":\"cinnamon@lambdaschool.local\"}]",
+            tr);
+        assertEquals("2",
+            r.getResponse()
+                .getHeader("X-Total-Count"));
+        assertEquals("20",
+            r.getResponse()
+                .getHeader("X-Next-Cursor"));
+    }
+
+    @Test
+    public void listUsersByRolesNeedsRoles() throws Exception
+    {
+        String apiUrl = "/users/users/roles?none=admin";
+
+        RequestBuilder rb = MockMvcRequestBuilders.get(apiUrl)
+            .accept(MediaType.APPLICATION_JSON);
+        MvcResult r = mockMvc.perform(rb)
+            .andReturn();
+
+        assertEquals(400,
+            r.getResponse()
+                .getStatus());
+    }
+
     @Test
     public void getUserByNameNotFound() throws Exception
     {
@@ -253,6 +536,28 @@ public class UserControllerNoDBTest
             tr);
     }
 
+    @Test
+    public void getUserNamesStarting() throws Exception
+    {
+        String apiUrl = "/users/user/name/prefix/cin?limit=5";
+
+        Mockito.when(userService.findByNameStarting("cin",
+            5))
+            .thenReturn(Collections.singletonList(new UserSummary(20,
+                "cinnamon",
+                null)));
+
+        RequestBuilder rb = MockMvcRequestBuilders.get(apiUrl)
+            .accept(MediaType.APPLICATION_JSON);
+        MvcResult r = mockMvc.perform(rb)
+            .andReturn();
+        String tr = r.getResponse()
+            .getContentAsString();
+
+        assertEquals("[{\"userid\":20,\"username\":\"cinnamon\"}]",
+            tr);
+    }
+
     @Test
     public void getUserLikeName() throws Exception
     {
@@ -318,6 +623,86 @@ public class UserControllerNoDBTest
             .andDo(MockMvcResultHandlers.print());
     }
 
+    /**
+     * Answers saveAll with one result per user read, so the test sees how many users the body held
+     */
+    private void countBatch()
+    {
+        Mockito.doAnswer(invocation ->
+        {
+            Iterator<User> users = invocation.getArgument(0);
+            List<UserBatchResult> results = new ArrayList<>();
+            while (users.hasNext())
+            {
+                results.add(new UserBatchResult(results.size(),
+                    users.next()
+                        .getUsername()));
+            }
+            return results;
+        })
+            .when(userBatchService)
+            .saveAll(any());
+    }
+
+    @Test
+    public void addNewUsersArray() throws Exception
+    {
+        String apiUrl = "/users/batch";
+        countBatch();
+
+        ObjectMapper mapper = new ObjectMapper();
+        String usersString = mapper.writeValueAsString(userList);
+
+        RequestBuilder rb = MockMvcRequestBuilders.post(apiUrl)
+            .accept(MediaType.APPLICATION_JSON)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(usersString);
+
+        String tr = mockMvc.perform(rb)
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+
+        assertEquals(mapper.writeValueAsString(List.of(new UserBatchResult(0,
+                "admin"),
+            new UserBatchResult(1,
+                "cinnamon"),
+            new UserBatchResult(2,
+                "barnbarn"))),
+            tr);
+    }
+
+    @Test
+    public void addNewUsersNdjson() throws Exception
+    {
+        String apiUrl = "/users/batch";
+        countBatch();
+
+        ObjectMapper mapper = new ObjectMapper();
+        StringBuilder usersString = new StringBuilder();
+        for (User u : userList)
+        {
+            usersString.append(mapper.writeValueAsString(u))
+                .append('\n');
+        }
+
+        RequestBuilder rb = MockMvcRequestBuilders.post(apiUrl)
+            .accept(MediaType.APPLICATION_JSON)
+            .contentType("application/x-ndjson")
+            .content(usersString.toString());
+
+        String tr = mockMvc.perform(rb)
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+
+        assertEquals(3,
+            mapper.readTree(tr)
+                .size());
+    }
+
     @Test
     public void updateFullUser() throws Exception
     {
@@ -0,0 +1,79 @@
+package com.lambdaschool.usermodel.handlers;
+
+import com.lambdaschool.usermodel.UserModelApplicationTest;
+import com.lambdaschool.usermodel.exceptions.ResourceNotFoundException;
+import com.lambdaschool.usermodel.services.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks service and repository calls are timed
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = UserModelApplicationTest.class,
+    properties = {"command.line.runner.enabled=false"})
+public class MethodMetricsAspectTest
+{
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private long count(
+        String name,
+        String owner,
+        String method,
+        String exception)
+    {
+        Timer timer = meterRegistry.find(name)
+            .tags("class",
+                owner,
+                "method",
+                method,
+                "exception",
+                exception)
+            .timer();
+        return (timer == null) ? 0 : timer.count();
+    }
+
+    @Test
+    public void servicesAndRepositoriesAreTimed()
+    {
+        long services = count("usermodel.service",
+            "UserServiceImpl",
+            "findUserById",
+            "ResourceNotFoundException");
+        long repositories = count("usermodel.repository",
+            "UserRepository",
+            "findById",
+            "None");
+
+        try
+        {
+            userService.findUserById(7777);
+            fail();
+        } catch (ResourceNotFoundException ignored)
+        {
+        }
+
+        assertEquals(services + 1,
+            count("usermodel.service",
+                "UserServiceImpl",
+                "findUserById",
+                "ResourceNotFoundException"));
+        assertEquals(repositories + 1,
+            count("usermodel.repository",
+                "UserRepository",
+                "findById",
+                "None"));
+    }
+}
@@ -0,0 +1,103 @@
+package com.lambdaschool.usermodel.handlers;
+
+import com.lambdaschool.usermodel.UserModelApplicationTest;
+import com.lambdaschool.usermodel.controllers.HibernateStatisticsEndpoint;
+import com.lambdaschool.usermodel.models.User;
+import com.lambdaschool.usermodel.models.Useremail;
+import com.lambdaschool.usermodel.services.UserService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks what Hibernate does is counted for the current thread, and totalled in the hibernate endpoint
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = UserModelApplicationTest.class,
+    properties = {"command.line.runner.enabled=false"})
+public class RequestStatisticsTest
+{
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private HibernateStatisticsEndpoint hibernateStatisticsEndpoint;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        for (String name : new String[]{"stats1", "stats2"})
+        {
+            User u = new User(name,
+                "password",
+                name + "@lambdaschool.local");
+            u.getUseremails()
+                .add(new Useremail(u,
+                    name + "@email.local"));
+            userService.save(u);
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        RequestStatistics.end();
+        userService.deleteAll();
+    }
+
+    @Test
+    public void countsTheCurrentThread()
+    {
+        assertNull(RequestStatistics.end());
+
+        RequestStatistics.begin();
+        transactionTemplate.execute(status ->
+        {
+            for (User u : userService.findAll())
+            {
+                u.getUseremails()
+                    .size();
+            }
+            return null;
+        });
+        RequestStatistics counts = RequestStatistics.end();
+
+        assertTrue(counts.getStatements() >= 2);
+        assertTrue(counts.getEntityLoads() >= 2);
+        assertTrue(counts.getCollectionFetchesByRole()
+            .containsKey(User.class.getName() + ".useremails"));
+        assertNull(RequestStatistics.end());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void endpointListsTopQueries()
+    {
+        userService.findByNameContaining("stats");
+        userService.findAll();
+
+        Map<String, Object> body = hibernateStatisticsEndpoint.statistics(1);
+        assertEquals(1,
+            ((List<?>) body.get("queries")).size());
+
+        hibernateStatisticsEndpoint.reset();
+        body = hibernateStatisticsEndpoint.statistics(null);
+        assertEquals(0L,
+            ((Map<String, Object>) body.get("totals")).get("queryExecutions"));
+    }
+}
@@ -0,0 +1,527 @@
+package com.lambdaschool.usermodel.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Drives a running UserModelApplication with a mix of reads and writes and reports the latency of each
+ * controller method.
+ * <p>
+ * Requests arrive at a fixed average rate, with random gaps between them, whether or not earlier requests have
+ * been answered. The latency of a request is measured from when it was due to be sent, not from when it was
+ * sent, so a slow server is charged for the requests that queued up behind it.
+ * <p>
+ * Settings are given as name=value arguments, for example
+ * <pre>
+ * mvn -P loadtest test -Dloadtest.args="rate=500 duration=120 mix=getUserById=80,updateUser=20"
+ * </pre>
+ * <ul>
+ * <li>url - where the application is running. Defaults to http://localhost:2019</li>
+ * <li>rate - requests per second. Defaults to 200</li>
+ * <li>duration - seconds measured. Defaults to 60</li>
+ * <li>warmup - seconds run before measuring. Defaults to 10</li>
+ * <li>mix - operation=weight pairs, separated by commas. Defaults to a read heavy mix of every operation but
+ * listAllUseremails, which reads every email</li>
+ * <li>seed - seeds the random choices, so runs can be repeated. Defaults to 42</li>
+ * <li>max-in-flight - requests waiting for an answer before new ones are counted as errors instead of sent.
+ * Defaults to 1000</li>
+ * <li>report - file the report is also written to. Defaults to target/loadtest-report.txt</li>
+ * </ul>
+ */
+public class LoadTest
+{
+    /**
+     * The mix used when none is given, roughly what a read heavy client would send
+     */
+    private static final String DEFAULT_MIX = "listAllUsers=8,getUserById=30,getUserByName=10,getUserLikeName=5,"
+        + "getUserNamesStarting=10,addNewUser=5,updateUser=7,listRoles=4,getRoleById=5,getRoleByName=3,"
+        + "getUserEmailById=10,updateUserEmail=3";
+
+    /**
+     * Histograms track latencies up to this many nanoseconds, a minute
+     */
+    private static final long HIGHEST_LATENCY = TimeUnit.MINUTES.toNanos(1);
+
+    /**
+     * One controller method, the requests sent to it and how they went
+     */
+    private static class Operation
+    {
+        private final String name;
+
+        private final Supplier<HttpRequest> request;
+
+        private final Histogram latencies = new ConcurrentHistogram(HIGHEST_LATENCY,
+            3);
+
+        private final AtomicLong errors = new AtomicLong();
+
+        private Operation(
+            String name,
+            Supplier<HttpRequest> request)
+        {
+            this.name = name;
+            this.request = request;
+        }
+    }
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final HttpClient client;
+
+    private final String url;
+
+    private final Random random;
+
+    private final List<Long> userids = new ArrayList<>();
+
+    private final List<String> usernames = new ArrayList<>();
+
+    private final List<Long> useremailids = new ArrayList<>();
+
+    private final List<Long> roleids = new ArrayList<>();
+
+    private final List<String> rolenames = new ArrayList<>();
+
+    private final Map<String, Operation> operations = new LinkedHashMap<>();
+
+    private final String run = Long.toString(System.currentTimeMillis(),
+        36);
+
+    private long created;
+
+    private LoadTest(
+        String url,
+        long seed)
+    {
+        this.url = url;
+        this.random = new Random(seed);
+        this.client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+        operation("listAllUsers",
+            () -> get("/users/users?page=" + random.nextInt(10) + "&size=50"));
+        operation("getUserById",
+            () -> get("/users/user/" + pick(userids)));
+        operation("getUserByName",
+            () -> get("/users/user/name/" + encode(pick(usernames))));
+        operation("getUserLikeName",
+            () -> get("/users/user/name/like/" + encode(fragment(pick(usernames),
+                3))));
+        operation("getUserNamesStarting",
+            () -> get("/users/user/name/prefix/" + encode(fragment(pick(usernames),
+                2))));
+        operation("addNewUser",
+            () ->
+            {
+                // named after the run, so users added by an earlier run do not clash
+                String username = "load" + run + "x" + (created++);
+                return post("/users/user",
+                    "{\"username\":\"" + username + "\",\"password\":\"password\",\"primaryemail\":\"" + username
+                        + "@lambdaschool.local\",\"roles\":[],\"useremails\":[]}");
+            });
+        operation("updateUser",
+            () -> HttpRequest.newBuilder(uri("/users/user/" + pick(userids)))
+                .header("Content-Type",
+                    "application/json")
+                .method("PATCH",
+                    HttpRequest.BodyPublishers.ofString("{\"password\":\"password" + random.nextInt(100) + "\"}"))
+                .build());
+        operation("listRoles",
+            () -> get("/roles/roles"));
+        operation("getRoleById",
+            () -> get("/roles/role/" + pick(roleids)));
+        operation("getRoleByName",
+            () -> get("/roles/role/name/" + encode(pick(rolenames))));
+        operation("listAllUseremails",
+            () -> get("/useremails/useremails"));
+        operation("getUserEmailById",
+            () -> get("/useremails/useremail/" + pick(useremailids)));
+        operation("updateUserEmail",
+            () -> HttpRequest.newBuilder(uri("/useremails/useremail/" + pick(useremailids) + "/email/load"
+                + random.nextInt(1000) + "@email.local"))
+                .PUT(HttpRequest.BodyPublishers.noBody())
+                .build());
+    }
+
+    private void operation(
+        String name,
+        Supplier<HttpRequest> request)
+    {
+        operations.put(name,
+            new Operation(name,
+                request));
+    }
+
+    private URI uri(String path)
+    {
+        return URI.create(url + path);
+    }
+
+    private HttpRequest get(String path)
+    {
+        return HttpRequest.newBuilder(uri(path))
+            .GET()
+            .build();
+    }
+
+    private HttpRequest post(
+        String path,
+        String json)
+    {
+        return HttpRequest.newBuilder(uri(path))
+            .header("Content-Type",
+                "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(json))
+            .build();
+    }
+
+    private static String encode(String value)
+    {
+        return URLEncoder.encode(value,
+            StandardCharsets.UTF_8)
+            .replace("+",
+                "%20");
+    }
+
+    private <T> T pick(List<T> list)
+    {
+        return list.get(random.nextInt(list.size()));
+    }
+
+    private String fragment(
+        String value,
+        int length)
+    {
+        if (value.length() <= length)
+        {
+            return value;
+        }
+        int start = random.nextInt(value.length() - length + 1);
+        return value.substring(start,
+            start + length);
+    }
+
+    /**
+     * Reads the users, emails and roles the requests are made against
+     */
+    private void discover() throws
+                            IOException,
+                            InterruptedException
+    {
+        long after = 0;
+        while (true)
+        {
+            JsonNode page = read("/users/users?size=500&after=" + after);
+            for (JsonNode user : page)
+            {
+                after = user.get("userid")
+                    .asLong();
+                userids.add(after);
+                usernames.add(user.get("username")
+                    .asText());
+                for (JsonNode useremail : user.get("useremails"))
+                {
+                    useremailids.add(useremail.get("useremailid")
+                        .asLong());
+                }
+            }
+            if (page.size() < 500)
+            {
+                break;
+            }
+        }
+        for (JsonNode role : read("/roles/roles"))
+        {
+            roleids.add(role.get("roleid")
+                .asLong());
+            rolenames.add(role.get("name")
+                .asText());
+        }
+        if (userids.isEmpty() || useremailids.isEmpty() || roleids.isEmpty())
+        {
+            throw new IllegalStateException("The application at " + url + " needs users, emails and roles");
+        }
+    }
+
+    private JsonNode read(String path) throws
+                                       IOException,
+                                       InterruptedException
+    {
+        HttpResponse<byte[]> response = client.send(get(path),
+            HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200)
+        {
+            throw new IllegalStateException("GET " + path + " returned " + response.statusCode());
+        }
+        return objectMapper.readTree(response.body());
+    }
+
+    /**
+     * Sends requests at the given rate, recording those due after the warmup
+     *
+     * @param mix         the weight of each operation
+     * @param rate        requests per second
+     * @param warmup      nanoseconds before measuring starts
+     * @param duration    nanoseconds measured
+     * @param maxInFlight requests that may wait for an answer at once
+     * @return the number of requests due during the measured time that were not sent
+     */
+    private long run(
+        Map<Operation, Integer> mix,
+        double rate,
+        long warmup,
+        long duration,
+        int maxInFlight) throws
+                         InterruptedException
+    {
+        Operation[] chosen = mix.keySet()
+            .toArray(new Operation[0]);
+        int[] cumulative = new int[chosen.length];
+        int total = 0;
+        for (int i = 0; i < chosen.length; i++)
+        {
+            total += mix.get(chosen[i]);
+            cumulative[i] = total;
+        }
+
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        long notSent = 0;
+        double meanGap = TimeUnit.SECONDS.toNanos(1) / rate;
+        long start = System.nanoTime();
+        long measureFrom = start + warmup;
+        long end = measureFrom + duration;
+        long due = start;
+        while (due < end)
+        {
+            // exponential gaps give a Poisson arrival process
+            due += (long) (-Math.log(1 - random.nextDouble()) * meanGap);
+            long wait;
+            while ((wait = due - System.nanoTime()) > 0)
+            {
+                LockSupport.parkNanos(wait);
+            }
+
+            int r = random.nextInt(total);
+            int i = 0;
+            while (cumulative[i] <= r)
+            {
+                i++;
+            }
+            Operation op = chosen[i];
+            boolean measured = due >= measureFrom;
+            long intended = due;
+
+            if (!inFlight.tryAcquire())
+            {
+                if (measured)
+                {
+                    op.errors.incrementAndGet();
+                    notSent++;
+                }
+                continue;
+            }
+            client.sendAsync(op.request.get(),
+                HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, failure) ->
+                {
+                    inFlight.release();
+                    if (!measured)
+                    {
+                        return;
+                    }
+                    op.latencies.recordValue(Math.min(System.nanoTime() - intended,
+                        HIGHEST_LATENCY));
+                    if (failure != null || response.statusCode() >= 400)
+                    {
+                        op.errors.incrementAndGet();
+                    }
+                });
+        }
+        inFlight.acquire(maxInFlight);
+        return notSent;
+    }
+
+    private void report(
+        PrintStream out,
+        double rate,
+        long duration,
+        long notSent)
+    {
+        double seconds = duration / 1e9;
+        out.printf("Target rate %.1f/s for %.0fs against %s%n",
+            rate,
+            seconds,
+            url);
+        out.printf("%-22s %9s %9s %9s %10s %10s %10s %10s%n",
+            "operation",
+            "requests",
+            "errors",
+            "req/s",
+            "p50 ms",
+            "p99 ms",
+            "p99.9 ms",
+            "max ms");
+
+        Histogram all = new Histogram(HIGHEST_LATENCY,
+            3);
+        long errors = 0;
+        for (Operation op : operations.values())
+        {
+            if (op.latencies.getTotalCount() == 0 && op.errors.get() == 0)
+            {
+                continue;
+            }
+            all.add(op.latencies);
+            errors += op.errors.get();
+            line(out,
+                op.name,
+                op.latencies,
+                op.errors.get(),
+                seconds);
+        }
+        line(out,
+            "total",
+            all,
+            errors,
+            seconds);
+        if (notSent > 0)
+        {
+            out.printf("%d requests were not sent, more than max-in-flight were waiting%n",
+                notSent);
+        }
+    }
+
+    private static void line(
+        PrintStream out,
+        String name,
+        Histogram latencies,
+        long errors,
+        double seconds)
+    {
+        out.printf("%-22s %9d %9d %9.1f %10.2f %10.2f %10.2f %10.2f%n",
+            name,
+            latencies.getTotalCount(),
+            errors,
+            latencies.getTotalCount() / seconds,
+            latencies.getValueAtPercentile(50) / 1e6,
+            latencies.getValueAtPercentile(99) / 1e6,
+            latencies.getValueAtPercentile(99.9) / 1e6,
+            latencies.getMaxValue() / 1e6);
+    }
+
+    /**
+     * Runs the load test
+     *
+     * @param args name=value settings, see the class description
+     * @throws Exception if the application cannot be reached or the report cannot be written
+     */
+    public static void main(String[] args) throws
+                                           Exception
+    {
+        Map<String, String> settings = new LinkedHashMap<>();
+        settings.put("url",
+            "http://localhost:2019");
+        settings.put("rate",
+            "200");
+        settings.put("duration",
+            "60");
+        settings.put("warmup",
+            "10");
+        settings.put("mix",
+            DEFAULT_MIX);
+        settings.put("seed",
+            "42");
+        settings.put("max-in-flight",
+            "1000");
+        settings.put("report",
+            "target/loadtest-report.txt");
+        for (String arg : args)
+        {
+            int eq = arg.indexOf('=');
+            if (eq < 0 || !settings.containsKey(arg.substring(0,
+                eq)))
+            {
+                throw new IllegalArgumentException("Unknown setting " + arg + ", expected one of " + settings.keySet());
+            }
+            settings.put(arg.substring(0,
+                eq),
+                arg.substring(eq + 1));
+        }
+
+        LoadTest loadTest = new LoadTest(settings.get("url"),
+            Long.parseLong(settings.get("seed")));
+        loadTest.discover();
+
+        Map<Operation, Integer> mix = new LinkedHashMap<>();
+        for (String entry : settings.get("mix")
+            .split(","))
+        {
+            String[] nameWeight = entry.trim()
+                .split("=");
+            Operation op = loadTest.operations.get(nameWeight[0]);
+            if (op == null)
+            {
+                throw new IllegalArgumentException("Unknown operation " + nameWeight[0] + ", expected one of "
+                    + loadTest.operations.keySet());
+            }
+            mix.put(op,
+                Integer.parseInt(nameWeight[1]));
+        }
+
+        double rate = Double.parseDouble(settings.get("rate"));
+        long duration = TimeUnit.SECONDS.toNanos(Long.parseLong(settings.get("duration")));
+        long notSent = loadTest.run(mix,
+            rate,
+            TimeUnit.SECONDS.toNanos(Long.parseLong(settings.get("warmup"))),
+            duration,
+            Integer.parseInt(settings.get("max-in-flight")));
+
+        loadTest.report(System.out,
+            rate,
+            duration,
+            notSent);
+        Path report = Paths.get(settings.get("report"));
+        if (report.getParent() != null)
+        {
+            Files.createDirectories(report.getParent());
+        }
+        try (PrintStream out = new PrintStream(Files.newOutputStream(report),
+            true,
+            StandardCharsets.UTF_8))
+        {
+            loadTest.report(out,
+                rate,
+                duration,
+                notSent);
+        }
+
+    }
+}
@@ -0,0 +1,44 @@
+package com.lambdaschool.usermodel.models;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks a user role combination is still found in User.roles once its user has been given a userid
+ */
+public class UserRolesTest
+{
+    @Test
+    public void rolesAddedBeforeTheUseridAreFoundAfter()
+    {
+        Role admin = new Role("admin");
+        admin.setRoleid(1);
+        Role user = new Role("user");
+        user.setRoleid(2);
+
+        User u = new User("hashed",
+            "password",
+            "hashed@lambdaschool.local");
+        u.getRoles()
+            .add(new UserRoles(u,
+                admin));
+        u.getRoles()
+            .add(new UserRoles(u,
+                user));
+
+        // as Hibernate does when the user is persisted
+        u.setUserid(42);
+
+        assertTrue(u.getRoles()
+            .contains(new UserRoles(u,
+                admin)));
+        assertTrue(u.getRoles()
+            .remove(new UserRoles(u,
+                user)));
+        assertEquals(1,
+            u.getRoles()
+                .size());
+    }
+}
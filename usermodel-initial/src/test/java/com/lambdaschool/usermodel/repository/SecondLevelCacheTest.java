@@ -0,0 +1,171 @@
+package com.lambdaschool.usermodel.repository;
+
+import com.lambdaschool.usermodel.UserModelApplicationTest;
+import com.lambdaschool.usermodel.models.Role;
+import com.lambdaschool.usermodel.models.User;
+import com.lambdaschool.usermodel.models.UserRoles;
+import com.lambdaschool.usermodel.models.Useremail;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks users and roles are read from the second-level cache, and that renaming a role is seen afterwards
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = UserModelApplicationTest.class,
+    properties = {"command.line.runner.enabled=false"})
+public class SecondLevelCacheTest
+{
+    @Autowired
+    private RoleRepository rolerepos;
+
+    @Autowired
+    private UserRepository userrepos;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private Statistics statistics;
+
+    private long roleid;
+
+    private long userid;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        statistics = em.getEntityManagerFactory()
+            .unwrap(SessionFactory.class)
+            .getStatistics();
+
+        transactionTemplate.execute(status ->
+        {
+            Role r = new Role("cacherole");
+            em.persist(r);
+            User u = new User("cacheuser",
+                "password",
+                "cacheuser@lambdaschool.local");
+            em.persist(u);
+            u.getRoles()
+                .add(new UserRoles(u,
+                    r));
+            u.getUseremails()
+                .add(new Useremail(u,
+                    "cacheuser@email.local"));
+            roleid = r.getRoleid();
+            userid = u.getUserid();
+            return null;
+        });
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        transactionTemplate.execute(status ->
+        {
+            em.remove(em.find(User.class,
+                userid));
+            em.remove(em.find(Role.class,
+                roleid));
+            return null;
+        });
+    }
+
+    /**
+     * Reads the user, its useremails and the names of its roles in a transaction of its own
+     *
+     * @return the number of statements prepared
+     */
+    private long statementsToReadUser()
+    {
+        statistics.clear();
+        transactionTemplate.execute(status ->
+        {
+            User u = em.find(User.class,
+                userid);
+            u.getUseremails()
+                .size();
+            for (UserRoles ur : u.getRoles())
+            {
+                ur.getRole()
+                    .getName();
+            }
+            return null;
+        });
+        return statistics.getPrepareStatementCount();
+    }
+
+    private String roleName()
+    {
+        return transactionTemplate.execute(status -> em.find(Role.class,
+            roleid)
+            .getName());
+    }
+
+    @Test
+    public void userIsReadFromTheCache()
+    {
+        statementsToReadUser();
+
+        assertEquals(0,
+            statementsToReadUser());
+        assertTrue(statistics.getSecondLevelCacheHitCount() >= 4);
+    }
+
+    @Test
+    public void renamedRoleIsNotStale()
+    {
+        assertEquals("CACHEROLE",
+            roleName());
+        statementsToReadUser();
+
+        transactionTemplate.execute(status ->
+        {
+            rolerepos.updateRoleName("cachetest",
+                roleid,
+                "RENAMEDROLE");
+            return null;
+        });
+
+        // only the role is read again, the user and its collections are still cached
+        assertEquals(1,
+            statementsToReadUser());
+        assertEquals("RENAMEDROLE",
+            roleName());
+    }
+
+    @Test
+    public void findByIdIsReadFromTheCache()
+    {
+        statementsToReadUser();
+        statistics.clear();
+
+        User u = userrepos.findById(userid)
+            .get();
+        assertEquals("CACHEROLE",
+            u.getRoles()
+                .iterator()
+                .next()
+                .getRole()
+                .getName());
+        assertEquals(0,
+            statistics.getPrepareStatementCount());
+    }
+}
@@ -0,0 +1,63 @@
+package com.lambdaschool.usermodel.repository;
+
+import com.lambdaschool.usermodel.UserModelApplicationTest;
+import com.lambdaschool.usermodel.models.User;
+import com.lambdaschool.usermodel.models.Useremail;
+import com.lambdaschool.usermodel.services.UserService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks a user having an address as their primary email is found before a user having it as a useremail
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = UserModelApplicationTest.class,
+    properties = {"command.line.runner.enabled=false"})
+@Transactional
+public class UserRepositoryEmailTest
+{
+    @Autowired
+    private UserRepository userrepos;
+
+    @Autowired
+    private UserService userService;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Test
+    public void primaryEmailIsFoundFirst()
+    {
+        // the user having the address as a useremail comes first in userid order
+        User secondary = new User("sharedsecondary",
+            "password",
+            "sharedsecondary@lambdaschool.local");
+        secondary.getUseremails()
+            .add(new Useremail(secondary,
+                "shared@mymail.local"));
+        em.persist(secondary);
+        User primary = new User("sharedprimary",
+            "password",
+            "shared@mymail.local");
+        em.persist(primary);
+        em.flush();
+        em.clear();
+
+        assertEquals(Arrays.asList(primary.getUserid(),
+            secondary.getUserid()),
+            userrepos.findUseridsByEmail("shared@mymail.local"));
+        assertEquals("sharedprimary",
+            userService.findSummaryByEmail("Shared@MyMail.local")
+                .getUsername());
+    }
+}
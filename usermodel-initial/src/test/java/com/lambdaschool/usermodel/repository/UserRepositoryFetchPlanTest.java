@@ -0,0 +1,175 @@
+package com.lambdaschool.usermodel.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lambdaschool.usermodel.UserModelApplicationTest;
+import com.lambdaschool.usermodel.models.Role;
+import com.lambdaschool.usermodel.models.User;
+import com.lambdaschool.usermodel.models.UserRoles;
+import com.lambdaschool.usermodel.models.Useremail;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that reading users costs the same number of statements no matter how many users are read
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = UserModelApplicationTest.class,
+    properties = {"command.line.runner.enabled=false"})
+@Transactional
+public class UserRepositoryFetchPlanTest
+{
+    @Autowired
+    private UserRepository userrepos;
+
+    @Autowired
+    private UseremailRepository useremailrepos;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private Statistics statistics;
+
+    private Role r1;
+
+    private Role r2;
+
+    private int usersAdded = 0;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        statistics = em.getEntityManagerFactory()
+            .unwrap(SessionFactory.class)
+            .getStatistics();
+
+        r1 = new Role("fetchadmin");
+        r2 = new Role("fetchuser");
+        em.persist(r1);
+        em.persist(r2);
+    }
+
+    private void addUsers(int count)
+    {
+        Role ra = em.find(Role.class,
+            r1.getRoleid());
+        Role rb = em.find(Role.class,
+            r2.getRoleid());
+        for (int i = 0; i < count; i++)
+        {
+            usersAdded++;
+            User u = new User("fetch" + usersAdded,
+                "password",
+                "fetch" + usersAdded + "@lambdaschool.local");
+            em.persist(u);
+            u.getRoles()
+                .add(new UserRoles(u,
+                    ra));
+            u.getRoles()
+                .add(new UserRoles(u,
+                    rb));
+            u.getUseremails()
+                .add(new Useremail(u,
+                    "fetch" + usersAdded + "@email.local"));
+            u.getUseremails()
+                .add(new Useremail(u,
+                    "fetch" + usersAdded + "@mymail.local"));
+        }
+        em.flush();
+        em.clear();
+    }
+
+    /**
+     * Runs the read and serializes the result, which touches every lazy collection
+     *
+     * @param read the read to measure
+     * @return the number of statements prepared
+     */
+    private long statementsFor(Read read) throws
+                                          Exception
+    {
+        statistics.clear();
+        new ObjectMapper().writeValueAsString(read.run());
+        long count = statistics.getPrepareStatementCount();
+        em.clear();
+        return count;
+    }
+
+    private interface Read
+    {
+        Object run();
+    }
+
+    @Test
+    public void findAllPageStatementsDoNotGrow() throws
+                                                Exception
+    {
+        addUsers(5);
+        long few = statementsFor(() -> userrepos.findAll(PageRequest.of(0,
+            100))
+            .getContent());
+
+        addUsers(45);
+        long many = statementsFor(() -> userrepos.findAll(PageRequest.of(0,
+            100))
+            .getContent());
+
+        assertEquals(few,
+            many);
+    }
+
+    @Test
+    public void findByUsernameContainingStatementsDoNotGrow() throws
+                                                              Exception
+    {
+        addUsers(5);
+        long few = statementsFor(() -> userrepos.findByUsernameContainingIgnoreCase("fetch"));
+
+        addUsers(45);
+        long many = statementsFor(() -> userrepos.findByUsernameContainingIgnoreCase("fetch"));
+
+        assertEquals(few,
+            many);
+    }
+
+    @Test
+    public void findByIdReadsRolesWithTheUser() throws
+                                               Exception
+    {
+        addUsers(1);
+        long userid = userrepos.findByUsername("fetch1")
+            .getUserid();
+        em.clear();
+
+        // the user with its roles, then the useremails
+        assertEquals(2,
+            statementsFor(() -> userrepos.findById(userid)
+                .get()));
+    }
+
+    @Test
+    public void useremailFindAllStatementsDoNotGrow() throws
+                                                      Exception
+    {
+        addUsers(5);
+        long few = statementsFor(() -> useremailrepos.findAll());
+
+        addUsers(45);
+        long many = statementsFor(() -> useremailrepos.findAll());
+
+        assertEquals(few,
+            many);
+    }
+}
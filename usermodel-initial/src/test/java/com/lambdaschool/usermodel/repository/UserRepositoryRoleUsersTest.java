@@ -0,0 +1,120 @@
+package com.lambdaschool.usermodel.repository;
+
+import com.lambdaschool.usermodel.UserModelApplicationTest;
+import com.lambdaschool.usermodel.models.Role;
+import com.lambdaschool.usermodel.models.User;
+import com.lambdaschool.usermodel.models.UserRoles;
+import com.lambdaschool.usermodel.models.UserSummary;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the users holding a role are paged by userid through the declared userroles index
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = UserModelApplicationTest.class,
+    properties = {"command.line.runner.enabled=false"})
+@Transactional
+public class UserRepositoryRoleUsersTest
+{
+    @Autowired
+    private UserRepository userrepos;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private Statistics statistics;
+
+    private Role r1;
+
+    private Role r2;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        statistics = em.getEntityManagerFactory()
+            .unwrap(SessionFactory.class)
+            .getStatistics();
+
+        r1 = new Role("pagedadmin");
+        r2 = new Role("pageduser");
+        em.persist(r1);
+        em.persist(r2);
+        for (int i = 1; i <= 5; i++)
+        {
+            User u = new User("paged" + i,
+                "password",
+                "paged" + i + "@lambdaschool.local");
+            em.persist(u);
+            u.getRoles()
+                .add(new UserRoles(u,
+                    r1));
+            u.getRoles()
+                .add(new UserRoles(u,
+                    r2));
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void roleUsersArePagedByUserid()
+    {
+        List<UserSummary> first = userrepos.findSummariesByRoleAfter(r1.getRoleid(),
+            0,
+            PageRequest.of(0,
+                3));
+        List<UserSummary> rest = userrepos.findSummariesByRoleAfter(r1.getRoleid(),
+            first.get(2)
+                .getUserid(),
+            PageRequest.of(0,
+                3));
+
+        assertEquals(3,
+            first.size());
+        assertEquals(2,
+            rest.size());
+        assertEquals("paged4",
+            rest.get(0)
+                .getUsername());
+        assertTrue(first.get(0)
+            .getUserid() < first.get(1)
+            .getUserid());
+
+        // the summaries alone, no user entity is loaded
+        statistics.clear();
+        userrepos.findSummariesByRoleAfter(r2.getRoleid(),
+            0,
+            PageRequest.of(0,
+                10));
+        assertEquals(1,
+            statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void roleUsersIndexIsRoleidThenUserid()
+    {
+        List<?> columns = em.createNativeQuery("SELECT COLUMN_NAME FROM INFORMATION_SCHEMA.INDEXES WHERE INDEX_NAME = 'USERROLES_ROLEID_USERID_IDX' ORDER BY ORDINAL_POSITION")
+            .getResultList();
+
+        assertEquals(Arrays.asList("ROLEID",
+            "USERID"),
+            columns);
+    }
+}
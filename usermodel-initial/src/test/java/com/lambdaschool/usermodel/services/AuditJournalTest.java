@@ -0,0 +1,393 @@
+package com.lambdaschool.usermodel.services;
+
+import com.lambdaschool.usermodel.UserModelApplicationTest;
+import com.lambdaschool.usermodel.models.AuditEvent;
+import com.lambdaschool.usermodel.models.AuditHistory;
+import com.lambdaschool.usermodel.models.Role;
+import com.lambdaschool.usermodel.models.User;
+import com.lambdaschool.usermodel.repository.RoleRepository;
+import com.lambdaschool.usermodel.repository.UserRepository;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Journals changes to small segments, about six events each, keeping two of them
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = UserModelApplicationTest.class,
+    properties = {"command.line.runner.enabled=false",
+        "usermodel.audit.segment-size=1024",
+        "usermodel.audit.max-segments=2"})
+public class AuditJournalTest
+{
+    @Autowired
+    private AuditJournal auditJournal;
+
+    @Autowired
+    private RoleService roleService;
+
+    @Autowired
+    private RoleRepository rolerepos;
+
+    @Autowired
+    private UserRepository userrepos;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @After
+    public void tearDown() throws Exception
+    {
+        userrepos.deleteAll();
+        roleService.deleteAll();
+    }
+
+    /**
+     * Waits for the writer to journal the given number of events of the entity
+     */
+    private List<AuditEvent> await(
+        String entity,
+        String id,
+        int count) throws InterruptedException
+    {
+        for (int i = 0; i < 500; i++)
+        {
+            List<AuditEvent> events = auditJournal.recent(entity,
+                id,
+                count);
+            if (events.size() == count)
+            {
+                return events;
+            }
+            Thread.sleep(10);
+        }
+        fail("expected " + count + " events of " + entity + " " + id);
+        return null;
+    }
+
+    private double events(String outcome)
+    {
+        return meterRegistry.get("usermodel.audit.events")
+            .tag("outcome",
+                outcome)
+            .counter()
+            .count();
+    }
+
+    @Test
+    public void roleChangesAreJournaled() throws Exception
+    {
+        Role r = roleService.save(new Role("journaled"));
+        roleService.update(r.getRoleid(),
+            new Role("renamed"));
+
+        List<AuditEvent> events = await("role",
+            String.valueOf(r.getRoleid()),
+            2);
+        assertEquals("UPDATE",
+            events.get(0)
+                .getAction());
+        assertEquals(Collections.singletonList("name"),
+            events.get(0)
+                .getFields());
+        assertEquals("INSERT",
+            events.get(1)
+                .getAction());
+        assertTrue(events.get(1)
+            .getFields()
+            .contains("name"));
+        assertEquals("SYSTEM",
+            events.get(1)
+                .getAuditor());
+        assertTrue(events.get(0)
+            .getSequence() > events.get(1)
+            .getSequence());
+    }
+
+    @Test
+    public void updateRecordsOnlyChangedFields() throws Exception
+    {
+        User u = userrepos.save(new User("journaled",
+            "password",
+            "journaled@lambdaschool.local"));
+        u.setPrimaryemail("moved@lambdaschool.local");
+        userrepos.save(u);
+        userrepos.delete(u);
+
+        List<AuditEvent> events = await("User",
+            String.valueOf(u.getUserid()),
+            3);
+        assertEquals("DELETE",
+            events.get(0)
+                .getAction());
+        assertEquals("UPDATE",
+            events.get(1)
+                .getAction());
+        assertEquals(Collections.singletonList("primaryemail"),
+            events.get(1)
+                .getFields());
+    }
+
+    @Test
+    public void rolledBackChangesAreNotJournaled() throws Exception
+    {
+        long rolledBack = transactionTemplate.execute(status ->
+        {
+            Role r = rolerepos.save(new Role("rolledback"));
+            status.setRollbackOnly();
+            return r.getRoleid();
+        });
+        Role committed = rolerepos.save(new Role("committed"));
+
+        await("role",
+            String.valueOf(committed.getRoleid()),
+            1);
+        assertEquals(0,
+            auditJournal.recent("role",
+                String.valueOf(rolledBack),
+                1)
+                .size());
+    }
+
+    @Test
+    public void oldSegmentsAreDeleted() throws Exception
+    {
+        for (int i = 0; i < 50; i++)
+        {
+            auditJournal.record("Test",
+                String.valueOf(i),
+                "UPDATE",
+                Collections.singletonList("field"));
+        }
+        await("Test",
+            "49",
+            1);
+
+        List<AuditEvent> kept = auditJournal.recent(null,
+            null,
+            100);
+        assertTrue(kept.size() < 50);
+        for (int i = 1; i < kept.size(); i++)
+        {
+            assertEquals(kept.get(i - 1)
+                .getSequence() - 1,
+                kept.get(i)
+                    .getSequence());
+        }
+    }
+
+    @Test
+    public void searchStopsAfterMaxScanned() throws Exception
+    {
+        for (int i = 0; i < 5; i++)
+        {
+            auditJournal.record("Scanned",
+                String.valueOf(i),
+                "UPDATE",
+                Collections.singletonList("field"));
+        }
+        List<AuditEvent> all = await("Scanned",
+            null,
+            5);
+
+        Object journal = AopTestUtils.<Object>getTargetObject(auditJournal);
+        ReflectionTestUtils.setField(journal,
+            "maxScanned",
+            3);
+        try
+        {
+            AuditHistory history = auditJournal.recent("Scanned",
+                null,
+                Long.MAX_VALUE,
+                10);
+            assertEquals(3,
+                history.getEvents()
+                    .size());
+            assertEquals(all.get(2)
+                    .getSequence(),
+                (long) history.getNext());
+
+            // carries on from where the search stopped
+            history = auditJournal.recent("Scanned",
+                null,
+                history.getNext(),
+                2);
+            assertEquals("1",
+                history.getEvents()
+                    .get(0)
+                    .getId());
+            assertEquals("0",
+                history.getEvents()
+                    .get(1)
+                    .getId());
+        } finally
+        {
+            ReflectionTestUtils.setField(journal,
+                "maxScanned",
+                100000);
+        }
+
+        // a search reaching the oldest event kept has nowhere to carry on
+        assertNull(auditJournal.recent(null,
+            null,
+            Long.MAX_VALUE,
+            1000)
+            .getNext());
+    }
+
+    @Test
+    public void failedRotationDropsOnlyEventsNotWritten() throws Exception
+    {
+        auditJournal.record("Marker",
+            "before",
+            "UPDATE",
+            Collections.singletonList("field"));
+        long last = await("Marker",
+            "before",
+            1).get(0)
+            .getSequence();
+        double writtenBefore = events("written");
+        double droppedBefore = events("dropped");
+
+        List<Path> blockers = blockRotation(last);
+        try
+        {
+            recordBlocked(writtenBefore,
+                droppedBefore);
+
+            double written = events("written") - writtenBefore;
+            assertEquals(20,
+                written + events("dropped") - droppedBefore,
+                0);
+            assertTrue(written < 20);
+            // the events counted as written are exactly those in the journal
+            assertEquals(written,
+                auditJournal.recent("Blocked",
+                    null,
+                    20)
+                    .size(),
+                0);
+        } finally
+        {
+            unblock(blockers);
+        }
+    }
+
+    @Test
+    public void rotationRecoversAfterAFailure() throws Exception
+    {
+        auditJournal.record("Marker",
+            "recover",
+            "UPDATE",
+            Collections.singletonList("field"));
+        long last = await("Marker",
+            "recover",
+            1).get(0)
+            .getSequence();
+
+        List<Path> blockers = blockRotation(last);
+        try
+        {
+            recordBlocked(events("written"),
+                events("dropped"));
+        } finally
+        {
+            unblock(blockers);
+        }
+
+        // what a segment that was created but could not be mapped leaves behind
+        Object journal = AopTestUtils.<Object>getTargetObject(auditJournal);
+        long next = (long) ReflectionTestUtils.getField(journal,
+            "nextSequence");
+        Path leftover = Files.createFile(segmentsDir().resolve(String.format("audit-%020d.log",
+            next)));
+
+        // the active segment is full, so these start a new one
+        for (int i = 0; i < 5; i++)
+        {
+            auditJournal.record("Recovered",
+                String.valueOf(i),
+                "UPDATE",
+                Collections.singletonList("field"));
+        }
+        await("Recovered",
+            null,
+            5);
+        assertEquals(1024,
+            Files.size(leftover));
+    }
+
+    /**
+     * The directory the journal writes its segments to
+     */
+    private Path segmentsDir()
+    {
+        return (Path) ReflectionTestUtils.getField(AopTestUtils.<Object>getTargetObject(auditJournal),
+            "dir");
+    }
+
+    /**
+     * Puts directories where the segments for the coming sequence numbers would go, so no new segment can be
+     * started
+     */
+    private List<Path> blockRotation(long last) throws Exception
+    {
+        List<Path> blockers = new ArrayList<>();
+        for (long seq = last + 1; seq <= last + 40; seq++)
+        {
+            blockers.add(Files.createDirectory(segmentsDir().resolve(String.format("audit-%020d.log",
+                seq))));
+        }
+        return blockers;
+    }
+
+    private void unblock(List<Path> blockers) throws Exception
+    {
+        for (Path p : blockers)
+        {
+            Files.deleteIfExists(p);
+        }
+    }
+
+    /**
+     * Records twenty events, more than fit in a segment, and waits for each to be written or dropped
+     */
+    private void recordBlocked(
+        double writtenBefore,
+        double droppedBefore) throws InterruptedException
+    {
+        for (int i = 0; i < 20; i++)
+        {
+            auditJournal.record("Blocked",
+                String.valueOf(i),
+                "UPDATE",
+                Collections.singletonList("field"));
+        }
+        for (int i = 0; i < 500 && events("written") + events("dropped") < writtenBefore + droppedBefore + 20; i++)
+        {
+            Thread.sleep(10);
+        }
+    }
+}
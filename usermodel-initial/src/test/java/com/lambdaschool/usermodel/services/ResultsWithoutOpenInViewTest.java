@@ -0,0 +1,128 @@
+package com.lambdaschool.usermodel.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lambdaschool.usermodel.UserModelApplicationTest;
+import com.lambdaschool.usermodel.models.Role;
+import com.lambdaschool.usermodel.models.User;
+import com.lambdaschool.usermodel.models.UserRoles;
+import com.lambdaschool.usermodel.models.Useremail;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks what the services return can be written as JSON once their transaction is over, as with open in view
+ * turned off nothing more can be read from the database while a response is written
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = UserModelApplicationTest.class,
+    properties = {"command.line.runner.enabled=false"})
+public class ResultsWithoutOpenInViewTest
+{
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UseremailService useremailService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private long roleid;
+
+    private long userid;
+
+    private long useremailid;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        transactionTemplate.execute(status ->
+        {
+            Role r = new Role("viewrole");
+            em.persist(r);
+            User u = new User("viewuser",
+                "password",
+                "viewuser@lambdaschool.local");
+            em.persist(u);
+            u.getRoles()
+                .add(new UserRoles(u,
+                    r));
+            Useremail ue = new Useremail(u,
+                "viewuser@email.local");
+            u.getUseremails()
+                .add(ue);
+            em.flush();
+            roleid = r.getRoleid();
+            userid = u.getUserid();
+            useremailid = ue.getUseremailid();
+            return null;
+        });
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        transactionTemplate.execute(status ->
+        {
+            em.remove(em.find(User.class,
+                userid));
+            em.remove(em.find(Role.class,
+                roleid));
+            return null;
+        });
+    }
+
+    @Test
+    public void usersAreWrittenWithTheirCollections() throws Exception
+    {
+        JsonNode page = objectMapper.valueToTree(userService.findAll(PageRequest.of(0,
+            10))
+            .getContent());
+        JsonNode byId = objectMapper.valueToTree(userService.findAllById(Collections.singletonList(userid)));
+
+        for (JsonNode users : new JsonNode[]{page, byId})
+        {
+            assertEquals("viewuser@email.local",
+                users.get(0)
+                    .at("/useremails/0/useremail")
+                    .asText());
+            assertEquals("VIEWROLE",
+                users.get(0)
+                    .at("/roles/0/role/name")
+                    .asText());
+        }
+    }
+
+    @Test
+    public void useremailIsWrittenWithTheRolesOfItsUser() throws Exception
+    {
+        JsonNode ue = objectMapper.valueToTree(useremailService.findUseremailById(useremailid));
+
+        assertEquals("viewuser",
+            ue.at("/user/username")
+                .asText());
+        assertEquals("VIEWROLE",
+            ue.at("/user/roles/0/role/name")
+                .asText());
+    }
+}
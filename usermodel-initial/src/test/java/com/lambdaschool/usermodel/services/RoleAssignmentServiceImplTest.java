@@ -0,0 +1,187 @@
+package com.lambdaschool.usermodel.services;
+
+import com.lambdaschool.usermodel.UserModelApplicationTest;
+import com.lambdaschool.usermodel.models.Role;
+import com.lambdaschool.usermodel.models.RoleAssignmentResult;
+import com.lambdaschool.usermodel.models.User;
+import com.lambdaschool.usermodel.models.UserBatchResult;
+import com.lambdaschool.usermodel.models.UserRoles;
+import com.lambdaschool.usermodel.repository.UserRepository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Gives and takes roles from users of the in memory database, two users per transaction
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = UserModelApplicationTest.class,
+    properties = {"command.line.runner.enabled=false",
+        "usermodel.roles.assignment.chunk-size=2"})
+public class RoleAssignmentServiceImplTest
+{
+    @Autowired
+    private RoleAssignmentService roleAssignmentService;
+
+    @Autowired
+    private UserBatchService userBatchService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userrepos;
+
+    @Autowired
+    private RoleService roleService;
+
+    private Role bulk;
+
+    private List<Long> userids;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        bulk = roleService.save(new Role("bulk"));
+        Role member = roleService.save(new Role("member"));
+
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 5; i++)
+        {
+            User u = new User("bulk" + i,
+                "password",
+                "bulk" + i + "@lambdaschool.local");
+            u.getRoles()
+                .add(new UserRoles(u,
+                    member));
+            users.add(u);
+        }
+        userids = userBatchService.saveAll(users.iterator())
+            .stream()
+            .map(UserBatchResult::getUserid)
+            .collect(Collectors.toList());
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        userrepos.deleteAll();
+        roleService.deleteAll();
+    }
+
+    @Test
+    public void assignAndRevokeById()
+    {
+        List<Long> asked = new ArrayList<>(userids);
+        asked.add(userids.get(0));
+        asked.add(999999L);
+        Collections.reverse(asked);
+
+        RoleAssignmentResult result = roleAssignmentService.assign(bulk.getRoleid(),
+            asked);
+        assertEquals(6,
+            result.getUsers());
+        assertEquals(5,
+            result.getChanged());
+        assertTrue(userService.hasRole(userids.get(4),
+            "bulk"));
+        // the user read afterwards carries the new role
+        assertEquals(2,
+            userService.findUserById(userids.get(4))
+                .getRoles()
+                .size());
+        assertFalse(userService.hasRole(999999L,
+            "bulk"));
+
+        assertEquals(0,
+            roleAssignmentService.assign(bulk.getRoleid(),
+                userids)
+                .getChanged());
+
+        assertEquals(2,
+            roleAssignmentService.revoke(bulk.getRoleid(),
+                userids.subList(0,
+                    2))
+                .getChanged());
+        assertFalse(userService.hasRole(userids.get(0),
+            "bulk"));
+        assertTrue(userService.hasRole(userids.get(2),
+            "bulk"));
+    }
+
+    @Test
+    public void onlyChangedUsersAreEvicted()
+    {
+        User changed = userService.findUserById(userids.get(0));
+        User untouched = userService.findUserById(userids.get(4));
+
+        roleAssignmentService.assign(bulk.getRoleid(),
+            userids.subList(0,
+                3));
+        assertNotSame(changed,
+            userService.findUserById(userids.get(0)));
+        assertEquals(2,
+            userService.findUserById(userids.get(0))
+                .getRoles()
+                .size());
+        assertSame(untouched,
+            userService.findUserById(userids.get(4)));
+
+        roleAssignmentService.revoke(bulk.getRoleid(),
+            userids.subList(0,
+                1));
+        assertEquals(1,
+            userService.findUserById(userids.get(0))
+                .getRoles()
+                .size());
+        assertSame(untouched,
+            userService.findUserById(userids.get(4)));
+    }
+
+    @Test
+    public void assignAndRevokeByRoles()
+    {
+        RoleAssignmentResult result = roleAssignmentService.assignByRoles(bulk.getRoleid(),
+            List.of("member"),
+            List.of(),
+            List.of("bulk"));
+        assertEquals(5,
+            result.getChanged());
+        assertEquals(5,
+            userService.countByRoles(List.of("bulk",
+                "member"),
+                List.of(),
+                List.of()));
+
+        result = roleAssignmentService.revokeByRoles(bulk.getRoleid(),
+            List.of(),
+            List.of("bulk"),
+            List.of());
+        assertEquals(5,
+            result.getUsers());
+        assertEquals(5,
+            result.getChanged());
+        assertEquals(0,
+            userService.findIdsByRoles(List.of("bulk"),
+                List.of(),
+                List.of(),
+                0,
+                10)
+                .size());
+    }
+}
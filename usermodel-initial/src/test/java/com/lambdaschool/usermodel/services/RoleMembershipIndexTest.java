@@ -0,0 +1,174 @@
+package com.lambdaschool.usermodel.services;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RoleMembershipIndexTest
+{
+    private static final List<Long> NONE = Collections.emptyList();
+
+    private RoleMembershipIndex index;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        // roles 1 ADMIN, 2 USER, 3 DATA
+        index = new RoleMembershipIndex();
+        index.load(Stream.of(new Object[]{1L, 1L},
+            new Object[]{1L, 2L},
+            new Object[]{1L, 3L},
+            new Object[]{2, 2},
+            new Object[]{3L, 2L},
+            new Object[]{3L, 3L},
+            new Object[]{4L, 2L},
+            new Object[]{5L, 2L}));
+    }
+
+    @Test
+    public void hasRole()
+    {
+        assertTrue(index.isWarm());
+        assertTrue(index.hasRole(1,
+            1));
+        assertFalse(index.hasRole(2,
+            1));
+        assertFalse(index.hasRole(1,
+            7));
+        assertFalse(index.hasRole(-1,
+            1));
+    }
+
+    @Test
+    public void searchCombinesRoles()
+    {
+        assertEquals(List.of(2L,
+            4L,
+            5L),
+            index.search(List.of(2L),
+                NONE,
+                List.of(1L,
+                    3L),
+                0,
+                10));
+        assertEquals(List.of(1L,
+            3L),
+            index.search(NONE,
+                List.of(1L,
+                    3L),
+                NONE,
+                0,
+                10));
+        assertEquals(List.of(1L),
+            index.search(List.of(2L,
+                3L),
+                List.of(1L,
+                    7L),
+                NONE,
+                0,
+                10));
+        assertEquals(0,
+            index.count(List.of(7L),
+                NONE,
+                NONE));
+        assertEquals(5,
+            index.count(List.of(2L),
+                NONE,
+                NONE));
+    }
+
+    @Test
+    public void searchPagesByUserid()
+    {
+        assertEquals(List.of(1L,
+            2L),
+            index.search(List.of(2L),
+                NONE,
+                NONE,
+                0,
+                2));
+        assertEquals(List.of(3L,
+            4L),
+            index.search(List.of(2L),
+                NONE,
+                NONE,
+                2,
+                2));
+        assertEquals(NONE,
+            index.search(List.of(2L),
+                NONE,
+                NONE,
+                5,
+                2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void searchNeedsRolesToHold()
+    {
+        index.count(NONE,
+            NONE,
+            List.of(1L));
+    }
+
+    @Test
+    public void putAllReplacesRoles()
+    {
+        index.putAll(Map.of(2L,
+            List.of(1L),
+            6L,
+            List.of(2L,
+                3L)));
+
+        assertTrue(index.hasRole(2,
+            1));
+        assertFalse(index.hasRole(2,
+            2));
+        assertEquals(List.of(1L,
+            3L,
+            6L),
+            index.search(List.of(3L),
+                NONE,
+                NONE,
+                0,
+                10));
+    }
+
+    @Test
+    public void removeUserAndRole()
+    {
+        index.remove(1);
+        assertFalse(index.hasRole(1,
+            2));
+        assertEquals(1,
+            index.count(List.of(3L),
+                NONE,
+                NONE));
+
+        index.removeRole(2);
+        assertEquals(0,
+            index.count(NONE,
+                List.of(2L),
+                NONE));
+        // a user given the role back is indexed again
+        index.put(4,
+            List.of(2L));
+        assertTrue(index.hasRole(4,
+            2));
+    }
+
+    @Test
+    public void tooLargeUseridLeavesIndexCold()
+    {
+        index.put(1L << 32,
+            List.of(1L));
+        assertFalse(index.isWarm());
+    }
+}
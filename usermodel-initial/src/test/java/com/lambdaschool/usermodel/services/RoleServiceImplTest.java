@@ -0,0 +1,123 @@
+package com.lambdaschool.usermodel.services;
+
+import com.lambdaschool.usermodel.UserModelApplicationTest;
+import com.lambdaschool.usermodel.exceptions.ResourceNotFoundException;
+import com.lambdaschool.usermodel.models.Role;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks role reads are answered from the role registry, and that the registry follows changes made
+ * through the Role Service
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = UserModelApplicationTest.class,
+    properties = {"command.line.runner.enabled=false"})
+public class RoleServiceImplTest
+{
+    @Autowired
+    private RoleService roleService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Statistics statistics;
+
+    private Role role;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class)
+            .getStatistics();
+
+        role = roleService.save(new Role("registry"));
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        roleService.deleteAll();
+    }
+
+    @Test
+    public void readsDoNotGoToTheDatabase()
+    {
+        roleService.findAll();
+        statistics.clear();
+
+        assertEquals("REGISTRY",
+            roleService.findRoleById(role.getRoleid())
+                .getName());
+        assertEquals(role.getRoleid(),
+            roleService.findByName("Registry")
+                .getRoleid());
+        assertEquals(0,
+            statistics.getPrepareStatementCount());
+    }
+
+    @Test(expected = ResourceNotFoundException.class)
+    public void updateRenamesTheRegistryRole()
+    {
+        Role renamed = new Role("registered");
+        roleService.update(role.getRoleid(),
+            renamed);
+
+        assertEquals("REGISTERED",
+            roleService.findRoleById(role.getRoleid())
+                .getName());
+        roleService.findByName("registry");
+    }
+
+    @Test
+    public void updateIsReadAgainOnceCommitted()
+    {
+        roleService.update(role.getRoleid(),
+            new Role("registered"));
+        statistics.clear();
+
+        assertEquals("REGISTERED",
+            roleService.findRoleById(role.getRoleid())
+                .getName());
+        assertEquals(0,
+            statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void uncommittedUpdateIsNotShared()
+    {
+        transactionTemplate.executeWithoutResult(status ->
+        {
+            assertEquals("REGISTERED",
+                roleService.update(role.getRoleid(),
+                    new Role("registered"))
+                    .getName());
+            // another thread reads the roles as last committed
+            assertEquals("REGISTRY",
+                CompletableFuture.supplyAsync(() -> roleService.findRoleById(role.getRoleid())
+                    .getName())
+                    .join());
+            status.setRollbackOnly();
+        });
+
+        assertEquals("REGISTRY",
+            roleService.findRoleById(role.getRoleid())
+                .getName());
+    }
+}
@@ -0,0 +1,186 @@
+package com.lambdaschool.usermodel.services;
+
+import com.lambdaschool.usermodel.exceptions.ResourceNotFoundException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SingleFlightTest
+{
+    private MeterRegistry meterRegistry;
+
+    private SingleFlight<String, String> flight;
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        meterRegistry = new SimpleMeterRegistry();
+        flight = new SingleFlight<>("test",
+            meterRegistry);
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        executor.shutdownNow();
+    }
+
+    private double calls(boolean coalesced)
+    {
+        return meterRegistry.get("usermodel.singleflight.calls")
+            .tag("flight",
+                "test")
+            .tag("coalesced",
+                String.valueOf(coalesced))
+            .counter()
+            .count();
+    }
+
+    @Test
+    public void concurrentCallsAreShared() throws Exception
+    {
+        AtomicInteger made = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> leader = executor.submit(() -> flight.run("cinnamon",
+            () ->
+            {
+                made.incrementAndGet();
+                await(release);
+                return "user " + made.get();
+            }));
+        while (calls(false) == 0)
+        {
+            Thread.sleep(1);
+        }
+
+        List<Future<String>> followers = new ArrayList<>();
+        for (int i = 0; i < 3; i++)
+        {
+            followers.add(executor.submit(() -> flight.run("cinnamon",
+                () -> "user " + made.incrementAndGet())));
+        }
+        while (calls(true) < 3)
+        {
+            Thread.sleep(1);
+        }
+        release.countDown();
+
+        assertEquals("user 1",
+            leader.get(5,
+                TimeUnit.SECONDS));
+        for (Future<String> f : followers)
+        {
+            assertEquals("user 1",
+                f.get(5,
+                    TimeUnit.SECONDS));
+        }
+        assertEquals(1,
+            made.get());
+
+        // once the call returns the next caller makes a new one
+        assertEquals("user 2",
+            flight.run("cinnamon",
+                () -> "user " + made.incrementAndGet()));
+        assertEquals(2.0,
+            calls(false),
+            0.0);
+    }
+
+    @Test
+    public void exceptionIsShared() throws Exception
+    {
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> leader = executor.submit(() -> flight.run("turtle",
+            () ->
+            {
+                await(release);
+                throw new ResourceNotFoundException("User name turtle not found!");
+            }));
+        while (calls(false) == 0)
+        {
+            Thread.sleep(1);
+        }
+        Future<String> follower = executor.submit(() -> flight.run("turtle",
+            () -> "turtle"));
+        while (calls(true) == 0)
+        {
+            Thread.sleep(1);
+        }
+        release.countDown();
+
+        for (Future<String> f : List.of(leader,
+            follower))
+        {
+            try
+            {
+                f.get(5,
+                    TimeUnit.SECONDS);
+                fail("expected the call's exception");
+            } catch (ExecutionException e)
+            {
+                assertTrue(e.getCause() instanceof ResourceNotFoundException);
+            }
+        }
+    }
+
+    @Test
+    public void forgottenCallIsNotJoined() throws Exception
+    {
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> leader = executor.submit(() -> flight.run("barnbarn",
+            () ->
+            {
+                await(release);
+                return "old";
+            }));
+        while (calls(false) == 0)
+        {
+            Thread.sleep(1);
+        }
+
+        flight.forget("barnbarn");
+        assertEquals("new",
+            flight.run("barnbarn",
+                () -> "new"));
+        release.countDown();
+        assertEquals("old",
+            leader.get(5,
+                TimeUnit.SECONDS));
+        assertEquals(0.0,
+            calls(true),
+            0.0);
+    }
+
+    private static void await(CountDownLatch latch)
+    {
+        try
+        {
+            latch.await();
+        } catch (InterruptedException e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
+}
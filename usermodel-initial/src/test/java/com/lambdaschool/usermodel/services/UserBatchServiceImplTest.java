@@ -0,0 +1,126 @@
+package com.lambdaschool.usermodel.services;
+
+import com.lambdaschool.usermodel.UserModelApplicationTest;
+import com.lambdaschool.usermodel.models.Role;
+import com.lambdaschool.usermodel.models.User;
+import com.lambdaschool.usermodel.models.UserBatchResult;
+import com.lambdaschool.usermodel.models.UserRoles;
+import com.lambdaschool.usermodel.models.Useremail;
+import com.lambdaschool.usermodel.repository.UserRepository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Writes batches of users to the in memory database, two users per transaction
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = UserModelApplicationTest.class,
+    properties = {"command.line.runner.enabled=false",
+        "usermodel.users.batch.chunk-size=2"})
+public class UserBatchServiceImplTest
+{
+    @Autowired
+    private UserBatchService userBatchService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userrepos;
+
+    @Autowired
+    private RoleService roleService;
+
+    private Role role;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        role = roleService.save(new Role("batch"));
+        userrepos.save(new User("taken",
+            "password",
+            "taken@lambdaschool.local"));
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        userrepos.deleteAll();
+        roleService.deleteAll();
+    }
+
+    private User newUser(
+        String username,
+        long roleid)
+    {
+        User u = new User(username,
+            "password",
+            username + "@lambdaschool.local");
+        Role r = new Role();
+        r.setRoleid(roleid);
+        u.getRoles()
+            .add(new UserRoles(u,
+                r));
+        u.getUseremails()
+            .add(new Useremail(u,
+                username + "@email.local"));
+        return u;
+    }
+
+    @Test
+    public void saveAll()
+    {
+        List<UserBatchResult> results = userBatchService.saveAll(List.of(newUser("first",
+                role.getRoleid()),
+            newUser("norole",
+                role.getRoleid() + 1000),
+            newUser("FIRST",
+                role.getRoleid()),
+            newUser("taken",
+                role.getRoleid()),
+            newUser("second",
+                role.getRoleid()),
+            newUser("third",
+                role.getRoleid()))
+            .iterator());
+
+        assertEquals(6,
+            results.size());
+        assertNotNull(results.get(0)
+            .getUserid());
+        assertNotNull(results.get(1)
+            .getErrors());
+        assertNotNull(results.get(2)
+            .getErrors());
+        // taken shares a chunk with second, the chunk is retried one user at a time
+        assertNotNull(results.get(3)
+            .getErrors());
+        assertNull(results.get(3)
+            .getUserid());
+        assertNotNull(results.get(4)
+            .getUserid());
+        assertNotNull(results.get(5)
+            .getUserid());
+
+        User second = userService.findByName("second");
+        assertEquals(1,
+            second.getRoles()
+                .size());
+        assertEquals(1,
+            second.getUseremails()
+                .size());
+        assertEquals(4,
+            userrepos.count());
+    }
+}
@@ -0,0 +1,111 @@
+package com.lambdaschool.usermodel.services;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class UserEmailIndexTest
+{
+    private UserEmailIndex index;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        index = new UserEmailIndex();
+        index.load(Stream.of(new Object[]{1L, "admin@lambdaschool.local"},
+            new Object[]{1L, "admin@mymail.local"},
+            new Object[]{2, "cinnamon@lambdaschool.local"},
+            new Object[]{2, "hops@mymail.local"},
+            new Object[]{3L, "hops@mymail.local"}));
+    }
+
+    @Test
+    public void searchIgnoresCase()
+    {
+        assertTrue(index.isWarm());
+        assertArrayEquals(new long[]{1},
+            index.search("Admin@MyMail.local"));
+        assertArrayEquals(new long[]{2, 3},
+            index.search("hops@mymail.local"));
+        assertArrayEquals(new long[0],
+            index.search("nobody@mymail.local"));
+    }
+
+    @Test
+    public void putReplacesAddresses()
+    {
+        index.put(2,
+            List.of("cinnamon@lambdaschool.local",
+                "cinnamon@mymail.local"));
+
+        assertArrayEquals(new long[]{3},
+            index.search("hops@mymail.local"));
+        assertArrayEquals(new long[]{2},
+            index.search("cinnamon@mymail.local"));
+        assertArrayEquals(new long[]{2},
+            index.search("cinnamon@lambdaschool.local"));
+    }
+
+    @Test
+    public void removeAddresses()
+    {
+        index.remove(3,
+            "HOPS@mymail.local");
+        assertArrayEquals(new long[]{2},
+            index.search("hops@mymail.local"));
+
+        index.remove(2);
+        assertArrayEquals(new long[0],
+            index.search("hops@mymail.local"));
+        assertArrayEquals(new long[0],
+            index.search("cinnamon@lambdaschool.local"));
+
+        index.add(2,
+            "Hops@mymail.local");
+        assertArrayEquals(new long[]{2},
+            index.search("hops@mymail.local"));
+    }
+
+    @Test
+    public void failedLoadKeepsIndex()
+    {
+        try
+        {
+            index.load(Stream.of(new Object[]{4L, "puttat@school.lambda"},
+                new Object[]{null, "misskitty@school.lambda"}));
+        } catch (NullPointerException e)
+        {
+            // expected, the second row has no userid
+        }
+        assertArrayEquals(new long[]{1},
+            index.search("admin@lambdaschool.local"));
+        assertArrayEquals(new long[0],
+            index.search("puttat@school.lambda"));
+        assertFalse(index.search("hops@mymail.local").length == 0);
+    }
+
+    @Test
+    public void writeDuringLoadIsKept() throws Exception
+    {
+        Thread writer = new Thread(() -> index.put(4L,
+            List.of("puttat@school.lambda")));
+        index.load(() ->
+        {
+            // committed after the rows were read, so only the write itself can add it
+            writer.start();
+            return Stream.<Object[]>of(new Object[]{1L, "admin@lambdaschool.local"});
+        });
+        writer.join();
+
+        assertArrayEquals(new long[]{4},
+            index.search("puttat@school.lambda"));
+        assertArrayEquals(new long[]{1},
+            index.search("admin@lambdaschool.local"));
+    }
+}
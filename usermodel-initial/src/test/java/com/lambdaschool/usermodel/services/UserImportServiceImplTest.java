@@ -0,0 +1,146 @@
+package com.lambdaschool.usermodel.services;
+
+import com.lambdaschool.usermodel.UserModelApplicationTest;
+import com.lambdaschool.usermodel.exceptions.ResourceFoundException;
+import com.lambdaschool.usermodel.models.Role;
+import com.lambdaschool.usermodel.models.UserBatchResult;
+import com.lambdaschool.usermodel.models.UserImportReport;
+import com.lambdaschool.usermodel.repository.UserRepository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Imports users into the in memory database, two users per chunk written by two threads
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = UserModelApplicationTest.class,
+    properties = {"command.line.runner.enabled=false",
+        "usermodel.import.chunk-size=2",
+        "usermodel.import.threads=2",
+        "usermodel.import.queued-chunks=1"})
+public class UserImportServiceImplTest
+{
+    @Autowired
+    private UserImportService userImportService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userrepos;
+
+    @Autowired
+    private RoleService roleService;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        roleService.save(new Role("member"));
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        userrepos.deleteAll();
+        roleService.deleteAll();
+    }
+
+    private static InputStream stream(String contents)
+    {
+        return new ByteArrayInputStream(contents.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void importCsv() throws Exception
+    {
+        UserImportReport report = userImportService.importUsers(stream("username,password,primaryemail,useremails,roles\n" +
+                "csv0,password,csv0@lambdaschool.local,csv0@mymail.local;csv0@work.local,member\n" +
+                "csv1,password,csv1@lambdaschool.local,,\n" +
+                "CSV0,password,other@lambdaschool.local,,\n" +
+                "csv2,password,CSV1@lambdaschool.local,,\n" +
+                "csv3,password,csv3@lambdaschool.local,,nosuchrole\n" +
+                "csv4,,csv4@lambdaschool.local,,\n" +
+                "csv5,password,csv5@lambdaschool.local,,member\n"),
+            "CSV");
+
+        assertEquals("csv",
+            report.getFormat());
+        assertEquals(7,
+            report.getRows());
+        assertEquals(3,
+            report.getCreated());
+        assertEquals(4,
+            report.getRejected());
+        assertEquals(List.of(2,
+            3,
+            4,
+            5),
+            report.getRejections()
+                .stream()
+                .map(UserBatchResult::getIndex)
+                .collect(Collectors.toList()));
+        assertEquals("nosuchrole",
+            report.getRejections()
+                .get(2)
+                .getErrors()
+                .get(0)
+                .getCode());
+
+        assertEquals(2,
+            userService.findByName("csv0")
+                .getUseremails()
+                .size());
+        assertTrue(userService.hasRole(userService.findByName("csv5")
+                .getUserid(),
+            "member"));
+    }
+
+    @Test
+    public void importNdjson() throws Exception
+    {
+        UserImportReport report = userImportService.importUsers(stream("{\"username\":\"json0\",\"password\":\"password\",\"primaryemail\":\"json0@lambdaschool.local\"}\n" +
+                "\n" +
+                "{\"username\":\"json1\",\n" +
+                "{\"username\":\"json2\",\"password\":\"password\",\"primaryemail\":\"json2@lambdaschool.local\"}\n"),
+            "ndjson");
+
+        assertEquals(3,
+            report.getRows());
+        assertEquals(2,
+            report.getCreated());
+        assertEquals(1,
+            report.getRejections()
+                .get(0)
+                .getIndex());
+        assertEquals("unreadable",
+            report.getRejections()
+                .get(0)
+                .getErrors()
+                .get(0)
+                .getCode());
+        assertEquals("json2",
+            userService.findByName("json2")
+                .getUsername());
+    }
+
+    @Test(expected = ResourceFoundException.class)
+    public void importUnknownFormat() throws Exception
+    {
+        userImportService.importUsers(stream(""),
+            "xml");
+    }
+}
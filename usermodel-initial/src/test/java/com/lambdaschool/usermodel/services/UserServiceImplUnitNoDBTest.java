@@ -5,8 +5,11 @@ import com.lambdaschool.usermodel.exceptions.ResourceNotFoundException;
 import com.lambdaschool.usermodel.models.Role;
 import com.lambdaschool.usermodel.models.User;
 import com.lambdaschool.usermodel.models.UserRoles;
+import com.lambdaschool.usermodel.models.UserSummary;
 import com.lambdaschool.usermodel.models.Useremail;
 import com.lambdaschool.usermodel.repository.UserRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -16,15 +19,21 @@ import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.test.context.junit4.SpringRunner;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
 import static junit.framework.TestCase.assertEquals;
 import static junit.framework.TestCase.assertNotNull;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 
 
 @RunWith(SpringRunner.class)
@@ -41,6 +50,24 @@ public class UserServiceImplUnitNoDBTest
     @MockBean
     private RoleService roleService;
 
+    @Autowired
+    private UserCache userCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @MockBean
+    private UsernameTrigramIndex trigramIndex;
+
+    @MockBean
+    private UsernamePrefixIndex prefixIndex;
+
+    @MockBean
+    private UserEmailIndex emailIndex;
+
+    @MockBean
+    private RoleMembershipIndex membershipIndex;
+
     private List<User> userList = new ArrayList<>();
     @Before
     public void setUp() throws Exception
@@ -111,6 +138,7 @@ public class UserServiceImplUnitNoDBTest
                 "barnbarn@email.local"));
         userList.add(u3);
 
+        userCache.evictAll();
         MockitoAnnotations.initMocks(this);
     }
 
@@ -130,6 +158,21 @@ public class UserServiceImplUnitNoDBTest
                 .getUsername());
     }
 
+    @Test
+    public void findUserByIdCached()
+    {
+        Mockito.when(userrepos.findById(4L))
+            .thenReturn(Optional.of(userList.get(0)));
+
+        userService.findUserById(4);
+        assertEquals("admin",
+            userService.findUserById(4)
+                .getUsername());
+        Mockito.verify(userrepos,
+            Mockito.times(1))
+            .findById(4L);
+    }
+
     @Test(expected = ResourceNotFoundException.class)
     public void findUserByIdNotFound()
     {
@@ -141,6 +184,28 @@ public class UserServiceImplUnitNoDBTest
                 .getUsername());
     }
 
+    @Test
+    public void findAllById()
+    {
+        Mockito.when(userrepos.findAllById(Arrays.asList(30L,
+            99L,
+            10L)))
+            .thenReturn(Arrays.asList(userList.get(0),
+                userList.get(2)));
+
+        List<User> found = userService.findAllById(Arrays.asList(30L,
+            99L,
+            10L));
+        assertEquals(2,
+            found.size());
+        assertEquals("barnbarn",
+            found.get(0)
+                .getUsername());
+        assertEquals("admin",
+            found.get(1)
+                .getUsername());
+    }
+
     @Test
     public void findByNameContaining()
     {
@@ -150,6 +215,110 @@ public class UserServiceImplUnitNoDBTest
         assertEquals(3, userService.findByNameContaining("bob").size());
     }
 
+    @Test
+    public void findByNameStarting()
+    {
+        Mockito.when(userrepos.findByUsernameStartingWithOrderByUsernameAsc(eq("cin"),
+            any(Pageable.class)))
+            .thenReturn(userList.subList(1,
+                2));
+
+        assertEquals("cinnamon",
+            userService.findByNameStarting("CIN",
+                10)
+                .get(0)
+                .getUsername());
+    }
+
+    @Test
+    public void findByNameStartingIndexed()
+    {
+        Mockito.when(prefixIndex.isWarm())
+            .thenReturn(true);
+        Mockito.when(prefixIndex.search("cin",
+            10))
+            .thenReturn(Collections.singletonList(new UserSummary(20,
+                "cinnamon",
+                null)));
+
+        assertEquals(20,
+            userService.findByNameStarting("Cin",
+                10)
+                .get(0)
+                .getUserid());
+        Mockito.verify(userrepos,
+            Mockito.never())
+            .findByUsernameStartingWithOrderByUsernameAsc(any(),
+                any());
+    }
+
+    @Test
+    public void findByNameContainingShorterThanATrigram()
+    {
+        Mockito.when(trigramIndex.isWarm())
+            .thenReturn(true);
+        Mockito.when(userrepos.findByUsernameContainingIgnoreCase("in"))
+            .thenReturn(userList);
+
+        assertEquals(3,
+            userService.findByNameContaining("IN")
+                .size());
+        Mockito.verify(trigramIndex,
+            Mockito.never())
+            .search(any());
+    }
+
+    @Test
+    public void findByNameContainingReadsCandidatesInChunks()
+    {
+        List<Long> ids = new ArrayList<>();
+        for (long id = 1; id <= 250; id++)
+        {
+            ids.add(id);
+        }
+        Mockito.when(trigramIndex.isWarm())
+            .thenReturn(true);
+        Mockito.when(trigramIndex.search("use"))
+            .thenReturn(ids);
+        Mockito.when(userrepos.findSummariesById(any()))
+            .thenReturn(Collections.emptyList());
+
+        userService.findSummariesByNameContaining("use");
+
+        // hibernate.default_batch_fetch_size is 100
+        Mockito.verify(userrepos)
+            .findSummariesById(ids.subList(0,
+                100));
+        Mockito.verify(userrepos)
+            .findSummariesById(ids.subList(200,
+                250));
+        Mockito.verify(userrepos,
+            Mockito.times(3))
+            .findSummariesById(any());
+    }
+
+    @Test
+    public void findByNameContainingIndexed()
+    {
+        List<Long> ids = Arrays.asList(10L,
+            20L,
+            30L);
+        Mockito.when(trigramIndex.isWarm())
+            .thenReturn(true);
+        Mockito.when(trigramIndex.search("min"))
+            .thenReturn(ids);
+        Mockito.when(userrepos.findAllById(ids))
+            .thenReturn(userList);
+
+        // only admin contains min, the index was a commit behind
+        List<User> found = userService.findByNameContaining("MIN");
+        assertEquals(1,
+            found.size());
+        assertEquals(10,
+            found.get(0)
+                .getUserid());
+    }
+
     @Test
     public void findAll()
     {
@@ -161,6 +330,33 @@ public class UserServiceImplUnitNoDBTest
                 .size());
     }
 
+    @Test
+    public void findAllPage()
+    {
+        Mockito.when(userrepos.findAll(any(Pageable.class)))
+            .thenReturn(new PageImpl<>(userList));
+
+        assertEquals(3,
+            userService.findAll(PageRequest.of(0,
+                10))
+                .getContent()
+                .size());
+    }
+
+    @Test
+    public void findAllAfter()
+    {
+        Mockito.when(userrepos.findByUseridGreaterThanOrderByUseridAsc(eq(10L),
+            any(Pageable.class)))
+            .thenReturn(userList.subList(1,
+                3));
+
+        assertEquals(2,
+            userService.findAllAfter(10,
+                2)
+                .size());
+    }
+
     @Test
     public void delete()
     {
@@ -199,6 +395,112 @@ public class UserServiceImplUnitNoDBTest
             userService.findByName("admin").getUsername());
     }
 
+    @Test
+    public void findByEmail()
+    {
+        Mockito.when(userrepos.findUseridsByEmail("hops@mymail.local"))
+            .thenReturn(Collections.singletonList(20L));
+        Mockito.when(userrepos.findById(20L))
+            .thenReturn(Optional.of(userList.get(1)));
+
+        assertEquals("cinnamon",
+            userService.findByEmail("Hops@MyMail.local")
+                .getUsername());
+    }
+
+    @Test
+    public void findByEmailIndexed()
+    {
+        Mockito.when(emailIndex.isWarm())
+            .thenReturn(true);
+        Mockito.when(emailIndex.search("admin@mymail.local"))
+            .thenReturn(new long[]{30, 10});
+        Mockito.when(userrepos.findById(30L))
+            .thenReturn(Optional.of(userList.get(2)));
+        Mockito.when(userrepos.findById(10L))
+            .thenReturn(Optional.of(userList.get(0)));
+
+        // barnbarn does not have the address, the index was a commit behind
+        assertEquals(10,
+            userService.findByEmail("admin@mymail.local")
+                .getUserid());
+        Mockito.verify(userrepos,
+            Mockito.never())
+            .findUseridsByEmail(any());
+    }
+
+    @Test
+    public void findSummaryByEmail()
+    {
+        Mockito.when(userrepos.findUseridsByEmail("hops@mymail.local"))
+            .thenReturn(Arrays.asList(20L,
+                30L));
+        Mockito.when(userrepos.findSummaryById(20L))
+            .thenReturn(Optional.of(new UserSummary(20,
+                "cinnamon",
+                "cinnamon@lambdaschool.local")));
+
+        assertEquals("cinnamon",
+            userService.findSummaryByEmail("Hops@MyMail.local")
+                .getUsername());
+        Mockito.verify(userrepos,
+            Mockito.never())
+            .findById(any());
+    }
+
+    @Test(expected = ResourceNotFoundException.class)
+    public void findByEmailNotFound()
+    {
+        Mockito.when(userrepos.findUseridsByEmail("turtle@mymail.local"))
+            .thenReturn(Collections.emptyList());
+
+        userService.findByEmail("turtle@mymail.local");
+    }
+
+    @Test
+    public void hasRole()
+    {
+        Role data = new Role("data");
+        data.setRoleid(3);
+        Mockito.when(roleService.findByName("data"))
+            .thenReturn(data);
+        Mockito.when(userrepos.findById(20L))
+            .thenReturn(Optional.of(userList.get(1)));
+        Mockito.when(userrepos.findById(30L))
+            .thenReturn(Optional.of(userList.get(2)));
+
+        assertEquals(true,
+            userService.hasRole(20,
+                "data"));
+        assertEquals(false,
+            userService.hasRole(30,
+                "data"));
+        assertEquals(false,
+            userService.hasRole(40,
+                "data"));
+    }
+
+    @Test
+    public void hasRoleIndexed()
+    {
+        Role data = new Role("data");
+        data.setRoleid(3);
+        Mockito.when(roleService.findByName("data"))
+            .thenReturn(data);
+        Mockito.when(membershipIndex.isWarm())
+            .thenReturn(true);
+        Mockito.when(membershipIndex.hasRole(20,
+            3))
+            .thenReturn(true);
+
+        assertEquals(true,
+            userService.hasRole(20,
+                "data"));
+        Mockito.verify(userrepos,
+            Mockito.never())
+            .findById(any());
+    }
+
     @Test(expected = ResourceNotFoundException.class)
     public void findByNameNotFound()
     {
@@ -266,6 +568,67 @@ public class UserServiceImplUnitNoDBTest
 
     }
 
+    @Test
+    public void saveputKeepsUnchangedRows()
+    {
+        User current = new User("alden",
+            "password",
+            "alden@gmail.com");
+        current.setUserid(15);
+        Role r1 = new Role("admin");
+        r1.setRoleid(3);
+        current.getRoles()
+            .add(new UserRoles(current,
+                r1));
+        Useremail kept = new Useremail(current,
+            "admin@email.local");
+        current.getUseremails()
+            .add(kept);
+
+        User u = new User("alden",
+            "newpassword",
+            "alden@gmail.com");
+        u.setUserid(15);
+        Role ref = new Role();
+        ref.setRoleid(3);
+        u.getRoles()
+            .add(new UserRoles(u,
+                ref));
+        u.getUseremails()
+            .add(new Useremail(u,
+                "admin@email.local"));
+        u.getUseremails()
+            .add(new Useremail(u,
+                "alden@email.local"));
+
+        Mockito.when(userrepos.findById(15L))
+            .thenReturn(Optional.of(current));
+        Mockito.when(userrepos.save(any(User.class)))
+            .thenAnswer(invocation -> invocation.getArgument(0));
+        DistributionSummary rows = meterRegistry.summary("users.update.rows",
+            "method",
+            "save");
+        double before = rows.totalAmount();
+
+        User saved = userService.save(u);
+
+        assertEquals(2,
+            saved.getUseremails()
+                .size());
+        assertEquals(kept,
+            saved.getUseremails()
+                .get(0));
+        assertEquals(1,
+            saved.getRoles()
+                .size());
+        Mockito.verify(roleService,
+            Mockito.never())
+            .findRoleById(Mockito.anyLong());
+        // only the new email is written
+        assertEquals(1.0,
+            rows.totalAmount() - before);
+    }
+
     @Test(expected = ResourceNotFoundException.class)
     public void saveputfailed()
     {
@@ -0,0 +1,161 @@
+package com.lambdaschool.usermodel.services;
+
+import com.lambdaschool.usermodel.models.UserSummary;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class UsernamePrefixIndexTest
+{
+    private UsernamePrefixIndex index;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        index = new UsernamePrefixIndex();
+        index.load(Stream.of(new UserSummary(4,
+                "admin",
+                null),
+            new UserSummary(7,
+                "cinnamon",
+                null),
+            new UserSummary(11,
+                "barnbarn",
+                null),
+            new UserSummary(13,
+                "puttat",
+                null),
+            new UserSummary(14,
+                "misskitty",
+                null),
+            new UserSummary(15,
+                "misskit",
+                null)));
+    }
+
+    private List<String> names(
+        String prefix,
+        int limit)
+    {
+        return index.search(prefix,
+            limit)
+            .stream()
+            .map(UserSummary::getUsername)
+            .collect(Collectors.toList());
+    }
+
+    @Test
+    public void searchInUsernameOrder()
+    {
+        assertTrue(index.isWarm());
+        assertEquals(List.of("misskit",
+            "misskitty"),
+            names("MISS",
+                10));
+        assertEquals(List.of("misskit"),
+            names("miss",
+                1));
+        assertEquals(6,
+            names("",
+                10).size());
+        assertEquals(List.of(),
+            names("missy",
+                10));
+    }
+
+    @Test
+    public void searchReturnsUserid()
+    {
+        assertEquals(7,
+            index.search("cinnamon",
+                10)
+                .get(0)
+                .getUserid());
+    }
+
+    @Test
+    public void renameAndRemove()
+    {
+        index.put(15,
+            "kitty");
+        assertEquals(List.of("misskitty"),
+            names("miss",
+                10));
+        assertEquals(List.of("kitty"),
+            names("k",
+                10));
+
+        index.remove(14);
+        assertEquals(List.of(),
+            names("miss",
+                10));
+
+        index.clear();
+        assertEquals(List.of(),
+            names("",
+                10));
+    }
+
+    @Test
+    public void matchesSortedMap()
+    {
+        Random random = new Random(42);
+        Map<Long, String> byId = new TreeMap<>();
+        for (int i = 0; i < 5000; i++)
+        {
+            long userid = random.nextInt(500);
+            if (random.nextInt(4) == 0)
+            {
+                index.remove(userid);
+                byId.remove(userid);
+            } else
+            {
+                StringBuilder name = new StringBuilder();
+                int length = 1 + random.nextInt(6);
+                for (int j = 0; j < length; j++)
+                {
+                    name.append((char) ('a' + random.nextInt(3)));
+                }
+                // usernames are unique
+                if (!byId.containsValue(name.toString()))
+                {
+                    index.put(userid,
+                        name.toString());
+                    byId.put(userid,
+                        name.toString());
+                }
+            }
+        }
+
+        TreeMap<String, Long> byName = new TreeMap<>();
+        byId.forEach((id, name) -> byName.put(name,
+            id));
+        for (String prefix : new String[]{"", "a", "ab", "abc", "cc", "bab", "aaaaaa"})
+        {
+            List<Long> expected = new ArrayList<>();
+            byName.forEach((name, id) ->
+            {
+                if (name.startsWith(prefix) && expected.size() < 20)
+                {
+                    expected.add(id);
+                }
+            });
+            assertEquals(expected,
+                index.search(prefix,
+                    20)
+                    .stream()
+                    .map(UserSummary::getUserid)
+                    .collect(Collectors.toList()));
+        }
+    }
+}